@@ -1,9 +1,12 @@
 package com.redis.riot.core;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.ExitStatus;
@@ -18,8 +21,12 @@ import org.springframework.batch.core.JobParametersInvalidException;
 import org.springframework.batch.core.StepExecution;
 import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.job.builder.FlowBuilder;
+import org.springframework.batch.core.job.builder.FlowJobBuilder;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.job.builder.SimpleJobBuilder;
+import org.springframework.batch.core.job.flow.Flow;
+import org.springframework.batch.core.job.flow.support.SimpleFlow;
 import org.springframework.batch.core.launch.JobLauncher;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
 import org.springframework.batch.core.launch.support.TaskExecutorJobLauncher;
@@ -39,6 +46,7 @@ import org.springframework.batch.item.ItemStreamSupport;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.batch.item.support.SynchronizedItemReader;
 import org.springframework.batch.item.support.SynchronizedItemStreamReader;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.core.task.TaskExecutor;
 import org.springframework.retry.policy.AlwaysRetryPolicy;
@@ -72,11 +80,18 @@ public abstract class AbstractJobCommand extends AbstractCallableCommand {
 	@ArgGroup(exclusive = false, heading = "Job options%n")
 	private StepArgs stepArgs = new StepArgs();
 
+	@ArgGroup(exclusive = false, heading = "Metrics options%n")
+	private MetricsArgs metricsArgs = new MetricsArgs();
+
 	private String jobRepositoryName = DEFAULT_JOB_REPOSITORY_NAME;
 	private JobRepository jobRepository;
 	private PlatformTransactionManager transactionManager;
 	private JobLauncher jobLauncher;
 	private JobExplorer jobExplorer;
+	private RateLimiter rateLimiter;
+	private RateLimiter byteRateLimiter;
+	private JobMetrics metrics;
+	private MetricsExporter metricsExporter;
 
 	protected Runnable onJobSuccessCallback;
 
@@ -103,6 +118,24 @@ public abstract class AbstractJobCommand extends AbstractCallableCommand {
 				throw new RiotException("Could not create job launcher", e);
 			}
 		}
+		if (stepArgs.getRateLimitArgs().isEnabled()) {
+			log.info("Creating rate limiters with {}", stepArgs.getRateLimitArgs());
+			rateLimiter = stepArgs.getRateLimitArgs().rateLimiter();
+			byteRateLimiter = stepArgs.getRateLimitArgs().byteRateLimiter();
+		}
+		if (metricsArgs.isEnabled()) {
+			log.info("Creating metrics exporter with {}", metricsArgs);
+			metrics = new JobMetrics();
+			metricsExporter = new MetricsExporter(metrics);
+			metricsExporter.setPort(metricsArgs.getPort());
+			metricsExporter.setFile(metricsArgs.getFile());
+			metricsExporter.setInterval(metricsArgs.getInterval().getValue());
+			try {
+				metricsExporter.start();
+			} catch (IOException e) {
+				throw new RiotException("Could not start metrics exporter", e);
+			}
+		}
 		if (jobExplorer == null) {
 			try {
 				jobExplorer = JobUtils.jobExplorerFactoryBean(jobRepositoryName).getObject();
@@ -113,6 +146,15 @@ public abstract class AbstractJobCommand extends AbstractCallableCommand {
 		}
 	}
 
+	@Override
+	protected void teardown() {
+		if (metricsExporter != null) {
+			metricsExporter.close();
+			metricsExporter = null;
+		}
+		super.teardown();
+	}
+
 	private JobLauncher jobLauncher() throws Exception {
 		TaskExecutorJobLauncher launcher = new TaskExecutorJobLauncher();
 		launcher.setJobRepository(jobRepository);
@@ -187,6 +229,30 @@ public abstract class AbstractJobCommand extends AbstractCallableCommand {
 		return job.build();
 	}
 
+	/**
+	 * Creates a job that runs the given partition steps concurrently, each in its
+	 * own flow, followed by the remaining steps in sequence once all partitions
+	 * have completed.
+	 */
+	protected Job splitJob(Collection<Step<?, ?>> partitionSteps, Collection<Step<?, ?>> steps) {
+		Assert.notEmpty(partitionSteps, "At least one partition step must be specified");
+		Assert.isNull(repeatEvery, "--repeat is not supported with partitioned steps");
+		List<Flow> flows = new ArrayList<>();
+		for (Step<?, ?> partitionStep : partitionSteps) {
+			flows.add(new FlowBuilder<SimpleFlow>(partitionStep.getName()).start(step(partitionStep)).build());
+		}
+		log.info("Creating split flow with {} concurrent partitions", flows.size());
+		SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor(jobName + "-partition-");
+		taskExecutor.setConcurrencyLimit(flows.size());
+		Flow split = new FlowBuilder<SimpleFlow>(jobName + "-partitions").split(taskExecutor)
+				.add(flows.toArray(new Flow[0])).build();
+		FlowBuilder<FlowJobBuilder> job = jobBuilder().start(split);
+		for (Step<?, ?> step : steps) {
+			job = job.next(step(step));
+		}
+		return job.end().build();
+	}
+
 	private class RepeatJobExecutionListener implements JobExecutionListener {
 
 		private final SimpleJobBuilder job;
@@ -244,6 +310,9 @@ public abstract class AbstractJobCommand extends AbstractCallableCommand {
 			log.info("Skipping fault-tolerance for step {}", step.getName());
 			return builder.build();
 		}
+		Assert.isTrue(!stepArgs.getPipelineArgs().isEnabled(), "--pipeline cannot be used with skip or retry policies");
+		Assert.isTrue(stepArgs.getProcessorParallelism() <= 1,
+				"--proc-parallelism cannot be used with skip or retry policies");
 		log.info("Adding fault-tolerance to step {}", step.getName());
 		FaultTolerantStepBuilder<I, O> ftStep = builder.faultTolerant();
 		step.getSkip().forEach(ftStep::skip);
@@ -281,27 +350,70 @@ public abstract class AbstractJobCommand extends AbstractCallableCommand {
 
 	@SuppressWarnings("removal")
 	private <I, O> SimpleStepBuilder<I, O> simpleStep(Step<I, O> step) {
-		String stepName = jobName + "-" + step.getName();
-		if (stepName.length() > 80) {
-			stepName = stepName.substring(0, 69) + "…" + stepName.substring(stepName.length() - 10);
-		}
+		String stepName = stepName(step);
 		if (step.getReader() instanceof ItemStreamSupport) {
 			((ItemStreamSupport) step.getReader()).setName(stepName + "-reader");
 		}
-		log.info("Creating step {} with chunk size {}", stepName, stepArgs.getChunkSize());
-		SimpleStepBuilder<I, O> builder = new StepBuilder(stepName, jobRepository).<I, O>chunk(stepArgs.getChunkSize(),
-				transactionManager);
+		AdaptiveChunkSizePolicy adaptiveChunkSizePolicy = adaptiveChunkSizePolicy(step);
+		SimpleStepBuilder<I, O> builder;
+		if (adaptiveChunkSizePolicy == null) {
+			log.info("Creating step {} with chunk size {}", stepName, stepArgs.getChunkSize());
+			builder = new StepBuilder(stepName, jobRepository).<I, O>chunk(stepArgs.getChunkSize(), transactionManager);
+		} else {
+			log.info("Creating step {} with adaptive chunk size {}", stepName, stepArgs.getAdaptiveBatchArgs());
+			builder = new StepBuilder(stepName, jobRepository).<I, O>chunk(adaptiveChunkSizePolicy, transactionManager);
+		}
 		builder.reader(reader(step));
-		builder.writer(writer(step));
-		builder.processor(step.getProcessor());
+		// write listeners of writers that process items themselves, null if items
+		// are processed by the step
+		Consumer<ItemWriteListener<? super O>> writeListeners = null;
+		if (stepArgs.getPipelineArgs().isEnabled()) {
+			Assert.isTrue(stepArgs.getProcessorParallelism() <= 1,
+					"--proc-parallelism cannot be used with --pipeline");
+			PipelineItemWriter<I, O> pipelineWriter = pipelineWriter(step);
+			builder.writer(processingWriter(pipelineWriter));
+			writeListeners = pipelineWriter::addWriteListener;
+		} else if (stepArgs.getProcessorParallelism() > 1 && step.getProcessor() != null) {
+			ParallelProcessingItemWriter<I, O> parallelWriter = parallelProcessingWriter(step);
+			builder.writer(processingWriter(parallelWriter));
+			writeListeners = parallelWriter::addWriteListener;
+		} else {
+			builder.writer(writer(step));
+			builder.processor(step.getProcessor());
+		}
 		builder.taskExecutor(taskExecutor());
 		builder.throttleLimit(stepArgs.getThreads());
+		builder.listener(new ThroughputStepExecutionListener(executorDescription()));
 		step.getExecutionListeners().forEach(builder::listener);
-		step.getWriteListeners().forEach(builder::listener);
+		if (writeListeners == null) {
+			step.getWriteListeners().forEach(builder::listener);
+		} else {
+			step.getWriteListeners().forEach(writeListeners);
+		}
+		if (adaptiveChunkSizePolicy != null) {
+			if (writeListeners == null) {
+				builder.listener((ItemWriteListener<Object>) adaptiveChunkSizePolicy);
+			} else {
+				writeListeners.accept(adaptiveChunkSizePolicy);
+			}
+		}
+		if (metrics != null) {
+			MetricsStepListener metricsListener = new MetricsStepListener(metrics, jobName);
+			builder.listener((StepExecutionListener) metricsListener);
+			if (writeListeners == null) {
+				builder.listener((ItemWriteListener<Object>) metricsListener);
+			} else {
+				writeListeners.accept(metricsListener);
+			}
+		}
 		if (shouldShowProgress()) {
 			ProgressStepExecutionListener<I, O> listener = new ProgressStepExecutionListener<>(step);
 			builder.listener((StepExecutionListener) listener);
-			builder.listener((ItemWriteListener<?>) listener);
+			if (writeListeners == null) {
+				builder.listener((ItemWriteListener<?>) listener);
+			} else {
+				writeListeners.accept(listener);
+			}
 		}
 		if (step.isLive()) {
 			log.info("Creating flushing step with flush interval {} and idle timeout {}", step.getFlushInterval(),
@@ -314,10 +426,75 @@ public abstract class AbstractJobCommand extends AbstractCallableCommand {
 		return builder;
 	}
 
+	/**
+	 * @return name of the Spring Batch step created for the given step, as used in
+	 *         logs and metric labels
+	 */
+	protected String stepName(Step<?, ?> step) {
+		String stepName = jobName + "-" + step.getName();
+		if (stepName.length() > 80) {
+			return stepName.substring(0, 69) + "…" + stepName.substring(stepName.length() - 10);
+		}
+		return stepName;
+	}
+
+	private AdaptiveChunkSizePolicy adaptiveChunkSizePolicy(Step<?, ?> step) {
+		AdaptiveBatchArgs args = stepArgs.getAdaptiveBatchArgs();
+		if (!args.isEnabled()) {
+			return null;
+		}
+		if (step.isLive()) {
+			log.warn("Adaptive batch size is not supported by live step {}", step.getName());
+			return null;
+		}
+		return new AdaptiveChunkSizePolicy(stepArgs.getChunkSize(), args.getMinChunkSize(), args.getMaxChunkSize(),
+				args.getTargetLatency().getValue());
+	}
+
+	private <I, O> PipelineItemWriter<I, O> pipelineWriter(Step<I, O> step) {
+		PipelineArgs args = stepArgs.getPipelineArgs();
+		log.info("Creating pipeline writer for step {} with {}", step.getName(), args);
+		PipelineItemWriter<I, O> writer = new PipelineItemWriter<>(step.getProcessor(), writer(step));
+		writer.setProcessorThreads(args.getProcessorThreads());
+		writer.setWriterThreads(args.getWriterThreads());
+		writer.setQueueCapacity(args.getQueueCapacity());
+		return writer;
+	}
+
+	private <I, O> ParallelProcessingItemWriter<I, O> parallelProcessingWriter(Step<I, O> step) {
+		log.info("Creating parallel processing writer for step {} with parallelism {}", step.getName(),
+				stepArgs.getProcessorParallelism());
+		ParallelProcessingItemWriter<I, O> writer = new ParallelProcessingItemWriter<>(step.getProcessor(),
+				writer(step));
+		writer.setParallelism(stepArgs.getProcessorParallelism());
+		return writer;
+	}
+
+	/**
+	 * Items are processed by the pipeline or parallel processing writer, not by
+	 * the chunk processor which passes them through as-is, same as Spring Batch
+	 * does for steps without a processor.
+	 */
+	@SuppressWarnings("unchecked")
+	private <I, O> ItemWriter<O> processingWriter(ItemWriter<I> writer) {
+		return (ItemWriter<O>) writer;
+	}
+
 	private TaskExecutor taskExecutor() {
 		if (stepArgs.getThreads() == 1) {
 			return new SyncTaskExecutor();
 		}
+		if (stepArgs.isVirtualThreads()) {
+			log.info("Creating virtual-thread task executor with concurrency limit {}", stepArgs.getThreads());
+			SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor(jobName + "-");
+			try {
+				taskExecutor.setVirtualThreads(true);
+			} catch (UnsupportedOperationException e) {
+				throw new RiotException("--virtual-threads requires Java 21 or later", e);
+			}
+			taskExecutor.setConcurrencyLimit(stepArgs.getThreads());
+			return taskExecutor;
+		}
 		log.info("Creating thread-pool task executor of size {}", stepArgs.getThreads());
 		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
 		taskExecutor.setMaxPoolSize(stepArgs.getThreads());
@@ -326,6 +503,16 @@ public abstract class AbstractJobCommand extends AbstractCallableCommand {
 		return taskExecutor;
 	}
 
+	private String executorDescription() {
+		if (stepArgs.getThreads() == 1) {
+			return "1 thread";
+		}
+		if (stepArgs.isVirtualThreads()) {
+			return String.format("virtual threads (max %d concurrent)", stepArgs.getThreads());
+		}
+		return String.format("thread pool of size %d", stepArgs.getThreads());
+	}
+
 	private <I, O> ItemReader<? extends I> reader(Step<I, O> step) {
 		if (stepArgs.getThreads() == 1 || step.getReader() instanceof PollableItemReader) {
 			return step.getReader();
@@ -349,9 +536,25 @@ public abstract class AbstractJobCommand extends AbstractCallableCommand {
 			log.info("Throttling writer with sleep={}", stepArgs.getSleep());
 			writer = new ThrottledItemWriter<>(writer, stepArgs.getSleep().getValue());
 		}
+		if (rateLimiter != null || byteRateLimiter != null) {
+			writer = rateLimitedWriter(step, writer);
+		}
 		return writer;
 	}
 
+	private <I, O> ItemWriter<O> rateLimitedWriter(Step<I, O> step, ItemWriter<O> writer) {
+		RateLimitedItemWriter<O> rateLimitedWriter = new RateLimitedItemWriter<>(writer);
+		rateLimitedWriter.setRateLimiter(rateLimiter);
+		if (byteRateLimiter != null) {
+			if (step.getItemSizeFunction() == null) {
+				log.warn("Step {} does not support byte rate limiting", step.getName());
+			} else {
+				rateLimitedWriter.setByteRateLimiter(byteRateLimiter, step.getItemSizeFunction());
+			}
+		}
+		return rateLimitedWriter;
+	}
+
 	public String getJobName() {
 		return jobName;
 	}
@@ -368,6 +571,22 @@ public abstract class AbstractJobCommand extends AbstractCallableCommand {
 		this.stepArgs = args;
 	}
 
+	public MetricsArgs getMetricsArgs() {
+		return metricsArgs;
+	}
+
+	public void setMetricsArgs(MetricsArgs metricsArgs) {
+		this.metricsArgs = metricsArgs;
+	}
+
+	/**
+	 * @return registry that commands can publish their own metrics to, or null if
+	 *         metrics are not enabled
+	 */
+	protected JobMetrics getMetrics() {
+		return metrics;
+	}
+
 	public String getJobRepositoryName() {
 		return jobRepositoryName;
 	}
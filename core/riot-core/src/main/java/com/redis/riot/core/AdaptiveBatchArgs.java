@@ -0,0 +1,57 @@
+package com.redis.riot.core;
+
+import lombok.ToString;
+import picocli.CommandLine.Option;
+
+@ToString
+public class AdaptiveBatchArgs {
+
+	public static final int DEFAULT_MIN_CHUNK_SIZE = 10;
+	public static final int DEFAULT_MAX_CHUNK_SIZE = 1000;
+	public static final RiotDuration DEFAULT_TARGET_LATENCY = RiotDuration.ofMillis(50);
+
+	@Option(names = "--adaptive-batch", description = "Grow or shrink the batch size at runtime based on observed batch write latency, starting from --batch.")
+	private boolean enabled;
+
+	@Option(names = "--batch-min", description = "Min batch size with --adaptive-batch (default: ${DEFAULT-VALUE}).", paramLabel = "<size>")
+	private int minChunkSize = DEFAULT_MIN_CHUNK_SIZE;
+
+	@Option(names = "--batch-max", description = "Max batch size with --adaptive-batch (default: ${DEFAULT-VALUE}).", paramLabel = "<size>")
+	private int maxChunkSize = DEFAULT_MAX_CHUNK_SIZE;
+
+	@Option(names = "--batch-latency", description = "Target batch write latency with --adaptive-batch (default: ${DEFAULT-VALUE}).", paramLabel = "<dur>")
+	private RiotDuration targetLatency = DEFAULT_TARGET_LATENCY;
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public int getMinChunkSize() {
+		return minChunkSize;
+	}
+
+	public void setMinChunkSize(int size) {
+		this.minChunkSize = size;
+	}
+
+	public int getMaxChunkSize() {
+		return maxChunkSize;
+	}
+
+	public void setMaxChunkSize(int size) {
+		this.maxChunkSize = size;
+	}
+
+	public RiotDuration getTargetLatency() {
+		return targetLatency;
+	}
+
+	public void setTargetLatency(RiotDuration latency) {
+		this.targetLatency = latency;
+	}
+
+}
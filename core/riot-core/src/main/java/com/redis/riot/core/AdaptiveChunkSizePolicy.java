@@ -0,0 +1,100 @@
+package com.redis.riot.core;
+
+import java.time.Duration;
+
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.policy.CompletionPolicySupport;
+import org.springframework.util.Assert;
+
+/**
+ * Chunk completion policy adapting the chunk size to observed write latency,
+ * AIMD-style: the chunk size grows additively while writes complete under the
+ * target latency and is halved when a write exceeds it, always staying within
+ * the configured bounds.
+ * <p>
+ * Write latencies are measured by this policy acting as a write listener, so it
+ * must be registered as such on the step. The chunk size is adjusted by writing
+ * threads and read by the threads completing chunks.
+ */
+public class AdaptiveChunkSizePolicy extends CompletionPolicySupport implements ItemWriteListener<Object> {
+
+	public static final int DEFAULT_INCREMENT_STEPS = 50;
+
+	private final ThreadLocal<Long> writeStartTime = new ThreadLocal<>();
+	private final int minChunkSize;
+	private final int maxChunkSize;
+	private final Duration targetLatency;
+	private final int increment;
+
+	private volatile int chunkSize;
+
+	public AdaptiveChunkSizePolicy(int chunkSize, int minChunkSize, int maxChunkSize, Duration targetLatency) {
+		Assert.isTrue(minChunkSize > 0, "Min chunk size must be positive");
+		Assert.isTrue(minChunkSize <= maxChunkSize, "Min chunk size must not be greater than max chunk size");
+		Assert.notNull(targetLatency, "Target latency must not be null");
+		this.minChunkSize = minChunkSize;
+		this.maxChunkSize = maxChunkSize;
+		this.targetLatency = targetLatency;
+		this.increment = Math.max(1, (maxChunkSize - minChunkSize) / DEFAULT_INCREMENT_STEPS);
+		setChunkSize(Math.min(maxChunkSize, Math.max(minChunkSize, chunkSize)));
+	}
+
+	@Override
+	public boolean isComplete(RepeatContext context) {
+		return context.getStartedCount() >= chunkSize;
+	}
+
+	@Override
+	public void beforeWrite(Chunk<? extends Object> items) {
+		writeStartTime.set(System.nanoTime());
+	}
+
+	@Override
+	public void afterWrite(Chunk<? extends Object> items) {
+		Long startTime = writeStartTime.get();
+		if (startTime != null) {
+			writeStartTime.remove();
+			latency(Duration.ofNanos(System.nanoTime() - startTime));
+		}
+	}
+
+	@Override
+	public void onWriteError(Exception exception, Chunk<? extends Object> items) {
+		writeStartTime.remove();
+	}
+
+	/**
+	 * Adjusts the chunk size to the given write latency.
+	 */
+	public synchronized void latency(Duration latency) {
+		int chunkSize = getChunkSize();
+		if (latency.compareTo(targetLatency) > 0) {
+			setChunkSize(Math.max(minChunkSize, chunkSize / 2));
+		} else {
+			setChunkSize(Math.min(maxChunkSize, chunkSize + increment));
+		}
+	}
+
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	public void setChunkSize(int chunkSize) {
+		this.chunkSize = chunkSize;
+	}
+
+	public int getMinChunkSize() {
+		return minChunkSize;
+	}
+
+	public int getMaxChunkSize() {
+		return maxChunkSize;
+	}
+
+	public Duration getTargetLatency() {
+		return targetLatency;
+	}
+
+}
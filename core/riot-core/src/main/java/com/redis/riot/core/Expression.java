@@ -4,6 +4,8 @@ import java.util.function.Predicate;
 
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.common.TemplateParserContext;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 
 public class Expression {
@@ -41,6 +43,29 @@ public class Expression {
 		return spelExpression.getValue(context, rootObject, String.class);
 	}
 
+	/**
+	 * Compiled expressions are turned into bytecode after their first
+	 * evaluations, which makes later evaluations much cheaper. Expressions or
+	 * parts of expressions that cannot be compiled, e.g. because operand types are
+	 * not known, keep being interpreted. In {@link SpelCompilerMode#IMMEDIATE}
+	 * mode a compiled expression that fails, e.g. because a field has a different
+	 * type than in previous items, throws an exception, while in
+	 * {@link SpelCompilerMode#MIXED} mode it falls back to interpretation.
+	 * 
+	 * @return this expression parsed with the given compiler mode, or this
+	 *         expression if the mode is {@link SpelCompilerMode#OFF}
+	 */
+	public Expression withCompilerMode(SpelCompilerMode mode) {
+		if (mode == SpelCompilerMode.OFF) {
+			return this;
+		}
+		return new Expression(parser(mode).parseExpression(toString()));
+	}
+
+	protected static SpelExpressionParser parser(SpelCompilerMode mode) {
+		return new SpelExpressionParser(new SpelParserConfiguration(mode, Expression.class.getClassLoader()));
+	}
+
 	public static Expression parse(String expression) {
 		return new Expression(PARSER.parseExpression(expression));
 	}
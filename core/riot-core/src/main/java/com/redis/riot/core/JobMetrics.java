@@ -0,0 +1,109 @@
+package com.redis.riot.core;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Registry of job metrics rendered in the Prometheus text exposition format.
+ * Steps and commands register counters, gauges and latency histograms, each
+ * identified by a metric name and a set of labels.
+ */
+public class JobMetrics {
+
+	private static final String TYPE_COUNTER = "counter";
+	private static final String TYPE_GAUGE = "gauge";
+	private static final String TYPE_HISTOGRAM = "histogram";
+
+	private final Map<String, Family> families = new LinkedHashMap<>();
+
+	public synchronized void counter(String name, String help, Map<String, String> labels, DoubleSupplier value) {
+		family(name, help, TYPE_COUNTER).samples.put(labels, value);
+	}
+
+	public synchronized void gauge(String name, String help, Map<String, String> labels, DoubleSupplier value) {
+		family(name, help, TYPE_GAUGE).samples.put(labels, value);
+	}
+
+	public synchronized LatencyHistogram histogram(String name, String help, Map<String, String> labels) {
+		Family family = family(name, help, TYPE_HISTOGRAM);
+		return family.histograms.computeIfAbsent(labels, l -> new LatencyHistogram());
+	}
+
+	private synchronized Family family(String name, String help, String type) {
+		return families.computeIfAbsent(name, n -> new Family(n, help, type));
+	}
+
+	/**
+	 * @return all metrics in the Prometheus text exposition format
+	 */
+	public synchronized String scrape() {
+		StringBuilder builder = new StringBuilder();
+		for (Family family : families.values()) {
+			builder.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+			builder.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+			family.samples.forEach((labels, value) -> sample(builder, family.name, labels, value.getAsDouble()));
+			family.histograms.forEach((labels, histogram) -> histogram(builder, family.name, labels, histogram));
+		}
+		return builder.toString();
+	}
+
+	private void histogram(StringBuilder builder, String name, Map<String, String> labels,
+			LatencyHistogram histogram) {
+		double[] buckets = histogram.getBuckets();
+		long[] counts = histogram.cumulativeCounts();
+		for (int index = 0; index < buckets.length; index++) {
+			sample(builder, name + "_bucket", bucketLabels(labels, String.valueOf(buckets[index])), counts[index]);
+		}
+		long count = histogram.getCount();
+		sample(builder, name + "_bucket", bucketLabels(labels, "+Inf"), count);
+		sample(builder, name + "_sum", labels, histogram.getSum());
+		sample(builder, name + "_count", labels, count);
+	}
+
+	private Map<String, String> bucketLabels(Map<String, String> labels, String bucket) {
+		Map<String, String> bucketLabels = new LinkedHashMap<>(labels);
+		bucketLabels.put("le", bucket);
+		return bucketLabels;
+	}
+
+	private void sample(StringBuilder builder, String name, Map<String, String> labels, double value) {
+		builder.append(name);
+		if (!labels.isEmpty()) {
+			List<String> pairs = new ArrayList<>();
+			labels.forEach((k, v) -> pairs.add(k + "=\"" + escape(v) + "\""));
+			builder.append('{').append(String.join(",", pairs)).append('}');
+		}
+		builder.append(' ').append(format(value)).append('\n');
+	}
+
+	private static String format(double value) {
+		if (value == Math.rint(value) && !Double.isInfinite(value)) {
+			return String.valueOf((long) value);
+		}
+		return String.valueOf(value);
+	}
+
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+
+	private static class Family {
+
+		private final String name;
+		private final String help;
+		private final String type;
+		private final Map<Map<String, String>, DoubleSupplier> samples = new LinkedHashMap<>();
+		private final Map<Map<String, String>, LatencyHistogram> histograms = new LinkedHashMap<>();
+
+		public Family(String name, String help, String type) {
+			this.name = name;
+			this.help = help;
+			this.type = type;
+		}
+
+	}
+
+}
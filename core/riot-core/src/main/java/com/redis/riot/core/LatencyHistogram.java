@@ -0,0 +1,79 @@
+package com.redis.riot.core;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe latency histogram with fixed cumulative buckets, exported as a
+ * Prometheus histogram.
+ */
+public class LatencyHistogram {
+
+	public static final double[] DEFAULT_BUCKETS = { .001, .0025, .005, .01, .025, .05, .1, .25, .5, 1, 2.5, 5, 10 };
+
+	private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private final double[] buckets;
+	private final LongAdder[] counts;
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sumNanos = new LongAdder();
+
+	public LatencyHistogram() {
+		this(DEFAULT_BUCKETS);
+	}
+
+	/**
+	 * @param buckets upper bounds in seconds, in increasing order
+	 */
+	public LatencyHistogram(double... buckets) {
+		this.buckets = buckets.clone();
+		this.counts = new LongAdder[buckets.length];
+		for (int index = 0; index < counts.length; index++) {
+			counts[index] = new LongAdder();
+		}
+	}
+
+	public void record(Duration latency) {
+		recordNanos(latency.toNanos());
+	}
+
+	public void recordNanos(long nanos) {
+		double seconds = nanos / NANOS_PER_SECOND;
+		for (int index = 0; index < buckets.length; index++) {
+			if (seconds <= buckets[index]) {
+				counts[index].increment();
+				break;
+			}
+		}
+		count.increment();
+		sumNanos.add(nanos);
+	}
+
+	public double[] getBuckets() {
+		return buckets.clone();
+	}
+
+	/**
+	 * @return cumulative counts for each bucket, i.e. number of latencies less
+	 *         than or equal to the bucket upper bound
+	 */
+	public long[] cumulativeCounts() {
+		long[] cumulative = new long[buckets.length];
+		long total = 0;
+		for (int index = 0; index < buckets.length; index++) {
+			total += counts[index].sum();
+			cumulative[index] = total;
+		}
+		return cumulative;
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public double getSum() {
+		return sumNanos.sum() / NANOS_PER_SECOND;
+	}
+
+}
@@ -0,0 +1,50 @@
+package com.redis.riot.core;
+
+import java.nio.file.Path;
+
+import lombok.ToString;
+import picocli.CommandLine.Option;
+
+@ToString
+public class MetricsArgs {
+
+	public static final RiotDuration DEFAULT_INTERVAL = RiotDuration.ofSeconds(10);
+
+	@Option(names = "--metrics-port", description = "Serve job metrics in Prometheus text format on this port at /metrics (default: disabled).", paramLabel = "<port>")
+	private int port;
+
+	@Option(names = "--metrics-file", description = "Periodically dump job metrics in Prometheus text format to this file (default: disabled).", paramLabel = "<file>")
+	private Path file;
+
+	@Option(names = "--metrics-interval", description = "Interval between metrics file dumps (default: ${DEFAULT-VALUE}).", paramLabel = "<dur>")
+	private RiotDuration interval = DEFAULT_INTERVAL;
+
+	public boolean isEnabled() {
+		return port > 0 || file != null;
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	public void setPort(int port) {
+		this.port = port;
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	public void setFile(Path file) {
+		this.file = file;
+	}
+
+	public RiotDuration getInterval() {
+		return interval;
+	}
+
+	public void setInterval(RiotDuration interval) {
+		this.interval = interval;
+	}
+
+}
@@ -0,0 +1,134 @@
+package com.redis.riot.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Exposes a {@link JobMetrics} registry in the Prometheus text format, either
+ * over HTTP at {@code /metrics} using the JDK built-in server, or by
+ * periodically dumping it to a file (e.g. for the node exporter textfile
+ * collector), or both.
+ */
+public class MetricsExporter implements AutoCloseable {
+
+	public static final String PATH = "/metrics";
+	public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final JobMetrics metrics;
+
+	private int port;
+	private Path file;
+	private Duration interval = MetricsArgs.DEFAULT_INTERVAL.getValue();
+
+	private HttpServer server;
+	private ScheduledExecutorService scheduler;
+
+	public MetricsExporter(JobMetrics metrics) {
+		Assert.notNull(metrics, "Metrics must not be null");
+		this.metrics = metrics;
+	}
+
+	public synchronized void start() throws IOException {
+		if (port > 0 && server == null) {
+			server = HttpServer.create(new InetSocketAddress(port), 0);
+			server.createContext(PATH, this::handle);
+			server.start();
+			log.info("Serving metrics on port {} at {}", server.getAddress().getPort(), PATH);
+		}
+		if (file != null && scheduler == null) {
+			scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "metrics-exporter");
+				thread.setDaemon(true);
+				return thread;
+			});
+			long millis = interval.toMillis();
+			scheduler.scheduleAtFixedRate(this::dump, millis, millis, TimeUnit.MILLISECONDS);
+			log.info("Dumping metrics to {} every {}", file, interval);
+		}
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			if (!"GET".equals(exchange.getRequestMethod())) {
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+			byte[] body = metrics.scrape().getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream outputStream = exchange.getResponseBody()) {
+				outputStream.write(body);
+			}
+		}
+	}
+
+	/**
+	 * Writes metrics to a temporary file then moves it over the target file so
+	 * readers never see a partial dump.
+	 */
+	private void dump() {
+		try {
+			Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+			Files.writeString(tempFile, metrics.scrape(), StandardCharsets.UTF_8);
+			Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (Exception e) {
+			log.warn("Could not write metrics to {}", file, e);
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		if (server != null) {
+			server.stop(0);
+			server = null;
+		}
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			scheduler = null;
+			dump();
+		}
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	public void setPort(int port) {
+		this.port = port;
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	public void setFile(Path file) {
+		this.file = file;
+	}
+
+	public Duration getInterval() {
+		return interval;
+	}
+
+	public void setInterval(Duration interval) {
+		this.interval = interval;
+	}
+
+}
@@ -0,0 +1,103 @@
+package com.redis.riot.core;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.Chunk;
+
+/**
+ * Listener publishing step counters, throughput and chunk write latencies to a
+ * {@link JobMetrics} registry. Metrics are labelled with the job and step
+ * names.
+ * <p>
+ * Write latencies are measured by this listener acting as a write listener, so
+ * it must be registered as such on the step.
+ */
+public class MetricsStepListener implements StepExecutionListener, ItemWriteListener<Object> {
+
+	public static final String LABEL_JOB = "job";
+	public static final String LABEL_STEP = "step";
+
+	private final ThreadLocal<Long> writeStartTime = new ThreadLocal<>();
+	private final JobMetrics metrics;
+	private final String jobName;
+
+	private LatencyHistogram writeLatency;
+
+	public MetricsStepListener(JobMetrics metrics, String jobName) {
+		this.metrics = metrics;
+		this.jobName = jobName;
+	}
+
+	@Override
+	public void beforeStep(StepExecution stepExecution) {
+		Map<String, String> labels = labels(jobName, stepExecution.getStepName());
+		metrics.counter("riot_step_read_total", "Items read by the step.", labels, stepExecution::getReadCount);
+		metrics.counter("riot_step_write_total", "Items written by the step.", labels, stepExecution::getWriteCount);
+		metrics.counter("riot_step_skip_total", "Items skipped by the step.", labels, stepExecution::getSkipCount);
+		metrics.counter("riot_step_filter_total", "Items filtered out by the step processor.", labels,
+				stepExecution::getFilterCount);
+		metrics.counter("riot_step_commit_total", "Chunks committed by the step.", labels,
+				stepExecution::getCommitCount);
+		metrics.gauge("riot_step_items_per_second", "Average write throughput of the step since it started.",
+				labels, () -> throughput(stepExecution));
+		metrics.gauge("riot_step_running", "1 while the step is running, 0 otherwise.", labels,
+				() -> stepExecution.getStatus() == BatchStatus.STARTED ? 1 : 0);
+		writeLatency = metrics.histogram("riot_step_write_latency_seconds", "Chunk write latency in seconds.",
+				labels);
+	}
+
+	@Override
+	public ExitStatus afterStep(StepExecution stepExecution) {
+		return stepExecution.getExitStatus();
+	}
+
+	@Override
+	public void beforeWrite(Chunk<? extends Object> items) {
+		writeStartTime.set(System.nanoTime());
+	}
+
+	@Override
+	public void afterWrite(Chunk<? extends Object> items) {
+		Long startTime = writeStartTime.get();
+		if (startTime != null) {
+			writeStartTime.remove();
+			if (writeLatency != null) {
+				writeLatency.recordNanos(System.nanoTime() - startTime);
+			}
+		}
+	}
+
+	@Override
+	public void onWriteError(Exception exception, Chunk<? extends Object> items) {
+		writeStartTime.remove();
+	}
+
+	private static double throughput(StepExecution stepExecution) {
+		LocalDateTime startTime = stepExecution.getStartTime();
+		if (startTime == null) {
+			return 0;
+		}
+		LocalDateTime endTime = stepExecution.getEndTime() == null ? LocalDateTime.now() : stepExecution.getEndTime();
+		long millis = Duration.between(startTime, endTime).toMillis();
+		if (millis <= 0) {
+			return 0;
+		}
+		return stepExecution.getWriteCount() * 1000.0 / millis;
+	}
+
+	public static Map<String, String> labels(String jobName, String stepName) {
+		Map<String, String> labels = new LinkedHashMap<>();
+		labels.put(LABEL_JOB, jobName);
+		labels.put(LABEL_STEP, stepName);
+		return labels;
+	}
+
+}
@@ -0,0 +1,183 @@
+package com.redis.riot.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Item writer processing the items of each chunk in parallel on a fork-join
+ * pool before writing them, so that CPU-bound processors can use all cores
+ * even with a single step thread. The processed chunk keeps the order of the
+ * items handed over by the step, minus items filtered out by the processor.
+ * <p>
+ * The processor must be thread-safe. Processing and writing happen in the
+ * calling thread's {@link #write(Chunk)}, so errors fail the chunk as usual.
+ * Write listeners are notified with processed chunks. Since the step hands over
+ * unprocessed chunks, it counts items filtered out by the processor as written.
+ */
+public class ParallelProcessingItemWriter<I, O> extends ItemStreamSupport implements ItemStreamWriter<I> {
+
+	public static final int DEFAULT_PARALLELISM = Runtime.getRuntime().availableProcessors();
+	public static final int DEFAULT_MIN_ITEMS_PER_TASK = 1;
+
+	private final ItemProcessor<? super I, ? extends O> processor;
+	private final ItemWriter<? super O> writer;
+	private final List<ItemWriteListener<? super O>> writeListeners = new ArrayList<>();
+
+	private int parallelism = DEFAULT_PARALLELISM;
+	private int minItemsPerTask = DEFAULT_MIN_ITEMS_PER_TASK;
+
+	private ForkJoinPool pool;
+
+	public ParallelProcessingItemWriter(ItemProcessor<? super I, ? extends O> processor, ItemWriter<? super O> writer) {
+		setName(ClassUtils.getShortName(getClass()));
+		Assert.notNull(processor, "Processor must not be null");
+		Assert.notNull(writer, "Writer must not be null");
+		this.processor = processor;
+		this.writer = writer;
+	}
+
+	public void addWriteListener(ItemWriteListener<? super O> listener) {
+		writeListeners.add(listener);
+	}
+
+	@Override
+	public synchronized void open(ExecutionContext executionContext) throws ItemStreamException {
+		if (processor instanceof ItemStream) {
+			((ItemStream) processor).open(executionContext);
+		}
+		if (writer instanceof ItemStream) {
+			((ItemStream) writer).open(executionContext);
+		}
+		if (pool == null) {
+			pool = new ForkJoinPool(parallelism);
+		}
+	}
+
+	@Override
+	public void update(ExecutionContext executionContext) throws ItemStreamException {
+		if (processor instanceof ItemStream) {
+			((ItemStream) processor).update(executionContext);
+		}
+		if (writer instanceof ItemStream) {
+			((ItemStream) writer).update(executionContext);
+		}
+	}
+
+	@Override
+	public synchronized void close() throws ItemStreamException {
+		if (pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+		if (writer instanceof ItemStream) {
+			((ItemStream) writer).close();
+		}
+		if (processor instanceof ItemStream) {
+			((ItemStream) processor).close();
+		}
+	}
+
+	@Override
+	public void write(Chunk<? extends I> chunk) throws Exception {
+		Chunk<O> processedChunk = process(chunk.getItems());
+		try {
+			writeListeners.forEach(l -> l.beforeWrite(processedChunk));
+			writer.write(processedChunk);
+			writeListeners.forEach(l -> l.afterWrite(processedChunk));
+		} catch (Exception e) {
+			writeListeners.forEach(l -> l.onWriteError(e, processedChunk));
+			throw e;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private Chunk<O> process(List<? extends I> items) throws Exception {
+		Object[] results = new Object[items.size()];
+		AtomicReference<Exception> failure = new AtomicReference<>();
+		pool.invoke(new ProcessTask(items, results, failure, 0, items.size()));
+		if (failure.get() != null) {
+			throw failure.get();
+		}
+		Chunk<O> processedChunk = new Chunk<>();
+		for (Object result : results) {
+			if (result != null) {
+				processedChunk.add((O) result);
+			}
+		}
+		return processedChunk;
+	}
+
+	private class ProcessTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final transient List<? extends I> items;
+		private final transient Object[] results;
+		private final transient AtomicReference<Exception> failure;
+		private final int from;
+		private final int to;
+
+		private ProcessTask(List<? extends I> items, Object[] results, AtomicReference<Exception> failure, int from,
+				int to) {
+			this.items = items;
+			this.results = results;
+			this.failure = failure;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > minItemsPerTask) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new ProcessTask(items, results, failure, from, middle),
+						new ProcessTask(items, results, failure, middle, to));
+				return;
+			}
+			for (int index = from; index < to && failure.get() == null; index++) {
+				try {
+					results[index] = processor.process(items.get(index));
+				} catch (Exception e) {
+					failure.compareAndSet(null, e);
+				}
+			}
+		}
+
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	public int getMinItemsPerTask() {
+		return minItemsPerTask;
+	}
+
+	/**
+	 * @param count number of items below which a range of items is processed in a
+	 *              single task instead of being split further
+	 */
+	public void setMinItemsPerTask(int count) {
+		this.minItemsPerTask = count;
+	}
+
+}
@@ -0,0 +1,57 @@
+package com.redis.riot.core;
+
+import lombok.ToString;
+import picocli.CommandLine.Option;
+
+@ToString
+public class PipelineArgs {
+
+	public static final int DEFAULT_PROCESSOR_THREADS = Runtime.getRuntime().availableProcessors();
+	public static final int DEFAULT_WRITER_THREADS = 1;
+	public static final int DEFAULT_QUEUE_CAPACITY = 16;
+
+	@Option(names = "--pipeline", description = "Run processing and writing as separate stages connected by bounded queues instead of in the thread that read the batch. Batches are counted as written and committed once queued, so write counts and reader state run ahead of actual writes. Items filtered out by processors are counted as written, not filtered.")
+	private boolean enabled;
+
+	@Option(names = "--proc-threads", description = "Number of threads processing batches in pipeline mode (default: ${DEFAULT-VALUE}).", paramLabel = "<int>")
+	private int processorThreads = DEFAULT_PROCESSOR_THREADS;
+
+	@Option(names = "--write-threads", description = "Number of threads writing batches in pipeline mode (default: ${DEFAULT-VALUE}).", paramLabel = "<int>")
+	private int writerThreads = DEFAULT_WRITER_THREADS;
+
+	@Option(names = "--pipeline-queue", description = "Max number of batches waiting in each pipeline stage queue (default: ${DEFAULT-VALUE}). When a queue is full the previous stage waits for space to become available.", paramLabel = "<int>")
+	private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public int getProcessorThreads() {
+		return processorThreads;
+	}
+
+	public void setProcessorThreads(int threads) {
+		this.processorThreads = threads;
+	}
+
+	public int getWriterThreads() {
+		return writerThreads;
+	}
+
+	public void setWriterThreads(int threads) {
+		this.writerThreads = threads;
+	}
+
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	public void setQueueCapacity(int capacity) {
+		this.queueCapacity = capacity;
+	}
+
+}
@@ -0,0 +1,288 @@
+package com.redis.riot.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Item writer decoupling the processing and writing of items from reading:
+ * chunks handed over by the step are queued, processed by a pool of processor
+ * threads and then written by a pool of writer threads. Stages are connected by
+ * bounded queues so that a slow stage applies backpressure to the previous one,
+ * all the way back to the step reader.
+ * <p>
+ * Write listeners are notified once a chunk has actually been written by the
+ * writer stage. This writer must also be registered as a step listener so that
+ * in-flight chunks are drained before the step completes: any processing or
+ * writing error then fails the step.
+ * <p>
+ * The step considers a chunk written, and commits it, as soon as it is queued:
+ * step write counts and reader state run ahead of the items actually written.
+ */
+public class PipelineItemWriter<I, O> extends ItemStreamSupport implements ItemStreamWriter<I>, StepExecutionListener {
+
+	private final ItemProcessor<? super I, ? extends O> processor;
+	private final ItemWriter<? super O> writer;
+	private final List<ItemWriteListener<? super O>> writeListeners = new ArrayList<>();
+	private final AtomicReference<Throwable> failure = new AtomicReference<>();
+	private final Object lock = new Object();
+
+	private int processorThreads = PipelineArgs.DEFAULT_PROCESSOR_THREADS;
+	private int writerThreads = PipelineArgs.DEFAULT_WRITER_THREADS;
+	private int queueCapacity = PipelineArgs.DEFAULT_QUEUE_CAPACITY;
+
+	private BlockingQueue<Chunk<I>> processQueue;
+	private BlockingQueue<Chunk<O>> writeQueue;
+	private ExecutorService executor;
+	private int inFlight;
+
+	public PipelineItemWriter(ItemProcessor<? super I, ? extends O> processor, ItemWriter<? super O> writer) {
+		setName(ClassUtils.getShortName(getClass()));
+		Assert.notNull(writer, "Writer must not be null");
+		this.processor = processor;
+		this.writer = writer;
+	}
+
+	public void addWriteListener(ItemWriteListener<? super O> listener) {
+		writeListeners.add(listener);
+	}
+
+	@Override
+	public synchronized void open(ExecutionContext executionContext) throws ItemStreamException {
+		if (processor instanceof ItemStream) {
+			((ItemStream) processor).open(executionContext);
+		}
+		if (writer instanceof ItemStream) {
+			((ItemStream) writer).open(executionContext);
+		}
+		if (executor == null) {
+			failure.set(null);
+			processQueue = new ArrayBlockingQueue<>(queueCapacity);
+			writeQueue = new ArrayBlockingQueue<>(queueCapacity);
+			executor = Executors.newFixedThreadPool(processorThreads + writerThreads,
+					new CustomizableThreadFactory(getName() + "-"));
+			for (int index = 0; index < processorThreads; index++) {
+				executor.execute(this::processLoop);
+			}
+			for (int index = 0; index < writerThreads; index++) {
+				executor.execute(this::writeLoop);
+			}
+		}
+	}
+
+	@Override
+	public void update(ExecutionContext executionContext) throws ItemStreamException {
+		if (processor instanceof ItemStream) {
+			((ItemStream) processor).update(executionContext);
+		}
+		if (writer instanceof ItemStream) {
+			((ItemStream) writer).update(executionContext);
+		}
+	}
+
+	@Override
+	public synchronized void close() throws ItemStreamException {
+		if (executor != null) {
+			drain();
+			executor.shutdownNow();
+			try {
+				executor.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			executor = null;
+		}
+		if (writer instanceof ItemStream) {
+			((ItemStream) writer).close();
+		}
+		if (processor instanceof ItemStream) {
+			((ItemStream) processor).close();
+		}
+	}
+
+	@Override
+	public void write(Chunk<? extends I> chunk) throws Exception {
+		checkFailure();
+		if (chunk.isEmpty()) {
+			return;
+		}
+		synchronized (lock) {
+			inFlight++;
+		}
+		try {
+			processQueue.put(new Chunk<>(new ArrayList<>(chunk.getItems())));
+		} catch (InterruptedException e) {
+			done();
+			throw e;
+		}
+	}
+
+	@Override
+	public ExitStatus afterStep(StepExecution stepExecution) {
+		drain();
+		Throwable throwable = failure.get();
+		if (throwable == null) {
+			return stepExecution.getExitStatus();
+		}
+		stepExecution.addFailureException(throwable);
+		stepExecution.upgradeStatus(BatchStatus.FAILED);
+		return ExitStatus.FAILED.addExitDescription(throwable);
+	}
+
+	private void checkFailure() {
+		Throwable throwable = failure.get();
+		if (throwable != null) {
+			throw new RiotException("Pipeline stage failed", throwable);
+		}
+	}
+
+	/**
+	 * Stage loops record any throwable, including errors, and keep consuming
+	 * their queue so that the previous stage never blocks on a dead stage and
+	 * every chunk is accounted for by {@link #done()}.
+	 */
+	private void processLoop() {
+		while (!Thread.currentThread().isInterrupted()) {
+			Chunk<I> chunk;
+			try {
+				chunk = processQueue.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			Chunk<O> processedChunk = null;
+			try {
+				if (failure.get() == null) {
+					processedChunk = process(chunk);
+				}
+			} catch (Throwable e) {
+				failure.compareAndSet(null, e);
+			}
+			if (processedChunk == null || processedChunk.isEmpty()) {
+				done();
+				continue;
+			}
+			try {
+				writeQueue.put(processedChunk);
+			} catch (InterruptedException e) {
+				done();
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private Chunk<O> process(Chunk<I> chunk) throws Exception {
+		if (processor == null) {
+			return (Chunk<O>) chunk;
+		}
+		Chunk<O> processedChunk = new Chunk<>();
+		for (I item : chunk) {
+			O processedItem = processor.process(item);
+			if (processedItem != null) {
+				processedChunk.add(processedItem);
+			}
+		}
+		return processedChunk;
+	}
+
+	private void writeLoop() {
+		while (!Thread.currentThread().isInterrupted()) {
+			Chunk<O> chunk;
+			try {
+				chunk = writeQueue.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			try {
+				if (failure.get() == null) {
+					doWrite(chunk);
+				}
+			} catch (Throwable e) {
+				failure.compareAndSet(null, e);
+			} finally {
+				done();
+			}
+		}
+	}
+
+	private void doWrite(Chunk<O> chunk) throws Exception {
+		try {
+			writeListeners.forEach(l -> l.beforeWrite(chunk));
+			writer.write(chunk);
+			writeListeners.forEach(l -> l.afterWrite(chunk));
+		} catch (Exception e) {
+			writeListeners.forEach(l -> l.onWriteError(e, chunk));
+			throw e;
+		}
+	}
+
+	private void done() {
+		synchronized (lock) {
+			inFlight--;
+			lock.notifyAll();
+		}
+	}
+
+	private void drain() {
+		synchronized (lock) {
+			while (inFlight > 0) {
+				try {
+					lock.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	public int getProcessorThreads() {
+		return processorThreads;
+	}
+
+	public void setProcessorThreads(int threads) {
+		this.processorThreads = threads;
+	}
+
+	public int getWriterThreads() {
+		return writerThreads;
+	}
+
+	public void setWriterThreads(int threads) {
+		this.writerThreads = threads;
+	}
+
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	public void setQueueCapacity(int capacity) {
+		this.queueCapacity = capacity;
+	}
+
+}
@@ -0,0 +1,83 @@
+package com.redis.riot.core;
+
+import org.springframework.util.unit.DataSize;
+
+import lombok.ToString;
+import picocli.CommandLine.Option;
+
+@ToString
+public class RateLimitArgs {
+
+	public static final RiotDuration DEFAULT_BURST = RiotDuration.ofSeconds(1);
+
+	@Option(names = "--rate", description = "Max number of items written per second, shared by all threads (default: no limit).", paramLabel = "<int>")
+	private int rate;
+
+	@Option(names = "--rate-bytes", description = "Max number of bytes written per second, shared by all threads, for example 10MB (default: no limit).", paramLabel = "<size>")
+	private DataSize byteRate;
+
+	@Option(names = "--rate-burst", description = "Max burst above the rate limits, expressed as a duration of full-rate traffic (default: ${DEFAULT-VALUE}).", paramLabel = "<dur>")
+	private RiotDuration burst = DEFAULT_BURST;
+
+	@Option(names = "--rate-latency", description = "Target batch write latency. Rate limits are lowered while write latency is above target and recover once it is back under (default: no adaptation).", paramLabel = "<dur>")
+	private RiotDuration targetLatency;
+
+	public boolean isEnabled() {
+		return rate > 0 || byteRate != null;
+	}
+
+	public RateLimiter rateLimiter() {
+		if (rate > 0) {
+			return rateLimiter(rate);
+		}
+		return null;
+	}
+
+	public RateLimiter byteRateLimiter() {
+		if (byteRate != null && byteRate.toBytes() > 0) {
+			return rateLimiter(byteRate.toBytes());
+		}
+		return null;
+	}
+
+	private RateLimiter rateLimiter(double permitsPerSecond) {
+		RateLimiter limiter = new RateLimiter(permitsPerSecond, burst.getValue());
+		if (targetLatency != null) {
+			limiter.setTargetLatency(targetLatency.getValue());
+		}
+		return limiter;
+	}
+
+	public int getRate() {
+		return rate;
+	}
+
+	public void setRate(int rate) {
+		this.rate = rate;
+	}
+
+	public DataSize getByteRate() {
+		return byteRate;
+	}
+
+	public void setByteRate(DataSize byteRate) {
+		this.byteRate = byteRate;
+	}
+
+	public RiotDuration getBurst() {
+		return burst;
+	}
+
+	public void setBurst(RiotDuration burst) {
+		this.burst = burst;
+	}
+
+	public RiotDuration getTargetLatency() {
+		return targetLatency;
+	}
+
+	public void setTargetLatency(RiotDuration latency) {
+		this.targetLatency = latency;
+	}
+
+}
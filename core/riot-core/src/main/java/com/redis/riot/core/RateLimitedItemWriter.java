@@ -0,0 +1,99 @@
+package com.redis.riot.core;
+
+import java.time.Duration;
+import java.util.function.ToLongFunction;
+
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.util.Assert;
+
+/**
+ * Writer acquiring permits from item and/or byte rate limiters before writing
+ * each chunk, and reporting write latencies back to them for adaptive backoff.
+ */
+public class RateLimitedItemWriter<T> implements ItemStreamWriter<T> {
+
+	private final ItemWriter<T> delegate;
+	private RateLimiter rateLimiter;
+	private RateLimiter byteRateLimiter;
+	private ToLongFunction<? super T> sizeFunction;
+
+	public RateLimitedItemWriter(ItemWriter<T> delegate) {
+		Assert.notNull(delegate, "Delegate must not be null");
+		this.delegate = delegate;
+	}
+
+	@Override
+	public void open(ExecutionContext executionContext) {
+		if (delegate instanceof ItemStream) {
+			((ItemStream) delegate).open(executionContext);
+		}
+	}
+
+	@Override
+	public void update(ExecutionContext executionContext) {
+		if (delegate instanceof ItemStream) {
+			((ItemStream) delegate).update(executionContext);
+		}
+	}
+
+	@Override
+	public void close() {
+		if (delegate instanceof ItemStream) {
+			((ItemStream) delegate).close();
+		}
+	}
+
+	@Override
+	public void write(Chunk<? extends T> items) throws Exception {
+		if (rateLimiter != null) {
+			rateLimiter.acquire(items.size());
+		}
+		if (byteRateLimiter != null) {
+			byteRateLimiter.acquire(size(items));
+		}
+		long start = System.nanoTime();
+		delegate.write(items);
+		Duration latency = Duration.ofNanos(System.nanoTime() - start);
+		if (rateLimiter != null) {
+			rateLimiter.latency(latency);
+		}
+		if (byteRateLimiter != null) {
+			byteRateLimiter.latency(latency);
+		}
+	}
+
+	private long size(Chunk<? extends T> items) {
+		long size = 0;
+		for (T item : items) {
+			size += sizeFunction.applyAsLong(item);
+		}
+		return size;
+	}
+
+	public RateLimiter getRateLimiter() {
+		return rateLimiter;
+	}
+
+	public void setRateLimiter(RateLimiter limiter) {
+		this.rateLimiter = limiter;
+	}
+
+	public RateLimiter getByteRateLimiter() {
+		return byteRateLimiter;
+	}
+
+	/**
+	 * @param limiter      rate limiter for bytes written
+	 * @param sizeFunction function returning the size in bytes of an item
+	 */
+	public void setByteRateLimiter(RateLimiter limiter, ToLongFunction<? super T> sizeFunction) {
+		Assert.notNull(sizeFunction, "Size function must not be null");
+		this.byteRateLimiter = limiter;
+		this.sizeFunction = sizeFunction;
+	}
+
+}
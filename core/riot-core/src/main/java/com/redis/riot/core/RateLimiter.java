@@ -0,0 +1,134 @@
+package com.redis.riot.core;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.springframework.util.Assert;
+
+/**
+ * Token-bucket rate limiter shared by all threads of a job. Permits accumulate
+ * at the current rate up to a burst allowance; callers requesting more permits
+ * than available go into debt and wait until it has been repaid, so that
+ * requests of any size (e.g. the byte size of a batch) are honored while the
+ * long-term rate never exceeds the configured one.
+ * <p>
+ * When a target latency is set the rate adapts to observed latencies: it is cut
+ * multiplicatively whenever a latency exceeds the target and recovers
+ * additively, up to the configured rate, while latencies stay under it.
+ */
+public class RateLimiter {
+
+	public static final double DEFAULT_BACKOFF_FACTOR = .7;
+	public static final double DEFAULT_RECOVERY_FACTOR = .05;
+	public static final double DEFAULT_MIN_RATE_FACTOR = .01;
+
+	private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private final double maxRate;
+	private final double maxPermits;
+	private final LongSupplier nanoClock;
+
+	private Duration targetLatency;
+	private double backoffFactor = DEFAULT_BACKOFF_FACTOR;
+	private double recoveryFactor = DEFAULT_RECOVERY_FACTOR;
+	private double minRateFactor = DEFAULT_MIN_RATE_FACTOR;
+
+	private double rate;
+	private double permits;
+	private long lastRefillNanos;
+
+	/**
+	 * @param permitsPerSecond max rate in permits per second
+	 * @param burst            max burst expressed as a duration of full-rate
+	 *                         permits
+	 */
+	public RateLimiter(double permitsPerSecond, Duration burst) {
+		this(permitsPerSecond, burst, System::nanoTime);
+	}
+
+	RateLimiter(double permitsPerSecond, Duration burst, LongSupplier nanoClock) {
+		Assert.isTrue(permitsPerSecond > 0, "Rate must be positive");
+		Assert.notNull(burst, "Burst must not be null");
+		this.maxRate = permitsPerSecond;
+		this.maxPermits = Math.max(1, permitsPerSecond * burst.toNanos() / NANOS_PER_SECOND);
+		this.nanoClock = nanoClock;
+		this.rate = permitsPerSecond;
+		this.permits = maxPermits;
+		this.lastRefillNanos = nanoClock.getAsLong();
+	}
+
+	/**
+	 * Acquires the given number of permits, waiting until they are available.
+	 */
+	public void acquire(long count) throws InterruptedException {
+		long waitNanos = reserve(count);
+		if (waitNanos > 0) {
+			TimeUnit.NANOSECONDS.sleep(waitNanos);
+		}
+	}
+
+	/**
+	 * Takes the given number of permits from the bucket.
+	 * 
+	 * @return how long in nanoseconds the caller must wait before proceeding
+	 */
+	synchronized long reserve(long count) {
+		refill();
+		permits -= count;
+		if (permits >= 0) {
+			return 0;
+		}
+		return (long) (-permits * NANOS_PER_SECOND / rate);
+	}
+
+	private void refill() {
+		long now = nanoClock.getAsLong();
+		permits = Math.min(maxPermits, permits + (now - lastRefillNanos) * rate / NANOS_PER_SECOND);
+		lastRefillNanos = now;
+	}
+
+	/**
+	 * Adapts the rate to an observed latency, if a target latency is set.
+	 */
+	public synchronized void latency(Duration latency) {
+		if (targetLatency == null) {
+			return;
+		}
+		refill();
+		if (latency.compareTo(targetLatency) > 0) {
+			rate = Math.max(maxRate * minRateFactor, rate * backoffFactor);
+		} else {
+			rate = Math.min(maxRate, rate + maxRate * recoveryFactor);
+		}
+	}
+
+	public synchronized double getRate() {
+		return rate;
+	}
+
+	public double getMaxRate() {
+		return maxRate;
+	}
+
+	public synchronized Duration getTargetLatency() {
+		return targetLatency;
+	}
+
+	public synchronized void setTargetLatency(Duration latency) {
+		this.targetLatency = latency;
+	}
+
+	public synchronized void setBackoffFactor(double factor) {
+		this.backoffFactor = factor;
+	}
+
+	public synchronized void setRecoveryFactor(double factor) {
+		this.recoveryFactor = factor;
+	}
+
+	public synchronized void setMinRateFactor(double factor) {
+		this.minRateFactor = factor;
+	}
+
+}
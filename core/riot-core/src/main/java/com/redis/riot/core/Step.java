@@ -7,6 +7,7 @@ import java.util.LinkedHashSet;
 import java.util.Set;
 import java.util.function.LongSupplier;
 import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
 import org.springframework.batch.core.ItemReadListener;
 import org.springframework.batch.core.ItemWriteListener;
@@ -32,6 +33,7 @@ public class Step<I, O> {
 	private String taskName;
 	private Supplier<String> statusMessageSupplier = () -> EMPTY_STRING;
 	private LongSupplier maxItemCountSupplier = () -> NO_MAX_ITEM_COUNT;
+	private ToLongFunction<O> itemSizeFunction;
 	private ItemProcessor<I, O> processor;
 	private Set<StepExecutionListener> executionListeners = new LinkedHashSet<>();
 	private Set<ItemReadListener<I>> readListeners = new LinkedHashSet<>();
@@ -105,6 +107,19 @@ public class Step<I, O> {
 		return this;
 	}
 
+	public ToLongFunction<O> getItemSizeFunction() {
+		return itemSizeFunction;
+	}
+
+	/**
+	 * @param function function returning the size in bytes of an item written by
+	 *                 this step, used for byte rate limiting
+	 */
+	public Step<I, O> itemSizeFunction(ToLongFunction<O> function) {
+		this.itemSizeFunction = function;
+		return this;
+	}
+
 	public Step<I, O> processor(ItemProcessor<I, O> processor) {
 		this.processor = processor;
 		return this;
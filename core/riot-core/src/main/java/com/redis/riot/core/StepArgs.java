@@ -14,6 +14,7 @@ public class StepArgs {
 	public static final RetryPolicy DEFAULT_RETRY_POLICY = RetryPolicy.NEVER;
 	public static final SkipPolicy DEFAULT_SKIP_POLICY = SkipPolicy.NEVER;
 	public static final int DEFAULT_RETRY_LIMIT = MaxAttemptsRetryPolicy.DEFAULT_MAX_ATTEMPTS;
+	public static final int DEFAULT_PROCESSOR_PARALLELISM = 1;
 
 	@Option(names = "--sleep", description = "Duration to wait after each batch write, e.g. 1ms or 3s (default: no sleep).", paramLabel = "<dur>")
 	private RiotDuration sleep;
@@ -21,9 +22,15 @@ public class StepArgs {
 	@Option(names = "--threads", description = "Number of concurrent threads to use for batch processing (default: ${DEFAULT-VALUE}).", paramLabel = "<int>")
 	private int threads = DEFAULT_THREADS;
 
+	@Option(names = "--virtual-threads", description = "Run batch processing on virtual threads instead of a platform thread pool (requires Java 21+). --threads then sets the max number of concurrent batches.")
+	private boolean virtualThreads;
+
 	@Option(names = "--batch", description = "Number of items in each batch (default: ${DEFAULT-VALUE}).", paramLabel = "<size>")
 	private int chunkSize = DEFAULT_CHUNK_SIZE;
 
+	@Option(names = "--proc-parallelism", description = "Number of fork-join threads processing the items of each batch in parallel, in order (default: ${DEFAULT-VALUE}, i.e. items are processed by the batch thread). Items filtered out by processors are then counted as written, not filtered.", paramLabel = "<int>")
+	private int processorParallelism = DEFAULT_PROCESSOR_PARALLELISM;
+
 	@Option(names = "--dry-run", description = "Enable dummy writes.")
 	private boolean dryRun;
 
@@ -42,6 +49,15 @@ public class StepArgs {
 	@ArgGroup(exclusive = false)
 	private ProgressArgs progressArgs = new ProgressArgs();
 
+	@ArgGroup(exclusive = false)
+	private PipelineArgs pipelineArgs = new PipelineArgs();
+
+	@ArgGroup(exclusive = false)
+	private RateLimitArgs rateLimitArgs = new RateLimitArgs();
+
+	@ArgGroup(exclusive = false)
+	private AdaptiveBatchArgs adaptiveBatchArgs = new AdaptiveBatchArgs();
+
 	public RiotDuration getSleep() {
 		return sleep;
 	}
@@ -58,6 +74,14 @@ public class StepArgs {
 		this.threads = threads;
 	}
 
+	public boolean isVirtualThreads() {
+		return virtualThreads;
+	}
+
+	public void setVirtualThreads(boolean virtualThreads) {
+		this.virtualThreads = virtualThreads;
+	}
+
 	public int getChunkSize() {
 		return chunkSize;
 	}
@@ -66,6 +90,14 @@ public class StepArgs {
 		this.chunkSize = chunkSize;
 	}
 
+	public int getProcessorParallelism() {
+		return processorParallelism;
+	}
+
+	public void setProcessorParallelism(int parallelism) {
+		this.processorParallelism = parallelism;
+	}
+
 	public boolean isDryRun() {
 		return dryRun;
 	}
@@ -82,6 +114,30 @@ public class StepArgs {
 		this.progressArgs = args;
 	}
 
+	public PipelineArgs getPipelineArgs() {
+		return pipelineArgs;
+	}
+
+	public void setPipelineArgs(PipelineArgs args) {
+		this.pipelineArgs = args;
+	}
+
+	public RateLimitArgs getRateLimitArgs() {
+		return rateLimitArgs;
+	}
+
+	public void setRateLimitArgs(RateLimitArgs args) {
+		this.rateLimitArgs = args;
+	}
+
+	public AdaptiveBatchArgs getAdaptiveBatchArgs() {
+		return adaptiveBatchArgs;
+	}
+
+	public void setAdaptiveBatchArgs(AdaptiveBatchArgs args) {
+		this.adaptiveBatchArgs = args;
+	}
+
 	public int getSkipLimit() {
 		return skipLimit;
 	}
@@ -1,6 +1,8 @@
 package com.redis.riot.core;
 
 import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.common.TemplateParserContext;
+import org.springframework.expression.spel.SpelCompilerMode;
 
 public class TemplateExpression extends Expression {
 
@@ -8,6 +10,14 @@ public class TemplateExpression extends Expression {
 		super(expression);
 	}
 
+	@Override
+	public TemplateExpression withCompilerMode(SpelCompilerMode mode) {
+		if (mode == SpelCompilerMode.OFF) {
+			return this;
+		}
+		return new TemplateExpression(parser(mode).parseExpression(toString(), new TemplateParserContext()));
+	}
+
 	@Override
 	public String getValue(EvaluationContext context) {
 		return spelExpression.getValue(context, String.class);
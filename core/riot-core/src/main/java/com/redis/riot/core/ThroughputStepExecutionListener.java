@@ -0,0 +1,51 @@
+package com.redis.riot.core;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+
+/**
+ * Listener logging step throughput once a step has completed, along with the
+ * task executor that ran its chunks, so that executor modes (e.g. platform
+ * thread pool vs virtual threads) can be compared on the same workload.
+ */
+public class ThroughputStepExecutionListener implements StepExecutionListener {
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final String executor;
+
+	public ThroughputStepExecutionListener(String executor) {
+		this.executor = executor;
+	}
+
+	@Override
+	public ExitStatus afterStep(StepExecution stepExecution) {
+		LocalDateTime startTime = stepExecution.getStartTime();
+		if (startTime != null && log.isInfoEnabled()) {
+			Duration duration = Duration.between(startTime, LocalDateTime.now());
+			long writeCount = stepExecution.getWriteCount();
+			log.info("Step {} read {} and wrote {} items ({} skipped) in {} ms using {}: {} items/s",
+					stepExecution.getStepName(), stepExecution.getReadCount(), writeCount,
+					stepExecution.getSkipCount(), duration.toMillis(), executor, rate(writeCount, duration));
+		}
+		return stepExecution.getExitStatus();
+	}
+
+	/**
+	 * @return items per second, or count if the duration is under a millisecond
+	 */
+	static long rate(long count, Duration duration) {
+		long millis = duration.toMillis();
+		if (millis <= 0) {
+			return count;
+		}
+		return count * 1000 / millis;
+	}
+
+}
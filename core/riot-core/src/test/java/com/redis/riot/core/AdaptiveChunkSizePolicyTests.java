@@ -0,0 +1,40 @@
+package com.redis.riot.core;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveChunkSizePolicyTests {
+
+	private static final Duration TARGET_LATENCY = Duration.ofMillis(50);
+
+	@Test
+	void bounds() {
+		Assertions.assertEquals(10, new AdaptiveChunkSizePolicy(1, 10, 100, TARGET_LATENCY).getChunkSize());
+		Assertions.assertEquals(100, new AdaptiveChunkSizePolicy(1000, 10, 100, TARGET_LATENCY).getChunkSize());
+	}
+
+	@Test
+	void additiveIncrease() {
+		AdaptiveChunkSizePolicy policy = new AdaptiveChunkSizePolicy(50, 10, 510, TARGET_LATENCY);
+		policy.latency(Duration.ofMillis(10));
+		Assertions.assertEquals(60, policy.getChunkSize());
+		for (int index = 0; index < 100; index++) {
+			policy.latency(Duration.ofMillis(10));
+		}
+		Assertions.assertEquals(510, policy.getChunkSize());
+	}
+
+	@Test
+	void multiplicativeDecrease() {
+		AdaptiveChunkSizePolicy policy = new AdaptiveChunkSizePolicy(400, 10, 1000, TARGET_LATENCY);
+		policy.latency(Duration.ofMillis(100));
+		Assertions.assertEquals(200, policy.getChunkSize());
+		for (int index = 0; index < 10; index++) {
+			policy.latency(Duration.ofMillis(100));
+		}
+		Assertions.assertEquals(10, policy.getChunkSize());
+	}
+
+}
@@ -0,0 +1,69 @@
+package com.redis.riot.core;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelEvaluationException;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+class ExpressionTests {
+
+	private static StandardEvaluationContext context() {
+		StandardEvaluationContext context = new StandardEvaluationContext();
+		context.addPropertyAccessor(new QuietMapAccessor());
+		return context;
+	}
+
+	private static Map<String, Object> map(String field, Object value) {
+		Map<String, Object> map = new HashMap<>();
+		map.put(field, value);
+		return map;
+	}
+
+	@Test
+	void compilerModeOff() {
+		Expression expression = Expression.parse("name");
+		Assertions.assertSame(expression, expression.withCompilerMode(SpelCompilerMode.OFF));
+	}
+
+	@Test
+	void compiledMapAccess() {
+		StandardEvaluationContext context = context();
+		Expression expression = Expression.parse("name").withCompilerMode(SpelCompilerMode.IMMEDIATE);
+		for (int index = 0; index < 3; index++) {
+			Assertions.assertEquals("foo" + index, expression.getValue(context, map("name", "foo" + index)));
+		}
+		Assertions.assertTrue(((SpelExpression) expression.spelExpression).compileExpression());
+		// missing fields read as null like with the interpreter
+		Assertions.assertNull(expression.getValue(context, map("other", "foo")));
+	}
+
+	@Test
+	void compiledTemplate() {
+		StandardEvaluationContext context = context();
+		TemplateExpression expression = Expression.parseTemplate("key:#{id}")
+				.withCompilerMode(SpelCompilerMode.IMMEDIATE);
+		for (int index = 0; index < 3; index++) {
+			Assertions.assertEquals("key:" + index, expression.getValue(context, map("id", index)));
+		}
+	}
+
+	@Test
+	void mixedFallback() {
+		StandardEvaluationContext context = context();
+		Expression mixed = Expression.parse("value.toString()").withCompilerMode(SpelCompilerMode.MIXED);
+		Expression immediate = Expression.parse("value.toString()").withCompilerMode(SpelCompilerMode.IMMEDIATE);
+		for (int index = 0; index < 3; index++) {
+			Assertions.assertEquals("foo", mixed.getValue(context, map("value", "foo")));
+			Assertions.assertEquals("foo", immediate.getValue(context, map("value", "foo")));
+		}
+		// compiled for String values, now given an Integer
+		Assertions.assertEquals("1", mixed.getValue(context, map("value", 1)));
+		Assertions.assertThrows(SpelEvaluationException.class, () -> immediate.getValue(context, map("value", 1)));
+	}
+
+}
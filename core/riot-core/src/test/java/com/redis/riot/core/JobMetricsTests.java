@@ -0,0 +1,47 @@
+package com.redis.riot.core;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class JobMetricsTests {
+
+	@Test
+	void scrape() {
+		JobMetrics metrics = new JobMetrics();
+		Map<String, String> labels = MetricsStepListener.labels("replicate", "replicate-\"step\"");
+		metrics.counter("riot_step_write_total", "Items written.", labels, () -> 123);
+		metrics.gauge("riot_step_items_per_second", "Throughput.", labels, () -> 1.5);
+		String text = metrics.scrape();
+		Assertions.assertTrue(text.contains("# HELP riot_step_write_total Items written.\n"));
+		Assertions.assertTrue(text.contains("# TYPE riot_step_write_total counter\n"));
+		Assertions.assertTrue(
+				text.contains("riot_step_write_total{job=\"replicate\",step=\"replicate-\\\"step\\\"\"} 123\n"));
+		Assertions.assertTrue(text.contains("# TYPE riot_step_items_per_second gauge\n"));
+		Assertions.assertTrue(
+				text.contains("riot_step_items_per_second{job=\"replicate\",step=\"replicate-\\\"step\\\"\"} 1.5\n"));
+	}
+
+	@Test
+	void histogram() {
+		JobMetrics metrics = new JobMetrics();
+		Map<String, String> labels = MetricsStepListener.labels("job", "step");
+		LatencyHistogram histogram = metrics.histogram("latency_seconds", "Latency.", labels);
+		histogram.record(Duration.ofMillis(3));
+		histogram.record(Duration.ofMillis(30));
+		histogram.record(Duration.ofSeconds(30));
+		String text = metrics.scrape();
+		Assertions.assertTrue(text.contains("# TYPE latency_seconds histogram\n"));
+		Assertions.assertTrue(text.contains("latency_seconds_bucket{job=\"job\",step=\"step\",le=\"0.001\"} 0\n"));
+		Assertions.assertTrue(text.contains("latency_seconds_bucket{job=\"job\",step=\"step\",le=\"0.005\"} 1\n"));
+		Assertions.assertTrue(text.contains("latency_seconds_bucket{job=\"job\",step=\"step\",le=\"0.05\"} 2\n"));
+		Assertions.assertTrue(text.contains("latency_seconds_bucket{job=\"job\",step=\"step\",le=\"10.0\"} 2\n"));
+		Assertions.assertTrue(text.contains("latency_seconds_bucket{job=\"job\",step=\"step\",le=\"+Inf\"} 3\n"));
+		Assertions.assertTrue(text.contains("latency_seconds_count{job=\"job\",step=\"step\"} 3\n"));
+		Assertions.assertEquals(30.033, histogram.getSum(), 1e-9);
+		Assertions.assertSame(histogram, metrics.histogram("latency_seconds", "Latency.", labels));
+	}
+
+}
@@ -0,0 +1,66 @@
+package com.redis.riot.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+
+class ParallelProcessingItemWriterTests {
+
+	private static final int CHUNK_SIZE = 1000;
+
+	@Test
+	void processInOrder() throws Exception {
+		List<Integer> written = new ArrayList<>();
+		List<Integer> listened = new ArrayList<>();
+		ParallelProcessingItemWriter<Integer, Integer> writer = new ParallelProcessingItemWriter<>(
+				i -> i % 2 == 0 ? i * 10 : null, chunk -> written.addAll(chunk.getItems()));
+		writer.setParallelism(4);
+		writer.addWriteListener(new ItemWriteListener<Integer>() {
+
+			@Override
+			public void afterWrite(Chunk<? extends Integer> items) {
+				listened.addAll(items.getItems());
+			}
+
+		});
+		writer.open(new ExecutionContext());
+		for (int chunk = 0; chunk < 10; chunk++) {
+			writer.write(chunk(chunk));
+		}
+		writer.close();
+		Assertions.assertEquals(10 * CHUNK_SIZE / 2, written.size());
+		for (int index = 0; index < written.size(); index++) {
+			Assertions.assertEquals(index * 20, written.get(index));
+		}
+		Assertions.assertEquals(written, listened);
+	}
+
+	@Test
+	void processingFailureFailsChunk() throws Exception {
+		List<Integer> written = new ArrayList<>();
+		ParallelProcessingItemWriter<Integer, Integer> writer = new ParallelProcessingItemWriter<>(i -> {
+			if (i == 500) {
+				throw new IllegalStateException("Processing failed");
+			}
+			return i;
+		}, chunk -> written.addAll(chunk.getItems()));
+		writer.open(new ExecutionContext());
+		Assertions.assertThrows(IllegalStateException.class, () -> writer.write(chunk(0)));
+		writer.close();
+		Assertions.assertTrue(written.isEmpty());
+	}
+
+	private static Chunk<Integer> chunk(int index) {
+		Chunk<Integer> chunk = new Chunk<>();
+		for (int item = 0; item < CHUNK_SIZE; item++) {
+			chunk.add(index * CHUNK_SIZE + item);
+		}
+		return chunk;
+	}
+
+}
@@ -0,0 +1,86 @@
+package com.redis.riot.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+
+class PipelineItemWriterTests {
+
+	private static final int CHUNK_COUNT = 100;
+	private static final int CHUNK_SIZE = 10;
+
+	@Test
+	void processAndWrite() throws Exception {
+		List<Integer> written = Collections.synchronizedList(new ArrayList<>());
+		PipelineItemWriter<Integer, Integer> writer = new PipelineItemWriter<>(i -> i % 2 == 0 ? i * 10 : null,
+				chunk -> written.addAll(chunk.getItems()));
+		writer.setProcessorThreads(4);
+		writer.setWriterThreads(2);
+		writer.setQueueCapacity(2);
+		StepExecution stepExecution = stepExecution();
+		writer.open(new ExecutionContext());
+		for (int chunk = 0; chunk < CHUNK_COUNT; chunk++) {
+			writer.write(chunk(chunk));
+		}
+		writer.afterStep(stepExecution);
+		writer.close();
+		Assertions.assertEquals(CHUNK_COUNT * CHUNK_SIZE / 2, written.size());
+		Assertions.assertTrue(written.stream().allMatch(i -> i % 20 == 0));
+		Assertions.assertNotEquals(BatchStatus.FAILED, stepExecution.getStatus());
+	}
+
+	@Test
+	void writeFailureFailsStep() throws Exception {
+		PipelineItemWriter<Integer, Integer> writer = new PipelineItemWriter<>(null, items -> {
+			throw new IllegalStateException("Write failed");
+		});
+		StepExecution stepExecution = stepExecution();
+		writer.open(new ExecutionContext());
+		writer.write(chunk(0));
+		ExitStatus exitStatus = writer.afterStep(stepExecution);
+		writer.close();
+		Assertions.assertEquals(ExitStatus.FAILED.getExitCode(), exitStatus.getExitCode());
+		Assertions.assertEquals(BatchStatus.FAILED, stepExecution.getStatus());
+		Assertions.assertThrows(RiotException.class, () -> writer.write(chunk(1)));
+	}
+
+	@Test
+	void processErrorFailsStep() throws Exception {
+		PipelineItemWriter<Integer, Integer> writer = new PipelineItemWriter<Integer, Integer>(i -> {
+			throw new AssertionError("Process failed");
+		}, items -> {
+		});
+		writer.setProcessorThreads(1);
+		writer.setQueueCapacity(1);
+		StepExecution stepExecution = stepExecution();
+		writer.open(new ExecutionContext());
+		writer.write(chunk(0));
+		ExitStatus exitStatus = writer.afterStep(stepExecution);
+		writer.close();
+		Assertions.assertEquals(ExitStatus.FAILED.getExitCode(), exitStatus.getExitCode());
+		Assertions.assertInstanceOf(AssertionError.class, stepExecution.getFailureExceptions().get(0));
+		Assertions.assertThrows(RiotException.class, () -> writer.write(chunk(1)));
+	}
+
+	private static StepExecution stepExecution() {
+		return new StepExecution("step", new JobExecution(1L));
+	}
+
+	private static Chunk<Integer> chunk(int index) {
+		Chunk<Integer> chunk = new Chunk<>();
+		for (int item = 0; item < CHUNK_SIZE; item++) {
+			chunk.add(index * CHUNK_SIZE + item);
+		}
+		return chunk;
+	}
+
+}
@@ -0,0 +1,60 @@
+package com.redis.riot.core;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class RateLimiterTests {
+
+	private final AtomicLong clock = new AtomicLong();
+
+	private RateLimiter rateLimiter(double rate) {
+		return new RateLimiter(rate, Duration.ofSeconds(1), clock::get);
+	}
+
+	@Test
+	void burst() {
+		RateLimiter limiter = rateLimiter(100);
+		Assertions.assertEquals(0, limiter.reserve(100));
+		Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(500), limiter.reserve(50));
+	}
+
+	@Test
+	void refill() {
+		RateLimiter limiter = rateLimiter(100);
+		limiter.reserve(100);
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(250));
+		Assertions.assertEquals(0, limiter.reserve(25));
+		Assertions.assertTrue(limiter.reserve(1) > 0);
+	}
+
+	@Test
+	void burstIsCapped() {
+		RateLimiter limiter = rateLimiter(100);
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(60));
+		Assertions.assertEquals(0, limiter.reserve(100));
+		Assertions.assertTrue(limiter.reserve(1) > 0);
+	}
+
+	@Test
+	void adaptiveBackoff() {
+		RateLimiter limiter = rateLimiter(1000);
+		limiter.latency(Duration.ofSeconds(10));
+		Assertions.assertEquals(1000, limiter.getRate());
+		limiter.setTargetLatency(Duration.ofMillis(10));
+		limiter.latency(Duration.ofMillis(20));
+		Assertions.assertEquals(1000 * RateLimiter.DEFAULT_BACKOFF_FACTOR, limiter.getRate(), .001);
+		for (int index = 0; index < 100; index++) {
+			limiter.latency(Duration.ofMillis(20));
+		}
+		Assertions.assertEquals(1000 * RateLimiter.DEFAULT_MIN_RATE_FACTOR, limiter.getRate(), .001);
+		for (int index = 0; index < 100; index++) {
+			limiter.latency(Duration.ofMillis(5));
+		}
+		Assertions.assertEquals(1000, limiter.getRate(), .001);
+	}
+
+}
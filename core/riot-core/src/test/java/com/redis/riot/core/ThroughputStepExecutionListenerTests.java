@@ -0,0 +1,33 @@
+package com.redis.riot.core;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+
+class ThroughputStepExecutionListenerTests {
+
+	@Test
+	void rate() {
+		Assertions.assertEquals(500, ThroughputStepExecutionListener.rate(1000, Duration.ofSeconds(2)));
+		Assertions.assertEquals(40, ThroughputStepExecutionListener.rate(10, Duration.ofMillis(250)));
+		Assertions.assertEquals(0, ThroughputStepExecutionListener.rate(0, Duration.ofSeconds(1)));
+		// sub-millisecond steps report the count instead of dividing by zero
+		Assertions.assertEquals(10, ThroughputStepExecutionListener.rate(10, Duration.ofNanos(1000)));
+	}
+
+	@Test
+	void afterStepKeepsExitStatus() {
+		StepExecution stepExecution = new StepExecution("step", new JobExecution(1L));
+		stepExecution.setStartTime(LocalDateTime.now().minusSeconds(1));
+		stepExecution.setWriteCount(100);
+		stepExecution.setExitStatus(ExitStatus.COMPLETED);
+		ThroughputStepExecutionListener listener = new ThroughputStepExecutionListener("virtual threads");
+		Assertions.assertEquals(ExitStatus.COMPLETED, listener.afterStep(stepExecution));
+	}
+
+}
@@ -1,6 +1,9 @@
 package com.redis.riot;
 
+import java.nio.file.Path;
 import java.time.temporal.ChronoUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import org.springframework.batch.item.ItemProcessor;
@@ -33,15 +36,22 @@ public abstract class AbstractCompareCommand extends AbstractRedisTargetExportCo
 	public static final RiotDuration DEFAULT_TTL_TOLERANCE = RiotDuration.of(DefaultKeyComparator.DEFAULT_TTL_TOLERANCE,
 			ChronoUnit.SECONDS);
 	public static final boolean DEFAULT_COMPARE_STREAM_MESSAGE_ID = true;
+	public static final double DEFAULT_SAMPLE = 1;
 
 	private static final String COMPARE_TASK_NAME = "Comparing";
 
 	@Option(names = "--show-diffs", description = "Print details of key mismatches during dataset verification. Disables progress reporting.")
 	private boolean showDiffs;
 
+	@Option(names = "--diff-file", description = "Write keys that do not match to this file. The file can be replayed with `replicate --keys-from` to only repair those keys.", paramLabel = "<file>")
+	private Path diffFile;
+
 	@Option(names = "--ttl-tolerance", description = "Max TTL delta to consider keys equal (default: ${DEFAULT-VALUE}).", paramLabel = "<dur>")
 	private RiotDuration ttlTolerance = DEFAULT_TTL_TOLERANCE;
 
+	@Option(names = "--compare-sample", description = "Fraction of keys to verify, between 0 and 1 (default: ${DEFAULT-VALUE}). Keys are sampled deterministically so the same keys are compared on both sides, and the mismatch rate of the whole dataset is estimated from the sample.", paramLabel = "<frac>")
+	private double sample = DEFAULT_SAMPLE;
+
 	@ArgGroup(exclusive = false)
 	private EvaluationContextArgs evaluationContextArgs = new EvaluationContextArgs();
 
@@ -86,33 +96,94 @@ public abstract class AbstractCompareCommand extends AbstractRedisTargetExportCo
 	}
 
 	protected Step<KeyValue<byte[]>, KeyValue<byte[]>> compareStep() {
-		RedisItemReader<byte[], byte[]> sourceReader = compareSourceReader();
+		Assert.isTrue(sample > 0 && sample <= 1, "--compare-sample must be greater than 0 and at most 1");
+		KeySampler<byte[]> sampler = null;
+		Predicate<byte[]> keyPredicate = compareKeyPredicate();
+		if (sample < 1) {
+			log.info("Sampling {} of keys for verification", sample);
+			sampler = new KeySampler<>(ByteArrayCodec.INSTANCE, sample);
+			keyPredicate = keyPredicate == null ? sampler : keyPredicate.and(sampler);
+		}
+		RedisItemReader<byte[], byte[]> sourceReader = compareSourceReader(keyPredicate);
 		RedisItemReader<byte[], byte[]> targetReader = compareTargetReader();
-		KeyComparisonItemWriter<byte[], byte[]> writer = new KeyComparisonItemWriter<>(targetReader, keyComparator());
+		KeyComparator<byte[]> comparator = keyComparator();
+		KeyDigests digests = null;
+		if (isDigestCompare()) {
+			digests = new KeyDigests();
+			comparator = new DigestKeyComparator(comparator, digests);
+		}
+		KeyComparisonItemWriter<byte[], byte[]> writer = new KeyComparisonItemWriter<>(targetReader, comparator);
 		if (showDiffs) {
 			log.info("Adding key diff logger");
 			writer.addListener(new CompareLoggingWriteListener<>(ByteArrayCodec.INSTANCE));
 		}
-		Step<KeyValue<byte[]>, KeyValue<byte[]>> step = new Step<>(sourceReader, processingWriter(writer));
+		DiffFileWriter diffWriter = null;
+		if (diffFile != null) {
+			// compared keys are processed keys, which cannot be replayed from the source
+			Assert.isNull(processorArgs.getKeyExpression(), "--diff-file cannot be used with a key expression");
+			log.info("Writing mismatched keys to {}", diffFile);
+			diffWriter = new DiffFileWriter(diffFile);
+			writer.addListener(diffWriter);
+		}
+		ItemWriter<KeyValue<byte[]>> compareWriter = writer;
+		if (digests != null) {
+			log.info("Creating digest writer");
+			DigestItemWriter digestWriter = new DigestItemWriter(getSourceRedisContext().getClient(),
+					getTargetRedisContext().getClient(), digests, writer);
+			digestWriter.getIncrementalDigest().setIgnoreStreamMessageId(isIgnoreStreamMessageId());
+			compareWriter = digestWriter;
+		}
+		Step<KeyValue<byte[]>, KeyValue<byte[]>> step = new Step<>(sourceReader, processingWriter(compareWriter));
 		step.processor(filter());
 		step.taskName(COMPARE_TASK_NAME);
 		step.statusMessageSupplier(() -> compareMessage(writer.getStats()));
-		step.maxItemCountSupplier(RedisScanSizeEstimator.from(sourceReader));
+		LongSupplier estimator = RedisScanSizeEstimator.from(sourceReader);
+		if (sampler == null) {
+			step.maxItemCountSupplier(estimator);
+		} else {
+			step.maxItemCountSupplier(() -> Math.round(estimator.getAsLong() * sample));
+		}
+		if (diffWriter != null) {
+			step.executionListener(diffWriter);
+		}
 		step.executionListener(new CompareStepListener(writer.getStats()));
+		if (sampler != null) {
+			step.executionListener(new CompareSampleStepListener(sampler, writer.getStats(), log));
+		}
 		return step;
 	}
 
+	/**
+	 * @return predicate restricting verification to matching source keys, or null
+	 *         to verify all keys
+	 */
+	protected Predicate<byte[]> compareKeyPredicate() {
+		return null;
+	}
+
 	private RedisItemReader<byte[], byte[]> compareRedisReader() {
 		if (isQuickCompare()) {
 			log.info("Creating Redis quick compare reader");
 			return RedisItemReader.type(ByteArrayCodec.INSTANCE);
 		}
+		if (isDigestCompare()) {
+			log.info("Creating Redis digest compare reader");
+			return RedisItemReader.type(ByteArrayCodec.INSTANCE);
+		}
 		log.info("Creating Redis full compare reader");
 		return RedisItemReader.struct(ByteArrayCodec.INSTANCE);
 	}
 
 	protected abstract boolean isQuickCompare();
 
+	/**
+	 * @return true to compare values using digests computed server-side instead of
+	 *         reading values from both databases
+	 */
+	protected boolean isDigestCompare() {
+		return false;
+	}
+
 	private KeyComparator<byte[]> keyComparator() {
 		boolean ignoreStreamId = isIgnoreStreamMessageId();
 		log.info("Creating KeyComparator with ttlTolerance={} ignoreStreamMessageId={}", ttlTolerance, ignoreStreamId);
@@ -126,9 +197,13 @@ public abstract class AbstractCompareCommand extends AbstractRedisTargetExportCo
 		return processorArgs.isNoStreamIds();
 	}
 
-	private RedisItemReader<byte[], byte[]> compareSourceReader() {
+	private RedisItemReader<byte[], byte[]> compareSourceReader(Predicate<byte[]> keyPredicate) {
 		RedisItemReader<byte[], byte[]> reader = compareRedisReader();
-		configureSourceRedisReader(reader);
+		if (keyPredicate == null) {
+			configureSourceRedisReader(reader);
+		} else {
+			configureSourceRedisReader(reader, keyPredicate);
+		}
 		return reader;
 	}
 
@@ -146,6 +221,14 @@ public abstract class AbstractCompareCommand extends AbstractRedisTargetExportCo
 		this.showDiffs = showDiffs;
 	}
 
+	public Path getDiffFile() {
+		return diffFile;
+	}
+
+	public void setDiffFile(Path file) {
+		this.diffFile = file;
+	}
+
 	public RiotDuration getTtlTolerance() {
 		return ttlTolerance;
 	}
@@ -154,6 +237,14 @@ public abstract class AbstractCompareCommand extends AbstractRedisTargetExportCo
 		this.ttlTolerance = tolerance;
 	}
 
+	public double getSample() {
+		return sample;
+	}
+
+	public void setSample(double sample) {
+		this.sample = sample;
+	}
+
 	public KeyValueProcessorArgs getProcessorArgs() {
 		return processorArgs;
 	}
@@ -1,5 +1,7 @@
 package com.redis.riot;
 
+import java.util.function.Predicate;
+
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 
@@ -55,12 +57,24 @@ public abstract class AbstractExportCommand extends AbstractJobCommand {
 	}
 
 	protected void configureSourceRedisReader(RedisItemReader<?, ?> reader) {
+		configureSourceRedisReader(reader, () -> readerArgs.configure(reader));
+	}
+
+	/**
+	 * Configures the given source reader, only considering keys that match the
+	 * given predicate in addition to the key filter options.
+	 */
+	protected <K> void configureSourceRedisReader(RedisItemReader<K, ?> reader, Predicate<K> keyPredicate) {
+		configureSourceRedisReader(reader, () -> readerArgs.configure(reader, keyPredicate));
+	}
+
+	private void configureSourceRedisReader(RedisItemReader<?, ?> reader, Runnable readerArgsConfigurer) {
 		configureAsyncStreamSupport(reader);
 		sourceRedisContext.configure(reader);
 		log.info("Configuring {} in {} mode", reader.getName(), mode);
 		reader.setMode(mode);
 		log.info("Configuring {} with {}", reader.getName(), readerArgs);
-		readerArgs.configure(reader);
+		readerArgsConfigurer.run();
 		if (mode != ReaderMode.SCAN) {
 			log.info("Configuring {} with {}", reader.getName(), readerLiveArgs);
 			readerLiveArgs.configure(reader);
@@ -78,6 +92,10 @@ public abstract class AbstractExportCommand extends AbstractJobCommand {
 
 	protected abstract RedisContext sourceRedisContext();
 
+	protected RedisContext getSourceRedisContext() {
+		return sourceRedisContext;
+	}
+
 	protected <O> Step<KeyValue<String>, O> step(ItemWriter<O> writer) {
 		RedisItemReader<String, String> reader = RedisItemReader.struct();
 		configureSourceRedisReader(reader);
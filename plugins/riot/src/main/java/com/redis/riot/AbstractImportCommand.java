@@ -2,6 +2,7 @@ package com.redis.riot;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -10,11 +11,13 @@ import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.ItemReader;
 import org.springframework.batch.item.function.FunctionItemProcessor;
 import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.spel.SpelCompilerMode;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 
 import com.redis.riot.core.AbstractJobCommand;
+import com.redis.riot.core.Expression;
 import com.redis.riot.core.QuietMapAccessor;
 import com.redis.riot.core.RiotUtils;
 import com.redis.riot.core.Step;
@@ -111,12 +114,15 @@ public abstract class AbstractImportCommand extends AbstractJobCommand {
 	public static ItemProcessor<Map<String, Object>, Map<String, Object>> processor(EvaluationContext evaluationContext,
 			ImportProcessorArgs args) {
 		List<ItemProcessor<Map<String, Object>, Map<String, Object>>> processors = new ArrayList<>();
+		SpelCompilerMode compilerMode = args.getCompilerMode();
 		if (args.getFilter() != null) {
-			processors.add(new FunctionItemProcessor<>(
-					new PredicateOperator<>(args.getFilter().predicate(evaluationContext))));
+			processors.add(new FunctionItemProcessor<>(new PredicateOperator<>(
+					args.getFilter().withCompilerMode(compilerMode).predicate(evaluationContext))));
 		}
 		if (!CollectionUtils.isEmpty(args.getExpressions())) {
-			processors.add(new ExpressionProcessor(evaluationContext, args.getExpressions()));
+			Map<String, Expression> expressions = new LinkedHashMap<>();
+			args.getExpressions().forEach((k, v) -> expressions.put(k, v.withCompilerMode(compilerMode)));
+			processors.add(new ExpressionProcessor(evaluationContext, expressions));
 		}
 		return RiotUtils.processor(processors);
 	}
@@ -42,6 +42,10 @@ public abstract class AbstractRedisCommand extends AbstractJobCommand {
 		redisContext.configure(writer);
 	}
 
+	protected RedisContext getRedisContext() {
+		return redisContext;
+	}
+
 	public RedisArgs getRedisArgs() {
 		return redisArgs;
 	}
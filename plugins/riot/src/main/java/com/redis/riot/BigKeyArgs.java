@@ -0,0 +1,57 @@
+package com.redis.riot;
+
+import lombok.ToString;
+import picocli.CommandLine.Option;
+
+@ToString
+public class BigKeyArgs {
+
+	public static final int DEFAULT_PAGE_SIZE = BigKeyCopier.DEFAULT_PAGE_SIZE;
+	public static final int DEFAULT_THREADS = BigKeyLane.DEFAULT_THREADS;
+	public static final int DEFAULT_QUEUE_CAPACITY = BigKeyLane.DEFAULT_QUEUE_CAPACITY;
+
+	@Option(names = "--big-keys", description = "Copy keys above --mem-limit incrementally, page by page, instead of skipping them.")
+	private boolean enabled;
+
+	@Option(names = "--big-key-page", description = "Number of elements copied at a time for keys above --mem-limit (default: ${DEFAULT-VALUE}).", paramLabel = "<int>")
+	private int pageSize = DEFAULT_PAGE_SIZE;
+
+	@Option(names = "--big-key-threads", description = "Number of threads copying keys above --mem-limit, separately from other keys (default: ${DEFAULT-VALUE}). Use 0 to copy them in line with other keys.", paramLabel = "<int>")
+	private int threads = DEFAULT_THREADS;
+
+	@Option(names = "--big-key-queue", description = "Max number of keys above --mem-limit waiting to be copied (default: ${DEFAULT-VALUE}).", paramLabel = "<int>")
+	private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	public void setPageSize(int pageSize) {
+		this.pageSize = pageSize;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	public void setQueueCapacity(int capacity) {
+		this.queueCapacity = capacity;
+	}
+
+}
@@ -0,0 +1,275 @@
+package com.redis.riot;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.redis.spring.batch.item.redis.common.KeyValue;
+
+import io.lettuce.core.Limit;
+import io.lettuce.core.MapScanCursor;
+import io.lettuce.core.Range;
+import io.lettuce.core.Range.Boundary;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanCursor;
+import io.lettuce.core.ScoredValue;
+import io.lettuce.core.ScoredValueScanCursor;
+import io.lettuce.core.StreamMessage;
+import io.lettuce.core.ValueScanCursor;
+import io.lettuce.core.XAddArgs;
+import io.lettuce.core.cluster.SlotHash;
+import io.lettuce.core.cluster.api.sync.RedisClusterCommands;
+
+/**
+ * Copies a key from a source to a target database one page of elements at a
+ * time, so that the memory needed does not depend on the size of the key:
+ * hashes, sets and sorted sets are read with HSCAN, SSCAN and ZSCAN, lists with
+ * LRANGE, streams with XRANGE and strings with GETRANGE, and each page is
+ * appended to the target key.
+ * <p>
+ * The type and TTL of the key are read from the source when the copy starts and
+ * ends respectively, so that a key changed since it was read is copied with its
+ * current type and TTL. Elements are copied into a temporary key in the same
+ * hash slot which then replaces the target key with RENAME, so that the target
+ * key is never seen incomplete and a regular write of the same key during the
+ * copy is never mixed with copied elements: whichever ends last wins. Keys
+ * whose name does not allow a temporary key in the same slot are copied in
+ * place. Copies of a given key share the temporary key so they must not run
+ * concurrently. The copy is not atomic: elements changed in the source while
+ * the key is being copied may or may not be part of the copy. Stream consumer
+ * groups are not copied.
+ */
+public class BigKeyCopier {
+
+	public static final int DEFAULT_PAGE_SIZE = 1000;
+
+	private static final byte[] TEMP_KEY_PREFIX = "riot:bigkey:".getBytes(StandardCharsets.UTF_8);
+
+	private final RedisClusterCommands<byte[], byte[]> source;
+	private final RedisClusterCommands<byte[], byte[]> target;
+
+	private int pageSize = DEFAULT_PAGE_SIZE;
+
+	public BigKeyCopier(RedisClusterCommands<byte[], byte[]> source, RedisClusterCommands<byte[], byte[]> target) {
+		this.source = source;
+		this.target = target;
+	}
+
+	/**
+	 * @param type data structure type of the key
+	 * @return true if keys of the given type can be copied incrementally
+	 */
+	public static boolean isSupported(String type) {
+		switch (type) {
+		case KeyValue.TYPE_STRING:
+		case KeyValue.TYPE_HASH:
+		case KeyValue.TYPE_SET:
+		case KeyValue.TYPE_ZSET:
+		case KeyValue.TYPE_LIST:
+		case KeyValue.TYPE_STREAM:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * @param key key to copy
+	 * @return number of elements copied
+	 */
+	public long copy(byte[] key) {
+		String type = source.type(key);
+		if (KeyValue.TYPE_NONE.equals(type)) {
+			// deleted from the source since it was read
+			target.del(key);
+			return 0;
+		}
+		if (!isSupported(type)) {
+			throw new IllegalArgumentException("Unsupported type for incremental copy: " + type);
+		}
+		byte[] tempKey = tempKey(key);
+		byte[] targetKey = tempKey == null ? key : tempKey;
+		target.del(targetKey);
+		long count;
+		try {
+			count = copy(type, key, targetKey);
+		} catch (RuntimeException e) {
+			if (tempKey != null) {
+				target.del(tempKey);
+			}
+			throw e;
+		}
+		long ttl = source.pttl(key);
+		if (ttl == -2 || count == 0) {
+			// expired or deleted from the source during the copy
+			target.del(targetKey);
+			target.del(key);
+			return 0;
+		}
+		if (ttl > 0) {
+			target.pexpire(targetKey, ttl);
+		}
+		if (tempKey != null) {
+			target.rename(tempKey, key);
+		}
+		return count;
+	}
+
+	private long copy(String type, byte[] key, byte[] targetKey) {
+		switch (type) {
+		case KeyValue.TYPE_STRING:
+			return copyString(key, targetKey);
+		case KeyValue.TYPE_HASH:
+			return copyHash(key, targetKey);
+		case KeyValue.TYPE_SET:
+			return copySet(key, targetKey);
+		case KeyValue.TYPE_ZSET:
+			return copyZset(key, targetKey);
+		case KeyValue.TYPE_LIST:
+			return copyList(key, targetKey);
+		case KeyValue.TYPE_STREAM:
+			return copyStream(key, targetKey);
+		default:
+			throw new IllegalArgumentException("Unsupported type for incremental copy: " + type);
+		}
+	}
+
+	/**
+	 * @param key key to copy
+	 * @return temporary key in the same hash slot as the given key, or null if
+	 *         there is none
+	 */
+	static byte[] tempKey(byte[] key) {
+		int slot = SlotHash.getSlot(key);
+		// the prefix has no braces so a hash tag in the key is kept
+		byte[] prefixed = concat(TEMP_KEY_PREFIX, key);
+		if (SlotHash.getSlot(prefixed) == slot) {
+			return prefixed;
+		}
+		// no hash tag in the key: make the whole key the hash tag
+		byte[] tagged = concat("{".getBytes(StandardCharsets.UTF_8), key, "}".getBytes(StandardCharsets.UTF_8),
+				TEMP_KEY_PREFIX);
+		if (SlotHash.getSlot(tagged) == slot) {
+			return tagged;
+		}
+		return null;
+	}
+
+	private static byte[] concat(byte[]... arrays) {
+		int length = 0;
+		for (byte[] array : arrays) {
+			length += array.length;
+		}
+		byte[] result = new byte[length];
+		int offset = 0;
+		for (byte[] array : arrays) {
+			System.arraycopy(array, 0, result, offset, array.length);
+			offset += array.length;
+		}
+		return result;
+	}
+
+	private ScanArgs scanArgs() {
+		return ScanArgs.Builder.limit(pageSize);
+	}
+
+	private long copyString(byte[] key, byte[] targetKey) {
+		long count = 0;
+		for (long start = 0;; start += pageSize) {
+			byte[] range = source.getrange(key, start, start + pageSize - 1);
+			if (range == null || range.length == 0) {
+				return count;
+			}
+			target.append(targetKey, range);
+			count += range.length;
+			if (range.length < pageSize) {
+				return count;
+			}
+		}
+	}
+
+	private long copyHash(byte[] key, byte[] targetKey) {
+		long count = 0;
+		ScanCursor cursor = ScanCursor.INITIAL;
+		do {
+			MapScanCursor<byte[], byte[]> page = source.hscan(key, cursor, scanArgs());
+			if (!page.getMap().isEmpty()) {
+				target.hset(targetKey, page.getMap());
+				count += page.getMap().size();
+			}
+			cursor = page;
+		} while (!cursor.isFinished());
+		return count;
+	}
+
+	private long copySet(byte[] key, byte[] targetKey) {
+		long count = 0;
+		ScanCursor cursor = ScanCursor.INITIAL;
+		do {
+			ValueScanCursor<byte[]> page = source.sscan(key, cursor, scanArgs());
+			List<byte[]> members = page.getValues();
+			if (!members.isEmpty()) {
+				target.sadd(targetKey, members.toArray(new byte[0][]));
+				count += members.size();
+			}
+			cursor = page;
+		} while (!cursor.isFinished());
+		return count;
+	}
+
+	@SuppressWarnings("unchecked")
+	private long copyZset(byte[] key, byte[] targetKey) {
+		long count = 0;
+		ScanCursor cursor = ScanCursor.INITIAL;
+		do {
+			ScoredValueScanCursor<byte[]> page = source.zscan(key, cursor, scanArgs());
+			List<ScoredValue<byte[]>> members = page.getValues();
+			if (!members.isEmpty()) {
+				target.zadd(targetKey, members.toArray(new ScoredValue[0]));
+				count += members.size();
+			}
+			cursor = page;
+		} while (!cursor.isFinished());
+		return count;
+	}
+
+	private long copyList(byte[] key, byte[] targetKey) {
+		long count = 0;
+		for (long start = 0;; start += pageSize) {
+			List<byte[]> elements = source.lrange(key, start, start + pageSize - 1);
+			if (elements.isEmpty()) {
+				return count;
+			}
+			target.rpush(targetKey, elements.toArray(new byte[0][]));
+			count += elements.size();
+			if (elements.size() < pageSize) {
+				return count;
+			}
+		}
+	}
+
+	private long copyStream(byte[] key, byte[] targetKey) {
+		long count = 0;
+		Boundary<String> lower = Boundary.unbounded();
+		while (true) {
+			List<StreamMessage<byte[], byte[]>> messages = source.xrange(key, Range.from(lower, Boundary.unbounded()),
+					Limit.from(pageSize));
+			for (StreamMessage<byte[], byte[]> message : messages) {
+				target.xadd(targetKey, new XAddArgs().id(message.getId()), message.getBody());
+			}
+			count += messages.size();
+			if (messages.size() < pageSize) {
+				return count;
+			}
+			lower = Boundary.excluding(messages.get(messages.size() - 1).getId());
+		}
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	public void setPageSize(int pageSize) {
+		this.pageSize = pageSize;
+	}
+
+}
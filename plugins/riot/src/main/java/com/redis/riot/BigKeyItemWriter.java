@@ -0,0 +1,78 @@
+package com.redis.riot;
+
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import com.redis.spring.batch.item.redis.common.KeyValue;
+
+/**
+ * Hands each chunk to the delegate writer, except for keys that were read
+ * without their value because they exceed the reader memory limit: those are
+ * submitted to a {@link BigKeyLane} to be copied page by page instead of being
+ * skipped.
+ */
+public class BigKeyItemWriter extends ItemStreamSupport implements ItemStreamWriter<KeyValue<byte[]>> {
+
+	private final BigKeyLane lane;
+	private final ItemWriter<KeyValue<byte[]>> delegate;
+
+	public BigKeyItemWriter(BigKeyLane lane, ItemWriter<KeyValue<byte[]>> delegate) {
+		setName(ClassUtils.getShortName(getClass()));
+		Assert.notNull(lane, "Lane must not be null");
+		Assert.notNull(delegate, "Delegate must not be null");
+		this.lane = lane;
+		this.delegate = delegate;
+	}
+
+	/**
+	 * @return true if the given key was read without its value because of its
+	 *         memory usage
+	 */
+	public static boolean isBigKey(KeyValue<?> item) {
+		return KeyValue.exists(item) && !KeyValue.hasValue(item) && item.getMemoryUsage() > 0;
+	}
+
+	@Override
+	public void open(ExecutionContext executionContext) throws ItemStreamException {
+		if (delegate instanceof ItemStream) {
+			((ItemStream) delegate).open(executionContext);
+		}
+	}
+
+	@Override
+	public void update(ExecutionContext executionContext) throws ItemStreamException {
+		if (delegate instanceof ItemStream) {
+			((ItemStream) delegate).update(executionContext);
+		}
+	}
+
+	@Override
+	public void close() throws ItemStreamException {
+		if (delegate instanceof ItemStream) {
+			((ItemStream) delegate).close();
+		}
+	}
+
+	@Override
+	public void write(Chunk<? extends KeyValue<byte[]>> chunk) throws Exception {
+		Chunk<KeyValue<byte[]>> smallChunk = new Chunk<>();
+		for (KeyValue<byte[]> item : chunk) {
+			if (isBigKey(item)) {
+				lane.submit(item);
+			} else {
+				smallChunk.add(item);
+			}
+		}
+		if (!smallChunk.isEmpty()) {
+			delegate.write(smallChunk);
+		}
+	}
+
+}
@@ -0,0 +1,246 @@
+package com.redis.riot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.unit.DataSize;
+
+import com.redis.riot.core.RiotException;
+import com.redis.spring.batch.item.redis.common.BatchUtils;
+import com.redis.spring.batch.item.redis.common.KeyValue;
+
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.StatefulConnection;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.api.sync.RedisClusterCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
+
+/**
+ * Copies big keys with {@link BigKeyCopier} on its own threads and connections,
+ * separately from the chunks of regular keys, so that a chunk holding a big key
+ * is not stalled until that key has been copied.
+ * <p>
+ * Keys are queued up to a bounded capacity, beyond which submitting blocks.
+ * Each thread has its own queue and its own source and target connections, and
+ * a given key is always copied by the same thread: a key submitted again (e.g.
+ * returned twice by SCAN or updated again in live mode) is copied after the
+ * previous copy completes, never concurrently with it. With 0 threads keys are
+ * copied by the submitting thread, one at a time. This lane must be registered as a
+ * listener of the steps that submit keys so that pending copies are drained
+ * before each step completes: any copy error then fails the step.
+ */
+public class BigKeyLane implements StepExecutionListener, AutoCloseable {
+
+	public static final int DEFAULT_THREADS = 1;
+	public static final int DEFAULT_QUEUE_CAPACITY = 100;
+
+	private final AbstractRedisClient sourceClient;
+	private final AbstractRedisClient targetClient;
+	private final Function<byte[], String> keyToString = BatchUtils.toStringKeyFunction(ByteArrayCodec.INSTANCE);
+	private final AtomicReference<Throwable> failure = new AtomicReference<>();
+	private final Object lock = new Object();
+	private final Logger log;
+
+	private int threads = DEFAULT_THREADS;
+	private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+	private int pageSize = BigKeyCopier.DEFAULT_PAGE_SIZE;
+
+	private final List<StatefulConnection<byte[], byte[]>> connections = new ArrayList<>();
+	private BigKeyCopier[] copiers;
+	private Semaphore permits;
+	private ExecutorService[] executors;
+	private int inFlight;
+
+	public BigKeyLane(AbstractRedisClient sourceClient, AbstractRedisClient targetClient, Logger log) {
+		this.sourceClient = sourceClient;
+		this.targetClient = targetClient;
+		this.log = log;
+	}
+
+	private synchronized void open() {
+		if (copiers != null) {
+			return;
+		}
+		copiers = new BigKeyCopier[Math.max(threads, 1)];
+		for (int index = 0; index < copiers.length; index++) {
+			copiers[index] = new BigKeyCopier(commands(connect(sourceClient)), commands(connect(targetClient)));
+			copiers[index].setPageSize(pageSize);
+		}
+		if (threads > 0) {
+			permits = new Semaphore(threads + queueCapacity);
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("big-key-lane-");
+			executors = new ExecutorService[threads];
+			for (int index = 0; index < threads; index++) {
+				executors[index] = Executors.newSingleThreadExecutor(threadFactory);
+			}
+		}
+	}
+
+	private StatefulConnection<byte[], byte[]> connect(AbstractRedisClient client) {
+		StatefulConnection<byte[], byte[]> connection;
+		if (client instanceof RedisClusterClient) {
+			connection = ((RedisClusterClient) client).connect(ByteArrayCodec.INSTANCE);
+		} else {
+			connection = ((RedisClient) client).connect(ByteArrayCodec.INSTANCE);
+		}
+		connections.add(connection);
+		return connection;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static RedisClusterCommands<byte[], byte[]> commands(StatefulConnection<byte[], byte[]> connection) {
+		if (connection instanceof StatefulRedisClusterConnection) {
+			return ((StatefulRedisClusterConnection<byte[], byte[]>) connection).sync();
+		}
+		return ((StatefulRedisConnection<byte[], byte[]>) connection).sync();
+	}
+
+	/**
+	 * Copies the given key, asynchronously unless the lane has no threads.
+	 *
+	 * @param item key read without its value, with its type and TTL
+	 * @throws InterruptedException if interrupted while waiting for room in the
+	 *                              queue
+	 */
+	public void submit(KeyValue<byte[]> item) throws InterruptedException {
+		checkFailure();
+		open();
+		String key = keyToString.apply(item.getKey());
+		if (!BigKeyCopier.isSupported(item.getType())) {
+			log.warn("Skipping {} {}: type cannot be copied incrementally", item.getType(), key);
+			return;
+		}
+		// same key, same copier: copies of a key never overlap
+		int index = Math.floorMod(Arrays.hashCode(item.getKey()), copiers.length);
+		if (executors == null) {
+			copy(copiers[index], item, key);
+			return;
+		}
+		permits.acquire();
+		synchronized (lock) {
+			inFlight++;
+		}
+		executors[index].execute(() -> {
+			try {
+				if (failure.get() == null) {
+					copy(copiers[index], item, key);
+				}
+			} catch (Exception e) {
+				failure.compareAndSet(null, e);
+			} finally {
+				permits.release();
+				done();
+			}
+		});
+	}
+
+	private void copy(BigKeyCopier copier, KeyValue<byte[]> item, String key) {
+		// only contended by submitting threads when the lane has no threads
+		synchronized (copier) {
+			log.info("Copying {} ({}) incrementally", key, DataSize.ofBytes(item.getMemoryUsage()));
+			long count = copier.copy(item.getKey());
+			log.info("Copied {} ({} elements)", key, count);
+		}
+	}
+
+	private void checkFailure() {
+		Throwable throwable = failure.get();
+		if (throwable != null) {
+			throw new RiotException("Big key copy failed", throwable);
+		}
+	}
+
+	private void done() {
+		synchronized (lock) {
+			inFlight--;
+			lock.notifyAll();
+		}
+	}
+
+	private void drain() {
+		synchronized (lock) {
+			while (inFlight > 0) {
+				try {
+					lock.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	@Override
+	public ExitStatus afterStep(StepExecution stepExecution) {
+		drain();
+		Throwable throwable = failure.get();
+		if (throwable == null) {
+			return stepExecution.getExitStatus();
+		}
+		stepExecution.addFailureException(throwable);
+		stepExecution.upgradeStatus(BatchStatus.FAILED);
+		return ExitStatus.FAILED.addExitDescription(throwable);
+	}
+
+	@Override
+	public synchronized void close() {
+		if (executors != null) {
+			drain();
+			for (ExecutorService executor : executors) {
+				executor.shutdownNow();
+			}
+			try {
+				for (ExecutorService executor : executors) {
+					executor.awaitTermination(1, TimeUnit.MINUTES);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			executors = null;
+		}
+		connections.forEach(StatefulConnection::close);
+		connections.clear();
+		copiers = null;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	public void setQueueCapacity(int capacity) {
+		this.queueCapacity = capacity;
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	public void setPageSize(int pageSize) {
+		this.pageSize = pageSize;
+	}
+
+}
@@ -0,0 +1,83 @@
+package com.redis.riot;
+
+import org.springframework.util.Assert;
+
+/**
+ * Bloom filter over byte sequences, sized for a given number of entries and
+ * false positive rate. Bit positions are derived from a single 64-bit hash of
+ * each entry using double hashing.
+ */
+public class BloomFilter {
+
+	public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private final long[] bits;
+	private final long bitCount;
+	private final int hashCount;
+
+	public BloomFilter(long expectedEntries, double falsePositiveRate) {
+		Assert.isTrue(falsePositiveRate > 0 && falsePositiveRate < 1, "False positive rate must be between 0 and 1");
+		long entries = Math.max(expectedEntries, 1);
+		long optimalBits = (long) Math.ceil(-entries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+		this.bits = new long[(int) Math.min((optimalBits + 63) >>> 6, Integer.MAX_VALUE - 8)];
+		this.bitCount = (long) bits.length << 6;
+		this.hashCount = Math.max(1, (int) Math.round((double) bitCount / entries * Math.log(2)));
+	}
+
+	public void add(byte[] bytes, int offset, int length) {
+		long hash = hash(bytes, offset, length);
+		int hash1 = (int) hash;
+		int hash2 = (int) (hash >>> 32);
+		for (int index = 1; index <= hashCount; index++) {
+			long bit = ((hash1 + (long) index * hash2) & Long.MAX_VALUE) % bitCount;
+			bits[(int) (bit >>> 6)] |= 1L << bit;
+		}
+	}
+
+	/**
+	 * @return false if the given bytes were definitely not added, true if they
+	 *         probably were
+	 */
+	public boolean mightContain(byte[] bytes, int offset, int length) {
+		long hash = hash(bytes, offset, length);
+		int hash1 = (int) hash;
+		int hash2 = (int) (hash >>> 32);
+		for (int index = 1; index <= hashCount; index++) {
+			long bit = ((hash1 + (long) index * hash2) & Long.MAX_VALUE) % bitCount;
+			if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * FNV-1a followed by the MurmurHash3 finalizer so that both halves of the hash
+	 * are well mixed.
+	 */
+	private static long hash(byte[] bytes, int offset, int length) {
+		long hash = FNV_OFFSET_BASIS;
+		for (int index = offset; index < offset + length; index++) {
+			hash ^= bytes[index] & 0xff;
+			hash *= FNV_PRIME;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+	public long getBitCount() {
+		return bitCount;
+	}
+
+	public int getHashCount() {
+		return hashCount;
+	}
+
+}
@@ -0,0 +1,67 @@
+package com.redis.riot;
+
+import lombok.ToString;
+import picocli.CommandLine.Option;
+
+@ToString
+public class ChangeStreamArgs {
+
+	public static final String DEFAULT_GROUP = ChangeStreamItemReader.DEFAULT_GROUP;
+	public static final String DEFAULT_CONSUMER = ChangeStreamItemReader.DEFAULT_CONSUMER;
+	public static final String DEFAULT_KEY_FIELD = ChangeStreamItemReader.DEFAULT_KEY_FIELD;
+
+	@Option(names = "--cdc-stream", description = "Replicate keys listed in this source stream as they change, instead of listening to keyspace notifications. Stream entries are acknowledged once their keys are written.", paramLabel = "<key>")
+	private String stream;
+
+	@Option(names = "--cdc-group", description = "Consumer group used to read the change stream (default: ${DEFAULT-VALUE}).", paramLabel = "<name>")
+	private String group = DEFAULT_GROUP;
+
+	@Option(names = "--cdc-consumer", description = "Consumer name used to read the change stream (default: ${DEFAULT-VALUE}).", paramLabel = "<name>")
+	private String consumer = DEFAULT_CONSUMER;
+
+	@Option(names = "--cdc-field", description = "Change stream entry field holding the changed key (default: ${DEFAULT-VALUE}).", paramLabel = "<name>")
+	private String keyField = DEFAULT_KEY_FIELD;
+
+	public boolean isEnabled() {
+		return stream != null;
+	}
+
+	public void configure(ChangeStreamItemReader reader) {
+		reader.setGroup(group);
+		reader.setConsumer(consumer);
+		reader.setKeyField(keyField);
+	}
+
+	public String getStream() {
+		return stream;
+	}
+
+	public void setStream(String stream) {
+		this.stream = stream;
+	}
+
+	public String getGroup() {
+		return group;
+	}
+
+	public void setGroup(String group) {
+		this.group = group;
+	}
+
+	public String getConsumer() {
+		return consumer;
+	}
+
+	public void setConsumer(String consumer) {
+		this.consumer = consumer;
+	}
+
+	public String getKeyField() {
+		return keyField;
+	}
+
+	public void setKeyField(String field) {
+		this.keyField = field;
+	}
+
+}
@@ -0,0 +1,296 @@
+package com.redis.riot;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import com.redis.spring.batch.item.PollableItemReader;
+import com.redis.spring.batch.item.redis.common.KeyValue;
+
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.Consumer;
+import io.lettuce.core.RedisBusyException;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.StreamMessage;
+import io.lettuce.core.XGroupCreateArgs;
+import io.lettuce.core.XReadArgs;
+import io.lettuce.core.XReadArgs.StreamOffset;
+import io.lettuce.core.api.StatefulConnection;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.lettuce.core.cluster.api.sync.RedisClusterCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
+
+/**
+ * Live dump reader taking key changes from a Redis stream instead of keyspace
+ * notifications. Each stream entry holds the name of a changed key in a given
+ * field, and is typically added by an application, a module or a bridge
+ * listening to keyspace notifications next to the source server.
+ * <p>
+ * Entries are read with a consumer group: the type, TTL and DUMP of the keys
+ * of each batch of entries are fetched in a single pipelined round trip, keys
+ * that no longer exist being returned as records of type
+ * {@value KeyDumps#TYPE_NONE} so that writing them deletes them. Entries are
+ * only acknowledged from {@link #update(ExecutionContext)}, which Spring Batch
+ * calls after each chunk is committed, once all the keys of their batch have
+ * been read. Entries delivered but not acknowledged, e.g. because the
+ * replication stopped, are read again first when the reader is reopened with
+ * the same group and consumer, so no change is lost. Because it relies on
+ * chunks being committed in read order, this reader must be used from a single
+ * thread.
+ * <p>
+ * The consumer group is created at the start of the stream if it does not
+ * exist, so that changes recorded before the first run are replicated too.
+ */
+public class ChangeStreamItemReader extends ItemStreamSupport
+		implements ItemStreamReader<KeyValue<byte[]>>, PollableItemReader<KeyValue<byte[]>> {
+
+	public static final String DEFAULT_GROUP = "riot";
+	public static final String DEFAULT_CONSUMER = "riot";
+	public static final String DEFAULT_KEY_FIELD = "key";
+	public static final int DEFAULT_BATCH_SIZE = 50;
+
+	private static final String PENDING_OFFSET = "0";
+
+	private final AbstractRedisClient client;
+	private final byte[] stream;
+	private final Logger log;
+
+	private String group = DEFAULT_GROUP;
+	private String consumer = DEFAULT_CONSUMER;
+	private String keyField = DEFAULT_KEY_FIELD;
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	private Predicate<byte[]> keyPredicate = k -> true;
+	private long memoryLimit = KeyDumps.NO_MEMORY_LIMIT;
+
+	private StatefulConnection<byte[], byte[]> connection;
+	private RedisClusterCommands<byte[], byte[]> commands;
+	private RedisClusterAsyncCommands<byte[], byte[]> asyncCommands;
+	private String pendingOffset;
+	private final Deque<KeyValue<byte[]>> batch = new ArrayDeque<>();
+	private final List<String> batchIds = new ArrayList<>();
+	private final List<String> readIds = new ArrayList<>();
+
+	public ChangeStreamItemReader(AbstractRedisClient client, String stream, Logger log) {
+		setName(ClassUtils.getShortName(getClass()));
+		Assert.notNull(client, "Client must not be null");
+		Assert.hasLength(stream, "Stream must not be empty");
+		this.client = client;
+		this.stream = bytes(stream);
+		this.log = log;
+	}
+
+	private static byte[] bytes(String string) {
+		return string.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public synchronized void open(ExecutionContext executionContext) throws ItemStreamException {
+		if (connection != null) {
+			return;
+		}
+		if (client instanceof RedisClusterClient) {
+			StatefulRedisClusterConnection<byte[], byte[]> conn = ((RedisClusterClient) client)
+					.connect(ByteArrayCodec.INSTANCE);
+			this.connection = conn;
+			this.commands = conn.sync();
+			this.asyncCommands = conn.async();
+		} else {
+			StatefulRedisConnection<byte[], byte[]> conn = ((RedisClient) client).connect(ByteArrayCodec.INSTANCE);
+			this.connection = conn;
+			this.commands = conn.sync();
+			this.asyncCommands = conn.async();
+		}
+		try {
+			commands.xgroupCreate(StreamOffset.from(stream, PENDING_OFFSET), bytes(group),
+					XGroupCreateArgs.Builder.mkstream());
+			log.info("Created consumer group {} on stream {}", group, new String(stream, StandardCharsets.UTF_8));
+		} catch (RedisBusyException e) {
+			// group already exists: resume where it left off
+		}
+		pendingOffset = PENDING_OFFSET;
+	}
+
+	@Override
+	public KeyValue<byte[]> read() throws Exception {
+		return poll(0, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @param timeout how long to wait for new stream entries if there is no item
+	 *                left to return
+	 * @return next key, or null if no key changed within the timeout
+	 */
+	@Override
+	public synchronized KeyValue<byte[]> poll(long timeout, TimeUnit unit) throws InterruptedException {
+		if (batch.isEmpty()) {
+			readIds.addAll(batchIds);
+			batchIds.clear();
+			readBatch(unit.toMillis(timeout));
+		}
+		return batch.poll();
+	}
+
+	private void readBatch(long timeoutMillis) throws InterruptedException {
+		List<StreamMessage<byte[], byte[]>> messages = messages(timeoutMillis);
+		Set<ByteBuffer> keys = new LinkedHashSet<>();
+		byte[] field = bytes(keyField);
+		for (StreamMessage<byte[], byte[]> message : messages) {
+			batchIds.add(message.getId());
+			byte[] key = value(message, field);
+			if (key == null) {
+				log.warn("Ignoring stream entry {} without field {}", message.getId(), keyField);
+			} else if (keyPredicate.test(key)) {
+				keys.add(ByteBuffer.wrap(key));
+			}
+		}
+		if (keys.isEmpty()) {
+			return;
+		}
+		List<byte[]> keyList = new ArrayList<>(keys.size());
+		keys.forEach(k -> keyList.add(k.array()));
+		Duration commandTimeout = connection.getTimeout();
+		try {
+			batch.addAll(KeyDumps.read(asyncCommands, commandTimeout, keyList, true, memoryLimit));
+		} catch (InterruptedException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new ItemStreamException("Could not read changed keys", e);
+		}
+	}
+
+	private List<StreamMessage<byte[], byte[]>> messages(long timeoutMillis) {
+		Consumer<byte[]> groupConsumer = Consumer.from(bytes(group), bytes(consumer));
+		XReadArgs args = XReadArgs.Builder.count(batchSize);
+		if (pendingOffset != null) {
+			// entries delivered to this consumer in a previous run but never acknowledged
+			List<StreamMessage<byte[], byte[]>> messages = commands.xreadgroup(groupConsumer, args,
+					StreamOffset.from(stream, pendingOffset));
+			if (!messages.isEmpty()) {
+				pendingOffset = messages.get(messages.size() - 1).getId();
+				return messages;
+			}
+			pendingOffset = null;
+		}
+		if (timeoutMillis > 0) {
+			args.block(timeoutMillis);
+		}
+		return commands.xreadgroup(groupConsumer, args, StreamOffset.lastConsumed(stream));
+	}
+
+	private static byte[] value(StreamMessage<byte[], byte[]> message, byte[] field) {
+		for (Map.Entry<byte[], byte[]> entry : message.getBody().entrySet()) {
+			if (Arrays.equals(entry.getKey(), field)) {
+				return entry.getValue();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Acknowledges the entries whose keys have all been read, and therefore
+	 * written since Spring Batch calls this method after each chunk is committed.
+	 */
+	@Override
+	public synchronized void update(ExecutionContext executionContext) throws ItemStreamException {
+		if (batch.isEmpty()) {
+			readIds.addAll(batchIds);
+			batchIds.clear();
+		}
+		if (!readIds.isEmpty()) {
+			commands.xack(stream, bytes(group), readIds.toArray(new String[0]));
+			readIds.clear();
+		}
+	}
+
+	/**
+	 * Deliberately does not acknowledge entries: on failure keys may have been
+	 * read that were never written. Unacknowledged entries are read again when
+	 * the reader is reopened.
+	 */
+	@Override
+	public synchronized void close() throws ItemStreamException {
+		if (connection != null) {
+			connection.close();
+			connection = null;
+			commands = null;
+			asyncCommands = null;
+		}
+		batch.clear();
+		batchIds.clear();
+		readIds.clear();
+	}
+
+	public String getGroup() {
+		return group;
+	}
+
+	public void setGroup(String group) {
+		this.group = group;
+	}
+
+	public String getConsumer() {
+		return consumer;
+	}
+
+	public void setConsumer(String consumer) {
+		this.consumer = consumer;
+	}
+
+	public String getKeyField() {
+		return keyField;
+	}
+
+	public void setKeyField(String field) {
+		this.keyField = field;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	public Predicate<byte[]> getKeyPredicate() {
+		return keyPredicate;
+	}
+
+	public void setKeyPredicate(Predicate<byte[]> keyPredicate) {
+		this.keyPredicate = keyPredicate;
+	}
+
+	public long getMemoryLimit() {
+		return memoryLimit;
+	}
+
+	/**
+	 * @param limit max memory usage in bytes for a key to be dumped. Keys above
+	 *              the limit are read without their value.
+	 */
+	public void setMemoryLimit(long limit) {
+		this.memoryLimit = limit;
+	}
+
+}
@@ -0,0 +1,63 @@
+package com.redis.riot;
+
+import java.nio.file.Path;
+
+import com.redis.riot.core.RiotDuration;
+
+import lombok.ToString;
+import picocli.CommandLine.Option;
+
+@ToString
+public class CheckpointArgs {
+
+	public static final RiotDuration DEFAULT_INTERVAL = RiotDuration.ofSeconds(1);
+
+	@Option(names = "--checkpoint-file", description = "Save the replication position to this file so that it can be resumed after a failure.", paramLabel = "<file>")
+	private Path file;
+
+	@Option(names = "--checkpoint-key", description = "Save the replication position to this hash in the target database so that it can be resumed after a failure.", paramLabel = "<key>")
+	private String key;
+
+	@Option(names = "--checkpoint-interval", description = "Min interval between checkpoint saves (default: ${DEFAULT-VALUE}).", paramLabel = "<dur>")
+	private RiotDuration interval = DEFAULT_INTERVAL;
+
+	@Option(names = "--resume", description = "Resume replication from the last checkpoint instead of starting over.")
+	private boolean resume;
+
+	public boolean isEnabled() {
+		return file != null || key != null;
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	public void setFile(Path file) {
+		this.file = file;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public void setKey(String key) {
+		this.key = key;
+	}
+
+	public RiotDuration getInterval() {
+		return interval;
+	}
+
+	public void setInterval(RiotDuration interval) {
+		this.interval = interval;
+	}
+
+	public boolean isResume() {
+		return resume;
+	}
+
+	public void setResume(boolean resume) {
+		this.resume = resume;
+	}
+
+}
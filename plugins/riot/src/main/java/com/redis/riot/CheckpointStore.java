@@ -0,0 +1,25 @@
+package com.redis.riot;
+
+import java.util.Map;
+
+/**
+ * Durable store for replication checkpoints, i.e. the position of each source
+ * node scan, keyed by node.
+ */
+public interface CheckpointStore extends AutoCloseable {
+
+	/**
+	 * @return last saved checkpoint, or an empty map if none
+	 */
+	Map<String, String> load();
+
+	void save(Map<String, String> checkpoint);
+
+	void clear();
+
+	@Override
+	default void close() {
+		// do nothing
+	}
+
+}
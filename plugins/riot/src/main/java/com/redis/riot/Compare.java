@@ -14,6 +14,9 @@ public class Compare extends AbstractCompareCommand {
 	@Option(names = "--quick", description = "Skip value comparison.")
 	private boolean quick;
 
+	@Option(names = "--digest", description = "Compare value digests computed on each server instead of transferring values.")
+	private boolean digest;
+
 	@Override
 	protected boolean isStruct() {
 		return true;
@@ -24,6 +27,11 @@ public class Compare extends AbstractCompareCommand {
 		return quick;
 	}
 
+	@Override
+	protected boolean isDigestCompare() {
+		return digest;
+	}
+
 	@Override
 	protected boolean isIgnoreStreamMessageId() {
 		return !compareStreamMessageId;
@@ -34,6 +42,14 @@ public class Compare extends AbstractCompareCommand {
 		return job(compareStep());
 	}
 
+	public boolean isDigest() {
+		return digest;
+	}
+
+	public void setDigest(boolean digest) {
+		this.digest = digest;
+	}
+
 	public boolean isCompareStreamMessageId() {
 		return compareStreamMessageId;
 	}
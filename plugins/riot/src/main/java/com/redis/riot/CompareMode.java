@@ -1,5 +1,5 @@
 package com.redis.riot;
 
 public enum CompareMode {
-	FULL, QUICK, NONE
+	FULL, QUICK, DIGEST, NONE
 }
\ No newline at end of file
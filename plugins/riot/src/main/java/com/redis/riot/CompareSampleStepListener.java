@@ -0,0 +1,53 @@
+package com.redis.riot;
+
+import org.slf4j.Logger;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+
+import com.redis.spring.batch.item.redis.reader.KeyComparison.Status;
+import com.redis.spring.batch.item.redis.reader.KeyComparisonStat;
+import com.redis.spring.batch.item.redis.reader.KeyComparisonStats;
+
+/**
+ * Reports how representative a sampled verification is: the mismatch rate
+ * observed in the sample, an upper bound of the mismatch rate of the whole
+ * keyspace at 95% confidence, and the corresponding number of keys.
+ */
+public class CompareSampleStepListener implements StepExecutionListener {
+
+	private final KeySampler<?> sampler;
+	private final KeyComparisonStats stats;
+	private final Logger log;
+
+	public CompareSampleStepListener(KeySampler<?> sampler, KeyComparisonStats stats, Logger log) {
+		this.sampler = sampler;
+		this.stats = stats;
+		this.log = log;
+	}
+
+	@Override
+	public ExitStatus afterStep(StepExecution stepExecution) {
+		long compared = 0;
+		long mismatches = 0;
+		for (KeyComparisonStat stat : stats.allStats()) {
+			compared += stat.getCount();
+			if (stat.getStatus() != Status.OK) {
+				mismatches += stat.getCount();
+			}
+		}
+		long scanned = sampler.getTested();
+		double rate = compared == 0 ? 0 : (double) mismatches / compared;
+		double upperBound = KeySampler.upperBound(mismatches, compared, KeySampler.Z_95);
+		log.info("Verified a sample of {} out of {} keys ({}%): {} mismatches", compared, scanned,
+				percent(sampler.getFraction()), mismatches);
+		log.info("Estimated mismatch rate: {}% (at most {}% with 95% confidence, i.e. up to {} keys)", percent(rate),
+				percent(upperBound), Math.round(Math.ceil(upperBound * scanned)));
+		return stepExecution.getExitStatus();
+	}
+
+	private static String percent(double fraction) {
+		return String.format("%.4g", fraction * 100);
+	}
+
+}
@@ -0,0 +1,139 @@
+package com.redis.riot;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import com.redis.spring.batch.item.redis.common.KeyValue;
+
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.StatefulConnection;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
+
+/**
+ * Dump reader for the keys listed in a diff file written by
+ * {@link DiffFileWriter}. Keys are read from the source in batches, each batch
+ * in a single pipelined round trip. Keys that no longer exist in the source are
+ * returned as records of type {@value KeyDumps#TYPE_NONE} so that writing them
+ * deletes them from the target.
+ */
+public class DiffFileItemReader extends ItemStreamSupport implements ItemStreamReader<KeyValue<byte[]>> {
+
+	public static final int DEFAULT_BATCH_SIZE = 50;
+
+	private final AbstractRedisClient client;
+	private final Path file;
+
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
+	private BufferedReader reader;
+	private StatefulConnection<byte[], byte[]> connection;
+	private RedisClusterAsyncCommands<byte[], byte[]> commands;
+	private final Deque<KeyValue<byte[]>> batch = new ArrayDeque<>();
+
+	public DiffFileItemReader(AbstractRedisClient client, Path file) {
+		setName(ClassUtils.getShortName(getClass()));
+		Assert.notNull(client, "Client must not be null");
+		Assert.notNull(file, "File must not be null");
+		this.client = client;
+		this.file = file;
+	}
+
+	@Override
+	public synchronized void open(ExecutionContext executionContext) throws ItemStreamException {
+		if (reader != null) {
+			return;
+		}
+		try {
+			reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new ItemStreamException("Could not open diff file " + file, e);
+		}
+		if (client instanceof RedisClusterClient) {
+			StatefulRedisClusterConnection<byte[], byte[]> conn = ((RedisClusterClient) client)
+					.connect(ByteArrayCodec.INSTANCE);
+			this.connection = conn;
+			this.commands = conn.async();
+		} else {
+			StatefulRedisConnection<byte[], byte[]> conn = ((RedisClient) client).connect(ByteArrayCodec.INSTANCE);
+			this.connection = conn;
+			this.commands = conn.async();
+		}
+	}
+
+	@Override
+	public synchronized KeyValue<byte[]> read() throws Exception {
+		while (batch.isEmpty()) {
+			List<byte[]> keys = new ArrayList<>(batchSize);
+			String line;
+			while (keys.size() < batchSize && (line = reader.readLine()) != null) {
+				if (StringUtils.hasText(line)) {
+					keys.add(DiffFileWriter.key(line));
+				}
+			}
+			if (keys.isEmpty()) {
+				return null;
+			}
+			batch.addAll(KeyDumps.read(commands, connection.getTimeout(), keys, true));
+		}
+		return batch.poll();
+	}
+
+	@Override
+	public synchronized void close() throws ItemStreamException {
+		if (reader != null) {
+			try {
+				reader.close();
+			} catch (IOException e) {
+				throw new ItemStreamException("Could not close diff file " + file, e);
+			}
+			reader = null;
+		}
+		if (connection != null) {
+			connection.close();
+			connection = null;
+			commands = null;
+		}
+		batch.clear();
+	}
+
+	/**
+	 * @return number of keys in the diff file
+	 */
+	public long size() {
+		try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+			return lines.filter(StringUtils::hasText).count();
+		} catch (IOException e) {
+			return -1;
+		}
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+}
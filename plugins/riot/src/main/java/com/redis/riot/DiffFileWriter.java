@@ -0,0 +1,97 @@
+package com.redis.riot;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+
+import com.redis.spring.batch.item.redis.reader.KeyComparison;
+import com.redis.spring.batch.item.redis.reader.KeyComparison.Status;
+import com.redis.spring.batch.item.redis.reader.KeyComparisonListener;
+
+/**
+ * Writes the keys of key comparison mismatches to a diff file, one line per key
+ * made of the comparison status and the Base64-encoded key, e.g.
+ * {@code VALUE Zm9vOjE=}. Keys are encoded so that binary keys survive the
+ * round trip. The file is truncated when the step starts and can then be
+ * replayed with {@code replicate --keys-from} (see {@link DiffFileItemReader}).
+ */
+public class DiffFileWriter implements KeyComparisonListener<byte[]>, StepExecutionListener {
+
+	public static final char SEPARATOR = ' ';
+
+	private final Path file;
+
+	private BufferedWriter writer;
+	private long count;
+
+	public DiffFileWriter(Path file) {
+		this.file = file;
+	}
+
+	@Override
+	public synchronized void beforeStep(StepExecution stepExecution) {
+		try {
+			writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not open diff file " + file, e);
+		}
+		count = 0;
+	}
+
+	@Override
+	public synchronized void comparison(KeyComparison<byte[]> comparison) {
+		if (comparison.getStatus() == Status.OK || writer == null) {
+			return;
+		}
+		try {
+			writer.write(comparison.getStatus().name());
+			writer.write(SEPARATOR);
+			writer.write(Base64.getEncoder().encodeToString(comparison.getSource().getKey()));
+			writer.newLine();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not write to diff file " + file, e);
+		}
+		count++;
+	}
+
+	@Override
+	public synchronized ExitStatus afterStep(StepExecution stepExecution) {
+		if (writer != null) {
+			try {
+				writer.close();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not close diff file " + file, e);
+			}
+			writer = null;
+		}
+		return null;
+	}
+
+	/**
+	 * @param line line of a diff file
+	 * @return key of the given line
+	 */
+	public static byte[] key(String line) {
+		return Base64.getDecoder().decode(line.substring(line.indexOf(SEPARATOR) + 1).trim());
+	}
+
+	/**
+	 * @return number of keys written
+	 */
+	public synchronized long getCount() {
+		return count;
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+}
@@ -0,0 +1,200 @@
+package com.redis.riot;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import com.redis.spring.batch.item.redis.common.KeyValue;
+
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.RedisNoScriptException;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.api.StatefulConnection;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisScriptingAsyncCommands;
+import io.lettuce.core.api.sync.RedisScriptingCommands;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.codec.ByteArrayCodec;
+
+/**
+ * Computes value digests of each chunk of keys on both the source and the
+ * target with a Lua script, before handing the chunk to the delegate
+ * comparison writer. Digests are stored in {@link KeyDigests} for
+ * {@link DigestKeyComparator} to compare, so that values are compared without
+ * being transferred.
+ * <p>
+ * The script is sent once with {@code SCRIPT LOAD} and then called with
+ * {@code EVALSHA}, one call per key pipelined over the whole chunk. Each call
+ * reads at most about {@link IncrementalDigest#getBudget()} elements, and big
+ * keys are then digested over as many calls as needed (see
+ * {@link IncrementalDigest}). If a server lost its script cache (e.g. after a
+ * restart or failover) the script is loaded again and the chunk retried once.
+ */
+public class DigestItemWriter extends ItemStreamSupport implements ItemStreamWriter<KeyValue<byte[]>> {
+
+	private final Side source;
+	private final Side target;
+	private final ItemWriter<KeyValue<byte[]>> delegate;
+	private final KeyDigests digests;
+	private final byte[] script;
+
+	private IncrementalDigest incrementalDigest = new IncrementalDigest();
+
+	public DigestItemWriter(AbstractRedisClient sourceClient, AbstractRedisClient targetClient, KeyDigests digests,
+			ItemWriter<KeyValue<byte[]>> delegate) {
+		setName(ClassUtils.getShortName(getClass()));
+		Assert.notNull(delegate, "Delegate must not be null");
+		this.source = new Side(sourceClient);
+		this.target = new Side(targetClient);
+		this.digests = digests;
+		this.delegate = delegate;
+		this.script = LuaScripts.script(LuaScripts.DIGEST_FUNCTION, LuaScripts.DIGEST);
+	}
+
+	@Override
+	public synchronized void open(ExecutionContext executionContext) throws ItemStreamException {
+		source.open(script);
+		target.open(script);
+		if (delegate instanceof ItemStream) {
+			((ItemStream) delegate).open(executionContext);
+		}
+	}
+
+	@Override
+	public void update(ExecutionContext executionContext) throws ItemStreamException {
+		if (delegate instanceof ItemStream) {
+			((ItemStream) delegate).update(executionContext);
+		}
+	}
+
+	@Override
+	public synchronized void close() throws ItemStreamException {
+		if (delegate instanceof ItemStream) {
+			((ItemStream) delegate).close();
+		}
+		source.close();
+		target.close();
+	}
+
+	@Override
+	public void write(Chunk<? extends KeyValue<byte[]>> chunk) throws Exception {
+		List<byte[]> keys = new ArrayList<>(chunk.size());
+		for (KeyValue<byte[]> item : chunk) {
+			keys.add(item.getKey());
+		}
+		List<byte[]> sourceDigests = digests(source, keys);
+		List<byte[]> targetDigests = digests(target, keys);
+		for (int index = 0; index < keys.size(); index++) {
+			digests.put(keys.get(index), sourceDigests.get(index), targetDigests.get(index));
+		}
+		try {
+			delegate.write(chunk);
+		} finally {
+			keys.forEach(digests::remove);
+		}
+	}
+
+	private List<byte[]> digests(Side side, List<byte[]> keys) throws Exception {
+		try {
+			return side.digests(keys, incrementalDigest);
+		} catch (RedisNoScriptException e) {
+			side.load(script);
+			return side.digests(keys, incrementalDigest);
+		}
+	}
+
+	public IncrementalDigest getIncrementalDigest() {
+		return incrementalDigest;
+	}
+
+	public void setIncrementalDigest(IncrementalDigest incrementalDigest) {
+		this.incrementalDigest = incrementalDigest;
+	}
+
+	private static class Side {
+
+		private final AbstractRedisClient client;
+		private StatefulConnection<byte[], byte[]> connection;
+		private RedisScriptingCommands<byte[], byte[]> sync;
+		private RedisScriptingAsyncCommands<byte[], byte[]> async;
+		private String sha;
+
+		public Side(AbstractRedisClient client) {
+			this.client = client;
+		}
+
+		public void open(byte[] script) {
+			if (connection == null) {
+				if (client instanceof RedisClusterClient) {
+					StatefulRedisClusterConnection<byte[], byte[]> conn = ((RedisClusterClient) client)
+							.connect(ByteArrayCodec.INSTANCE);
+					this.connection = conn;
+					this.sync = conn.sync();
+					this.async = conn.async();
+				} else {
+					StatefulRedisConnection<byte[], byte[]> conn = ((RedisClient) client)
+							.connect(ByteArrayCodec.INSTANCE);
+					this.connection = conn;
+					this.sync = conn.sync();
+					this.async = conn.async();
+				}
+				load(script);
+			}
+		}
+
+		public void load(byte[] script) {
+			sha = sync.scriptLoad(script);
+		}
+
+		public List<byte[]> digests(List<byte[]> keys, IncrementalDigest incrementalDigest) throws Exception {
+			byte[][] args = incrementalDigest.args();
+			List<RedisFuture<List<Object>>> futures = new ArrayList<>(keys.size());
+			for (byte[] key : keys) {
+				futures.add(async.evalsha(sha, ScriptOutputType.MULTI, new byte[][] { key }, args));
+			}
+			Duration timeout = connection.getTimeout();
+			if (!LettuceFutures.awaitAll(timeout, futures.toArray(new RedisFuture[0]))) {
+				throw new RedisCommandTimeoutException(
+						String.format("Digest of %,d keys timed out after %s", keys.size(), timeout));
+			}
+			List<byte[]> digests = new ArrayList<>(keys.size());
+			for (int index = 0; index < keys.size(); index++) {
+				try {
+					// big keys are finished one call at a time
+					digests.add(incrementalDigest.digest(sync, sha, keys.get(index), futures.get(index).get()));
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof RedisNoScriptException) {
+						throw (RedisNoScriptException) e.getCause();
+					}
+					throw e;
+				}
+			}
+			return digests;
+		}
+
+		public void close() {
+			if (connection != null) {
+				connection.close();
+				connection = null;
+			}
+		}
+
+	}
+
+}
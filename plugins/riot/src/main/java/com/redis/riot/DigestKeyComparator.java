@@ -0,0 +1,45 @@
+package com.redis.riot;
+
+import java.util.Objects;
+
+import com.redis.spring.batch.item.redis.common.KeyValue;
+import com.redis.spring.batch.item.redis.reader.KeyComparator;
+import com.redis.spring.batch.item.redis.reader.KeyComparison;
+
+/**
+ * Key comparator comparing value digests computed server-side by
+ * {@link DigestItemWriter} instead of the values themselves. Existence, type and
+ * TTL are compared by the delegate comparator as usual. When both keys exist
+ * with the same type their digests are compared as string values, so that a
+ * digest mismatch is reported as a value mismatch.
+ */
+public class DigestKeyComparator implements KeyComparator<byte[]> {
+
+	private final KeyComparator<byte[]> delegate;
+	private final KeyDigests digests;
+
+	public DigestKeyComparator(KeyComparator<byte[]> delegate, KeyDigests digests) {
+		this.delegate = delegate;
+		this.digests = digests;
+	}
+
+	@Override
+	public KeyComparison<byte[]> compare(KeyValue<byte[]> source, KeyValue<byte[]> target) {
+		if (source == null || target == null || !KeyValue.exists(source) || !KeyValue.exists(target)
+				|| !Objects.equals(source.getType(), target.getType())) {
+			return delegate.compare(source, target);
+		}
+		String type = source.getType();
+		source.setValue(digests.source(source.getKey()));
+		target.setValue(digests.target(target.getKey()));
+		source.setType(KeyValue.TYPE_STRING);
+		target.setType(KeyValue.TYPE_STRING);
+		try {
+			return delegate.compare(source, target);
+		} finally {
+			source.setType(type);
+			target.setType(type);
+		}
+	}
+
+}
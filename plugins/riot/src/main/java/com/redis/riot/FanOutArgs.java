@@ -0,0 +1,39 @@
+package com.redis.riot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.lettuce.core.RedisURI;
+import lombok.ToString;
+import picocli.CommandLine.Option;
+
+@ToString
+public class FanOutArgs {
+
+	@Option(names = "--fan-out", description = "Additional target server URI to replicate to concurrently, from the same source scan. Can be repeated. Additional targets are connected to with the target options.", paramLabel = "<uri>")
+	private List<RedisURI> uris = new ArrayList<>();
+
+	@Option(names = "--fan-out-detach", description = "Stop writing to an additional target that fails instead of failing the replication.")
+	private boolean detach;
+
+	public boolean isEnabled() {
+		return !uris.isEmpty();
+	}
+
+	public List<RedisURI> getUris() {
+		return uris;
+	}
+
+	public void setUris(List<RedisURI> uris) {
+		this.uris = uris;
+	}
+
+	public boolean isDetach() {
+		return detach;
+	}
+
+	public void setDetach(boolean detach) {
+		this.detach = detach;
+	}
+
+}
@@ -0,0 +1,233 @@
+package com.redis.riot;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import com.redis.riot.core.JobMetrics;
+
+/**
+ * Writes each chunk to several targets concurrently, so that a single source
+ * scan or notification stream feeds all of them. A chunk is complete once all
+ * targets have written it.
+ * <p>
+ * The first target is the primary one: an error writing to it always fails the
+ * chunk. An error writing to another target fails the chunk too unless
+ * detaching is enabled, in which case that target stops receiving chunks for
+ * the rest of the replication and the remaining targets carry on.
+ */
+public class FanOutItemWriter<T> extends ItemStreamSupport implements ItemStreamWriter<T>, StepExecutionListener {
+
+	private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private final List<Target<T>> targets = new ArrayList<>();
+	private final Logger log;
+
+	private boolean detach;
+
+	private ExecutorService executor;
+
+	public FanOutItemWriter(Logger log) {
+		setName(ClassUtils.getShortName(getClass()));
+		this.log = log;
+	}
+
+	/**
+	 * @param name   name of the target used in logs, status and metrics
+	 * @param writer writer for that target
+	 */
+	public void addTarget(String name, ItemWriter<T> writer) {
+		Assert.notNull(writer, "Writer must not be null");
+		targets.add(new Target<>(name, writer));
+	}
+
+	public List<Target<T>> getTargets() {
+		return targets;
+	}
+
+	@Override
+	public synchronized void open(ExecutionContext executionContext) throws ItemStreamException {
+		Assert.notEmpty(targets, "No target");
+		for (Target<T> target : targets) {
+			if (target.writer instanceof ItemStream) {
+				((ItemStream) target.writer).open(executionContext);
+			}
+		}
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(targets.size(), new CustomizableThreadFactory("fan-out-"));
+		}
+	}
+
+	@Override
+	public void update(ExecutionContext executionContext) throws ItemStreamException {
+		for (Target<T> target : targets) {
+			if (target.writer instanceof ItemStream) {
+				((ItemStream) target.writer).update(executionContext);
+			}
+		}
+	}
+
+	@Override
+	public synchronized void close() throws ItemStreamException {
+		if (executor != null) {
+			executor.shutdown();
+			executor = null;
+		}
+		for (Target<T> target : targets) {
+			if (target.writer instanceof ItemStream) {
+				((ItemStream) target.writer).close();
+			}
+		}
+	}
+
+	@Override
+	public void write(Chunk<? extends T> chunk) throws Exception {
+		Map<Target<T>, Future<?>> futures = new LinkedHashMap<>();
+		for (Target<T> target : targets) {
+			if (!target.isDetached()) {
+				futures.put(target, executor.submit(() -> {
+					target.write(chunk);
+					return null;
+				}));
+			}
+		}
+		Exception exception = null;
+		for (Map.Entry<Target<T>, Future<?>> entry : futures.entrySet()) {
+			Target<T> target = entry.getKey();
+			try {
+				entry.getValue().get();
+			} catch (ExecutionException e) {
+				Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+				if (detach && target != targets.get(0)) {
+					log.error("Detaching target {} after write error", target.name, cause);
+					target.detached = true;
+				} else if (exception == null) {
+					exception = cause;
+				}
+			}
+		}
+		if (exception != null) {
+			throw exception;
+		}
+	}
+
+	@Override
+	public ExitStatus afterStep(StepExecution stepExecution) {
+		for (Target<T> target : targets) {
+			if (target.isDetached()) {
+				log.warn("Target {} was detached after {} keys", target.name, target.getCount());
+			} else {
+				log.info("Target {}: {} keys written", target.name, target.getCount());
+			}
+		}
+		return null;
+	}
+
+	public String statusMessage() {
+		return targets.stream().map(Target::statusMessage).collect(Collectors.joining(" | "));
+	}
+
+	public void register(JobMetrics metrics, Map<String, String> labels) {
+		for (Target<T> target : targets) {
+			Map<String, String> targetLabels = new LinkedHashMap<>(labels);
+			targetLabels.put("target", target.name);
+			metrics.counter("riot_fanout_written_keys_total", "Keys written to the target.", targetLabels,
+					target::getCount);
+			metrics.gauge("riot_fanout_write_seconds", "Time taken by the target to write the last chunk.",
+					targetLabels, () -> target.getLatencyNanos() / NANOS_PER_SECOND);
+			metrics.gauge("riot_fanout_lag_seconds",
+					"Time since the last successful write to the target, while it is detached.", targetLabels,
+					() -> target.getLagNanos() / NANOS_PER_SECOND);
+		}
+	}
+
+	public boolean isDetach() {
+		return detach;
+	}
+
+	public void setDetach(boolean detach) {
+		this.detach = detach;
+	}
+
+	public static class Target<T> {
+
+		private final String name;
+		private final ItemWriter<T> writer;
+		private final AtomicLong count = new AtomicLong();
+		private volatile long latencyNanos;
+		private volatile long lastWriteNanos = System.nanoTime();
+		private volatile boolean detached;
+
+		private Target(String name, ItemWriter<T> writer) {
+			this.name = name;
+			this.writer = writer;
+		}
+
+		private void write(Chunk<? extends T> chunk) throws Exception {
+			long start = System.nanoTime();
+			writer.write(chunk);
+			long end = System.nanoTime();
+			latencyNanos = end - start;
+			lastWriteNanos = end;
+			count.addAndGet(chunk.size());
+		}
+
+		private String statusMessage() {
+			if (detached) {
+				return String.format("%s detached, %ds behind", name, TimeUnit.NANOSECONDS.toSeconds(getLagNanos()));
+			}
+			return String.format("%s %dms", name, TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getCount() {
+			return count.get();
+		}
+
+		/**
+		 * @return time taken to write the last chunk
+		 */
+		public long getLatencyNanos() {
+			return latencyNanos;
+		}
+
+		/**
+		 * @return time since the last successful write if detached, 0 otherwise
+		 */
+		public long getLagNanos() {
+			return detached ? System.nanoTime() - lastWriteNanos : 0;
+		}
+
+		public boolean isDetached() {
+			return detached;
+		}
+
+	}
+
+}
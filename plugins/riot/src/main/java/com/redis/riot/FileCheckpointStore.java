@@ -0,0 +1,72 @@
+package com.redis.riot;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Checkpoint store backed by a local properties file. The file is written to a
+ * temporary sibling then moved into place so a crash never leaves a partial
+ * checkpoint behind.
+ */
+public class FileCheckpointStore implements CheckpointStore {
+
+	private final Path file;
+
+	public FileCheckpointStore(Path file) {
+		this.file = file;
+	}
+
+	@Override
+	public Map<String, String> load() {
+		Map<String, String> checkpoint = new LinkedHashMap<>();
+		if (Files.exists(file)) {
+			Properties properties = new Properties();
+			try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+				properties.load(reader);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not read checkpoint file " + file, e);
+			}
+			properties.stringPropertyNames().forEach(name -> checkpoint.put(name, properties.getProperty(name)));
+		}
+		return checkpoint;
+	}
+
+	@Override
+	public void save(Map<String, String> checkpoint) {
+		Properties properties = new Properties();
+		properties.putAll(checkpoint);
+		Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+		try {
+			try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+				properties.store(writer, "RIOT replication checkpoint");
+			}
+			Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not write checkpoint file " + file, e);
+		}
+	}
+
+	@Override
+	public void clear() {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not delete checkpoint file " + file, e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "file " + file;
+	}
+
+}
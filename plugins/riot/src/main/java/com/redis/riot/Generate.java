@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.batch.core.Job;
+import org.springframework.batch.item.ItemWriter;
 import org.springframework.util.StringUtils;
 
 import com.redis.lettucemod.search.CreateOptions;
@@ -14,6 +15,7 @@ import com.redis.spring.batch.item.redis.common.KeyValue;
 import com.redis.spring.batch.item.redis.gen.GeneratorItemReader;
 import com.redis.spring.batch.item.redis.gen.ItemType;
 
+import io.lettuce.core.cluster.SlotHash;
 import picocli.CommandLine.ArgGroup;
 import picocli.CommandLine.Command;
 
@@ -39,12 +41,12 @@ public class Generate extends AbstractRedisCommand {
 		return job(step);
 	}
 
-	private RedisItemWriter<String, String, KeyValue<String>> writer() {
+	private ItemWriter<KeyValue<String>> writer() {
 		RedisItemWriter<String, String, KeyValue<String>> writer = RedisItemWriter.struct();
 		configure(writer);
 		log.info("Configuring Redis writer with {}", redisWriterArgs);
 		redisWriterArgs.configure(writer);
-		return writer;
+		return redisWriterArgs.nodeWriter(getRedisContext().getClient(), writer, t -> SlotHash.getSlot(t.getKey()));
 	}
 
 	private CreateOptions<String, String> indexCreateOptions() {
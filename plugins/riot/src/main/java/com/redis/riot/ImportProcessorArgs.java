@@ -2,6 +2,8 @@ package com.redis.riot;
 
 import java.util.Map;
 
+import org.springframework.expression.spel.SpelCompilerMode;
+
 import com.redis.riot.core.Expression;
 
 import lombok.ToString;
@@ -10,12 +12,17 @@ import picocli.CommandLine.Option;
 @ToString
 public class ImportProcessorArgs {
 
+	public static final SpelCompilerMode DEFAULT_COMPILER_MODE = SpelCompilerMode.OFF;
+
 	@Option(arity = "1..*", names = "--proc", description = "SpEL expressions in the form field1=\"exp\" field2=\"exp\" etc. For details see https://docs.spring.io/spring-framework/reference/core/expressions.html", paramLabel = "<f=exp>")
 	private Map<String, Expression> expressions;
 
 	@Option(names = "--filter", description = "Discard records using a SpEL expression.", paramLabel = "<exp>")
 	private Expression filter;
 
+	@Option(names = "--spel-compiler", description = "SpEL compiler mode for --proc and --filter expressions: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE}).", paramLabel = "<mode>")
+	private SpelCompilerMode compilerMode = DEFAULT_COMPILER_MODE;
+
 	public Map<String, Expression> getExpressions() {
 		return expressions;
 	}
@@ -32,4 +39,12 @@ public class ImportProcessorArgs {
 		this.filter = filter;
 	}
 
+	public SpelCompilerMode getCompilerMode() {
+		return compilerMode;
+	}
+
+	public void setCompilerMode(SpelCompilerMode mode) {
+		this.compilerMode = mode;
+	}
+
 }
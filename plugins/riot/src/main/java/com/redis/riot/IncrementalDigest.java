@@ -0,0 +1,140 @@
+package com.redis.riot;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.util.unit.DataSize;
+
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.api.sync.RedisScriptingCommands;
+
+/**
+ * Finishes key digests started by the digest Lua scripts. To keep each script
+ * call short, the scripts only digest about {@link #getBudget()} elements per
+ * call and return the keys they could not finish along with a cursor and
+ * state, from which {@link #digest(RedisScriptingCommands, String, byte[], List)}
+ * continues them one call at a time. Keys that cannot be read in ranges (e.g.
+ * JSON documents) and use more than {@link #getMaxMemory()} are skipped: they
+ * are given a random digest so that they are always reported as differing.
+ * <p>
+ * A key modified between two calls, including a hash or set whose SCAN returns
+ * an element twice, may be reported as differing, which is harmless for
+ * reconciliation.
+ */
+public class IncrementalDigest {
+
+	public static final long DEFAULT_BUDGET = 10000;
+	public static final DataSize DEFAULT_MAX_MEMORY = DataSize.ofMegabytes(1);
+
+	public static final String NONE = "none";
+	public static final String DONE = "done";
+	public static final String MORE = "more";
+	public static final String SKIP = "skip";
+
+	private static final byte[] STREAM_IDS = bytes("0");
+	private static final byte[] NO_STREAM_IDS = bytes("1");
+	private static final byte[] EMPTY = new byte[0];
+
+	private long budget = DEFAULT_BUDGET;
+	private DataSize maxMemory = DEFAULT_MAX_MEMORY;
+	private boolean ignoreStreamMessageId;
+
+	private static byte[] bytes(String string) {
+		return string.getBytes(StandardCharsets.UTF_8);
+	}
+
+	public static String string(Object reply) {
+		return new String((byte[]) reply, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return arguments shared by the digest scripts: stream ids, budget and max
+	 *         memory
+	 */
+	public byte[][] options() {
+		return new byte[][] { ignoreStreamMessageId ? NO_STREAM_IDS : STREAM_IDS, bytes(String.valueOf(budget)),
+				bytes(String.valueOf(maxMemory.toBytes())) };
+	}
+
+	/**
+	 * @return arguments of a first call of the digest script for a single key
+	 */
+	public byte[][] args() {
+		return args(EMPTY, EMPTY);
+	}
+
+	private byte[][] args(byte[] cursor, byte[] state) {
+		byte[][] options = options();
+		byte[][] args = Arrays.copyOf(options, options.length + 2);
+		args[options.length] = cursor;
+		args[options.length + 1] = state;
+		return args;
+	}
+
+	/**
+	 * @return digest of a key that was skipped, different from any other
+	 */
+	public static byte[] skipped() {
+		return bytes(SKIP + ":" + UUID.randomUUID());
+	}
+
+	/**
+	 * @param commands commands of the server holding the key
+	 * @param sha      SHA1 of the loaded digest script
+	 * @param key      key to digest
+	 * @param reply    reply of the previous call of the digest script: kind
+	 *                 followed by the digest, or by the cursor and state to
+	 *                 continue from
+	 * @return digest of the key, or null if it does not exist
+	 */
+	public byte[] digest(RedisScriptingCommands<byte[], byte[]> commands, String sha, byte[] key, List<Object> reply) {
+		while (MORE.equals(string(reply.get(0)))) {
+			reply = commands.evalsha(sha, ScriptOutputType.MULTI, new byte[][] { key },
+					args((byte[]) reply.get(1), (byte[]) reply.get(2)));
+		}
+		return digest(string(reply.get(0)), reply.size() > 1 ? (byte[]) reply.get(1) : null);
+	}
+
+	/**
+	 * @param kind   kind of a finished digest
+	 * @param digest digest returned with the kind
+	 * @return digest of the key, or null if it does not exist
+	 */
+	public static byte[] digest(String kind, byte[] digest) {
+		switch (kind) {
+		case NONE:
+			return null;
+		case DONE:
+			return digest;
+		default:
+			return skipped();
+		}
+	}
+
+	public long getBudget() {
+		return budget;
+	}
+
+	public void setBudget(long budget) {
+		this.budget = budget;
+	}
+
+	public DataSize getMaxMemory() {
+		return maxMemory;
+	}
+
+	public void setMaxMemory(DataSize maxMemory) {
+		this.maxMemory = maxMemory;
+	}
+
+	public boolean isIgnoreStreamMessageId() {
+		return ignoreStreamMessageId;
+	}
+
+	public void setIgnoreStreamMessageId(boolean ignore) {
+		this.ignoreStreamMessageId = ignore;
+	}
+
+}
@@ -0,0 +1,48 @@
+package com.redis.riot;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Source and target value digests of the keys being compared, shared between
+ * {@link DigestItemWriter} which computes them for each chunk and
+ * {@link DigestKeyComparator} which compares them.
+ */
+public class KeyDigests {
+
+	private static final int SOURCE = 0;
+	private static final int TARGET = 1;
+
+	private final Map<ByteBuffer, byte[][]> digests = new ConcurrentHashMap<>();
+
+	public void put(byte[] key, byte[] sourceDigest, byte[] targetDigest) {
+		digests.put(ByteBuffer.wrap(key), new byte[][] { sourceDigest, targetDigest });
+	}
+
+	public void remove(byte[] key) {
+		digests.remove(ByteBuffer.wrap(key));
+	}
+
+	/**
+	 * @return digest of the source value of the given key, or null if the key does
+	 *         not exist or its digest has not been computed
+	 */
+	public byte[] source(byte[] key) {
+		return get(key, SOURCE);
+	}
+
+	/**
+	 * @return digest of the target value of the given key, or null if the key does
+	 *         not exist or its digest has not been computed
+	 */
+	public byte[] target(byte[] key) {
+		return get(key, TARGET);
+	}
+
+	private byte[] get(byte[] key, int side) {
+		byte[][] keyDigests = digests.get(ByteBuffer.wrap(key));
+		return keyDigests == null ? null : keyDigests[side];
+	}
+
+}
@@ -0,0 +1,125 @@
+package com.redis.riot;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.redis.spring.batch.item.redis.common.KeyValue;
+
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+
+/**
+ * Reads keys as dump key-value records, fetching the type, TTL and DUMP of all
+ * keys in a single pipelined round trip. With a memory limit, memory usage is
+ * fetched along with types and TTLs and only keys within the limit are dumped
+ * in a second round trip: keys above the limit are returned without value and
+ * with their memory usage, like the Redis reader does with --mem-limit.
+ */
+public abstract class KeyDumps {
+
+	public static final String TYPE_NONE = "none";
+	public static final long NO_MEMORY_LIMIT = -1;
+
+	private KeyDumps() {
+	}
+
+	/**
+	 * Reads the given keys without reading their memory usage.
+	 *
+	 * @see #read(RedisClusterAsyncCommands, Duration, List, boolean, long)
+	 */
+	public static List<KeyValue<byte[]>> read(RedisClusterAsyncCommands<byte[], byte[]> commands, Duration timeout,
+			List<byte[]> keys, boolean includeMissing) throws Exception {
+		return read(commands, timeout, keys, includeMissing, NO_MEMORY_LIMIT);
+	}
+
+	/**
+	 * @param commands       commands to read keys with. In cluster mode each
+	 *                       command is routed to the node owning the key slot
+	 * @param timeout        max time to wait for all replies
+	 * @param keys           keys to read
+	 * @param includeMissing true to return a record of type
+	 *                       {@value #TYPE_NONE} for keys that do not exist, so
+	 *                       that writing it deletes the key, false to leave them
+	 *                       out
+	 * @param memoryLimit    max memory usage in bytes for a key to be dumped, 0
+	 *                       to read memory usage without limit, or
+	 *                       {@value #NO_MEMORY_LIMIT} to not read memory usage
+	 * @return key-value records in the order of the given keys
+	 */
+	public static List<KeyValue<byte[]>> read(RedisClusterAsyncCommands<byte[], byte[]> commands, Duration timeout,
+			List<byte[]> keys, boolean includeMissing, long memoryLimit) throws Exception {
+		List<RedisFuture<String>> types = new ArrayList<>(keys.size());
+		List<RedisFuture<Long>> ttls = new ArrayList<>(keys.size());
+		List<RedisFuture<Long>> memoryUsages = new ArrayList<>(keys.size());
+		List<RedisFuture<byte[]>> dumps = new ArrayList<>(keys.size());
+		for (byte[] key : keys) {
+			types.add(commands.type(key));
+			ttls.add(commands.pttl(key));
+			if (memoryLimit == NO_MEMORY_LIMIT) {
+				dumps.add(commands.dump(key));
+			} else {
+				memoryUsages.add(commands.memoryUsage(key));
+			}
+		}
+		List<RedisFuture<?>> futures = new ArrayList<>(keys.size() * 3);
+		futures.addAll(types);
+		futures.addAll(ttls);
+		futures.addAll(memoryUsages);
+		futures.addAll(dumps);
+		await(timeout, keys, futures);
+		if (memoryLimit != NO_MEMORY_LIMIT) {
+			for (int index = 0; index < keys.size(); index++) {
+				Long memoryUsage = memoryUsages.get(index).get();
+				boolean exists = !TYPE_NONE.equals(types.get(index).get());
+				boolean withinLimit = memoryLimit == 0 || memoryUsage == null || memoryUsage <= memoryLimit;
+				dumps.add(exists && withinLimit ? commands.dump(keys.get(index)) : null);
+			}
+			List<RedisFuture<?>> dumpFutures = new ArrayList<>(dumps);
+			dumpFutures.removeIf(f -> f == null);
+			await(timeout, keys, dumpFutures);
+		}
+		long now = System.currentTimeMillis();
+		List<KeyValue<byte[]>> keyValues = new ArrayList<>(keys.size());
+		for (int index = 0; index < keys.size(); index++) {
+			String type = types.get(index).get();
+			RedisFuture<byte[]> dumpFuture = dumps.get(index);
+			byte[] dump = dumpFuture == null ? null : dumpFuture.get();
+			Long memoryUsage = memoryUsages.isEmpty() ? null : memoryUsages.get(index).get();
+			boolean missing = dumpFuture == null ? memoryUsage == null : dump == null;
+			KeyValue<byte[]> keyValue = new KeyValue<>();
+			keyValue.setKey(keys.get(index));
+			keyValue.setTimestamp(now);
+			if (TYPE_NONE.equals(type) || missing) {
+				// key deleted or expired since it was listed
+				if (includeMissing) {
+					keyValue.setType(TYPE_NONE);
+					keyValues.add(keyValue);
+				}
+				continue;
+			}
+			keyValue.setType(type);
+			long pttl = ttls.get(index).get();
+			keyValue.setTtl(pttl > 0 ? now + pttl : KeyValue.TTL_NONE);
+			if (memoryUsage != null) {
+				keyValue.setMemoryUsage(memoryUsage);
+			}
+			if (dump != null) {
+				keyValue.setValue(dump);
+			}
+			keyValues.add(keyValue);
+		}
+		return keyValues;
+	}
+
+	private static void await(Duration timeout, List<byte[]> keys, List<RedisFuture<?>> futures) {
+		if (!LettuceFutures.awaitAll(timeout, futures.toArray(new RedisFuture[0]))) {
+			throw new RedisCommandTimeoutException(
+					String.format("Reading %,d keys timed out after %s", keys.size(), timeout));
+		}
+	}
+
+}
@@ -0,0 +1,100 @@
+package com.redis.riot;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemProcessor;
+
+import com.redis.spring.batch.item.redis.reader.KeyEvent;
+
+/**
+ * Coalesces keyspace notifications for the same key in live mode, so that a
+ * key updated many times before its value is read from the source is only read
+ * and written once.
+ * <p>
+ * A key is pending from its first event until the source reader starts reading
+ * the values of the chunk holding it. Further events for a pending key are
+ * dropped: since they were received before the value is read, that read
+ * reflects them. Events received after the read has started are kept, so the
+ * final state of each key is always replicated. Deletion events are never
+ * dropped, so that they reach the target in order with other events of the same
+ * key. At most {@code capacity} keys are pending at once: beyond that events
+ * are not coalesced.
+ * <p>
+ * Must wrap the key event processor of the source reader with
+ * {@link #processor(ItemProcessor)} and be added as an item write listener of
+ * that reader.
+ */
+public class KeyEventCoalescer<K> implements ItemWriteListener<KeyEvent<K>> {
+
+	public static final int DEFAULT_CAPACITY = 100000;
+
+	private static final Set<String> DELETE_EVENTS = Set.of("del", "unlink", "expired", "evicted");
+
+	private final Map<Object, Boolean> pendingKeys = new ConcurrentHashMap<>();
+	private final LongAdder coalesced = new LongAdder();
+
+	private int capacity = DEFAULT_CAPACITY;
+
+	/**
+	 * @return processor delegating to the given one (if any) and dropping events
+	 *         for pending keys
+	 */
+	public ItemProcessor<KeyEvent<K>, KeyEvent<K>> processor(ItemProcessor<KeyEvent<K>, KeyEvent<K>> delegate) {
+		return item -> {
+			KeyEvent<K> result = delegate == null ? item : delegate.process(item);
+			if (result == null) {
+				return null;
+			}
+			boolean pending = pendingKeys.size() < capacity
+					&& pendingKeys.putIfAbsent(key(result.getKey()), Boolean.TRUE) != null;
+			if (pending && !DELETE_EVENTS.contains(result.getEvent())) {
+				coalesced.increment();
+				return null;
+			}
+			return result;
+		};
+	}
+
+	@Override
+	public void beforeWrite(Chunk<? extends KeyEvent<K>> items) {
+		for (KeyEvent<K> item : items) {
+			pendingKeys.remove(key(item.getKey()));
+		}
+	}
+
+	private static Object key(Object key) {
+		if (key instanceof byte[]) {
+			return ByteBuffer.wrap((byte[]) key);
+		}
+		return key;
+	}
+
+	/**
+	 * @return number of events dropped because their key was pending
+	 */
+	public long getCount() {
+		return coalesced.sum();
+	}
+
+	/**
+	 * @return number of keys currently pending
+	 */
+	public int getPendingCount() {
+		return pendingKeys.size();
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public void setCapacity(int capacity) {
+		this.capacity = capacity;
+	}
+
+}
@@ -1,6 +1,10 @@
 package com.redis.riot;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
 import java.util.function.IntPredicate;
@@ -8,6 +12,7 @@ import java.util.function.Predicate;
 
 import org.springframework.util.CollectionUtils;
 
+import com.redis.riot.core.RiotException;
 import com.redis.spring.batch.item.redis.common.BatchUtils;
 import com.redis.spring.batch.item.redis.common.Range;
 
@@ -28,6 +33,15 @@ public class KeyFilterArgs {
 	@Option(names = "--key-slot", arity = "1..*", description = "Ranges of key slots to consider for processing. For example '0-8000' will only consider keys that fall within the range 0 to 8000.", paramLabel = "<range>")
 	private List<Range> slots;
 
+	@Option(names = "--key-include-file", description = "File listing keys to consider, one per line. Combined with --key-include patterns, keys matching either are considered.", paramLabel = "<file>")
+	private Path includeFile;
+
+	@Option(names = "--key-exclude-file", description = "File listing keys to exclude, one per line.", paramLabel = "<file>")
+	private Path excludeFile;
+
+	@ToString.Exclude
+	private final Map<Path, KeySet> keySets = new HashMap<>();
+
 	public <K> Optional<Predicate<K>> predicate(RedisCodec<K, ?> codec) {
 		Optional<Predicate<K>> slotsPredicate = slotsPredicate(codec);
 		Optional<Predicate<K>> globPredicate = globPredicate(codec);
@@ -41,25 +55,57 @@ public class KeyFilterArgs {
 	}
 
 	private <K> Optional<Predicate<K>> globPredicate(RedisCodec<K, ?> codec) {
-		Optional<Predicate<String>> stringPredicate = globPredicate();
 		Function<K, String> toString = BatchUtils.toStringKeyFunction(codec);
-		return stringPredicate.map(p -> encodePredicate(p, toString));
+		Optional<Predicate<K>> includePredicate = or(globPredicate(includes).map(p -> encodePredicate(p, toString)),
+				filePredicate(codec, includeFile));
+		Optional<Predicate<K>> excludePredicate = or(globPredicate(excludes).map(p -> encodePredicate(p, toString)),
+				filePredicate(codec, excludeFile)).map(Predicate::negate);
+		if (includePredicate.isPresent()) {
+			if (excludePredicate.isPresent()) {
+				return Optional.of(includePredicate.get().and(excludePredicate.get()));
+			}
+			return includePredicate;
+		}
+		return excludePredicate;
 	}
 
 	private <K> Predicate<K> encodePredicate(Predicate<String> predicate, Function<K, String> toString) {
 		return k -> predicate.test(toString.apply(k));
 	}
 
-	private Optional<Predicate<String>> globPredicate() {
-		Optional<Predicate<String>> includePredicate = globPredicate(includes);
-		Optional<Predicate<String>> excludePredicate = globPredicate(excludes).map(Predicate::negate);
-		if (includePredicate.isPresent()) {
-			if (excludePredicate.isPresent()) {
-				return Optional.of(includePredicate.get().and(excludePredicate.get()));
+	private static <K> Optional<Predicate<K>> or(Optional<Predicate<K>> predicate, Optional<Predicate<K>> other) {
+		if (predicate.isPresent()) {
+			if (other.isPresent()) {
+				return Optional.of(predicate.get().or(other.get()));
 			}
-			return includePredicate;
+			return predicate;
 		}
-		return excludePredicate;
+		return other;
+	}
+
+	/**
+	 * Keys are looked up as bytes, without String conversion.
+	 */
+	private <K> Optional<Predicate<K>> filePredicate(RedisCodec<K, ?> codec, Path file) {
+		if (file == null) {
+			return Optional.empty();
+		}
+		KeySet keySet = keySet(file);
+		return Optional
+				.of(k -> k instanceof byte[] ? keySet.contains((byte[]) k) : keySet.contains(codec.encodeKey(k)));
+	}
+
+	/**
+	 * Key files are loaded once, as predicates are created for each reader.
+	 */
+	private synchronized KeySet keySet(Path file) {
+		return keySets.computeIfAbsent(file, f -> {
+			try {
+				return KeySet.load(f);
+			} catch (IOException e) {
+				throw new RiotException("Could not load keys from " + f, e);
+			}
+		});
 	}
 
 	private Optional<Predicate<String>> globPredicate(List<String> patterns) {
@@ -105,6 +151,22 @@ public class KeyFilterArgs {
 		this.excludes = excludes;
 	}
 
+	public Path getIncludeFile() {
+		return includeFile;
+	}
+
+	public void setIncludeFile(Path file) {
+		this.includeFile = file;
+	}
+
+	public Path getExcludeFile() {
+		return excludeFile;
+	}
+
+	public void setExcludeFile(Path file) {
+		this.excludeFile = file;
+	}
+
 	public List<Range> getSlots() {
 		return slots;
 	}
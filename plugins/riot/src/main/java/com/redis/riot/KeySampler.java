@@ -0,0 +1,111 @@
+package com.redis.riot;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import org.springframework.util.Assert;
+
+import io.lettuce.core.codec.RedisCodec;
+
+/**
+ * Key predicate selecting a deterministic pseudo-random fraction of keys, based
+ * on a hash of the key bytes. The same key is always either sampled or not,
+ * regardless of the database or run it comes from, so a sample of the source
+ * can be compared with the corresponding keys in the target.
+ */
+public class KeySampler<K> implements Predicate<K> {
+
+	/**
+	 * z-score for a two-sided 95% confidence interval.
+	 */
+	public static final double Z_95 = 1.96;
+
+	private static final double UNIT = 0x1.0p-53;
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private final RedisCodec<K, ?> codec;
+	private final double fraction;
+	private final LongAdder tested = new LongAdder();
+	private final LongAdder sampled = new LongAdder();
+
+	public KeySampler(RedisCodec<K, ?> codec, double fraction) {
+		Assert.isTrue(fraction > 0 && fraction <= 1, "Sample fraction must be in (0, 1]");
+		this.codec = codec;
+		this.fraction = fraction;
+	}
+
+	@Override
+	public boolean test(K key) {
+		tested.increment();
+		if (sample(hash(codec.encodeKey(key)))) {
+			sampled.increment();
+			return true;
+		}
+		return false;
+	}
+
+	private boolean sample(long hash) {
+		return (hash >>> 11) * UNIT < fraction;
+	}
+
+	/**
+	 * 64-bit FNV-1a hash of the given bytes, followed by a MurmurHash3 finalizer to
+	 * spread similar keys (e.g. sequential ids) uniformly.
+	 */
+	static long hash(ByteBuffer buffer) {
+		long hash = FNV_OFFSET_BASIS;
+		for (int index = buffer.position(); index < buffer.limit(); index++) {
+			hash ^= buffer.get(index) & 0xff;
+			hash *= FNV_PRIME;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+	/**
+	 * Upper bound of the Wilson score interval for a proportion, e.g. the
+	 * mismatch rate of the whole keyspace given the mismatches observed in a
+	 * sample. Unlike the normal approximation it remains meaningful when no
+	 * mismatch was observed.
+	 *
+	 * @param failures number of failures observed in the sample
+	 * @param trials   sample size
+	 * @param z        z-score of the desired confidence level
+	 * @return upper bound of the proportion of failures
+	 */
+	public static double upperBound(long failures, long trials, double z) {
+		if (trials <= 0) {
+			return 1;
+		}
+		double p = (double) failures / trials;
+		double z2 = z * z;
+		double center = p + z2 / (2 * trials);
+		double margin = z * Math.sqrt(p * (1 - p) / trials + z2 / (4.0 * trials * trials));
+		return Math.min(1, (center + margin) / (1 + z2 / trials));
+	}
+
+	public double getFraction() {
+		return fraction;
+	}
+
+	/**
+	 * @return number of keys tested by this sampler
+	 */
+	public long getTested() {
+		return tested.sum();
+	}
+
+	/**
+	 * @return number of keys selected by this sampler
+	 */
+	public long getSampled() {
+		return sampled.sum();
+	}
+
+}
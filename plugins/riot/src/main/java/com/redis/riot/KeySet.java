@@ -0,0 +1,175 @@
+package com.redis.riot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Read-only set of keys loaded from a file with one key per line, designed to
+ * hold tens of millions of keys. Keys are kept as bytes, so that lookups need
+ * no String conversion: the file content is held in a single array and keys
+ * are referenced by their offsets, sorted.
+ * <p>
+ * Lookups first check a {@link BloomFilter}, which rules out most keys that are
+ * not in the set in constant time, and confirm positives with a binary search
+ * so that there are no false positives.
+ * <p>
+ * Since the file is held in a single array, it cannot be larger than
+ * {@link #MAX_FILE_SIZE} bytes, i.e. about 20 million keys of 100 bytes.
+ */
+public class KeySet {
+
+	public static final long MAX_FILE_SIZE = Integer.MAX_VALUE - 8;
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final byte[] bytes;
+	private final int[] offsets;
+	private final int[] lengths;
+	private final int size;
+	private final BloomFilter bloomFilter;
+
+	private KeySet(byte[] bytes, int[] offsets, int[] lengths, double falsePositiveRate) {
+		this.bytes = bytes;
+		this.offsets = offsets;
+		this.lengths = lengths;
+		this.size = offsets.length;
+		sort(0, size - 1);
+		this.bloomFilter = new BloomFilter(size, falsePositiveRate);
+		for (int index = 0; index < size; index++) {
+			bloomFilter.add(bytes, offsets[index], lengths[index]);
+		}
+	}
+
+	/**
+	 * Loads keys from the given file: each line is a key, in UTF-8 or any other
+	 * encoding matching the raw bytes of the keys. Carriage returns ending lines
+	 * and empty lines are ignored.
+	 *
+	 * @throws IOException if the file cannot be read or is larger than
+	 *                     {@link #MAX_FILE_SIZE}
+	 */
+	public static KeySet load(Path file) throws IOException {
+		return load(file, BloomFilter.DEFAULT_FALSE_POSITIVE_RATE);
+	}
+
+	public static KeySet load(Path file, double falsePositiveRate) throws IOException {
+		long fileSize = Files.size(file);
+		if (fileSize > MAX_FILE_SIZE) {
+			throw new IOException(String.format("Key file %s is too large: %,d bytes (max %,d)", file, fileSize,
+					MAX_FILE_SIZE));
+		}
+		// keys are referenced in place, separated by line breaks
+		byte[] bytes = Files.readAllBytes(file);
+		int[] offsets = new int[INITIAL_CAPACITY];
+		int[] lengths = new int[INITIAL_CAPACITY];
+		int size = 0;
+		int start = 0;
+		for (int position = 0; position <= bytes.length; position++) {
+			if (position < bytes.length && bytes[position] != '\n') {
+				continue;
+			}
+			int end = position > start && bytes[position - 1] == '\r' ? position - 1 : position;
+			if (end > start) {
+				if (size == offsets.length) {
+					offsets = Arrays.copyOf(offsets, size * 2);
+					lengths = Arrays.copyOf(lengths, size * 2);
+				}
+				offsets[size] = start;
+				lengths[size] = end - start;
+				size++;
+			}
+			start = position + 1;
+		}
+		return new KeySet(bytes, Arrays.copyOf(offsets, size), Arrays.copyOf(lengths, size), falsePositiveRate);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean contains(byte[] key) {
+		return contains(key, 0, key.length);
+	}
+
+	public boolean contains(ByteBuffer key) {
+		if (key.hasArray()) {
+			return contains(key.array(), key.arrayOffset() + key.position(), key.remaining());
+		}
+		byte[] array = new byte[key.remaining()];
+		key.duplicate().get(array);
+		return contains(array);
+	}
+
+	public boolean contains(byte[] key, int offset, int length) {
+		return bloomFilter.mightContain(key, offset, length) && indexOf(key, offset, length) >= 0;
+	}
+
+	private int indexOf(byte[] key, int offset, int length) {
+		int low = 0;
+		int high = size - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int comparison = Arrays.compareUnsigned(bytes, offsets[middle], offsets[middle] + lengths[middle], key,
+					offset, offset + length);
+			if (comparison < 0) {
+				low = middle + 1;
+			} else if (comparison > 0) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -1;
+	}
+
+	private int compare(int index, int pivotOffset, int pivotLength) {
+		return Arrays.compareUnsigned(bytes, offsets[index], offsets[index] + lengths[index], bytes, pivotOffset,
+				pivotOffset + pivotLength);
+	}
+
+	private void swap(int index1, int index2) {
+		int offset = offsets[index1];
+		int length = lengths[index1];
+		offsets[index1] = offsets[index2];
+		lengths[index1] = lengths[index2];
+		offsets[index2] = offset;
+		lengths[index2] = length;
+	}
+
+	/**
+	 * In-place quicksort of key offsets and lengths, avoiding boxing and extra
+	 * arrays so that millions of keys can be sorted without allocations.
+	 */
+	private void sort(int low, int high) {
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			int pivotOffset = offsets[middle];
+			int pivotLength = lengths[middle];
+			int left = low;
+			int right = high;
+			while (left <= right) {
+				while (compare(left, pivotOffset, pivotLength) < 0) {
+					left++;
+				}
+				while (compare(right, pivotOffset, pivotLength) > 0) {
+					right--;
+				}
+				if (left <= right) {
+					swap(left++, right--);
+				}
+			}
+			// recurse into the smaller half to bound stack depth
+			if (right - low < high - left) {
+				sort(low, right);
+				low = left;
+			} else {
+				sort(left, high);
+				high = right;
+			}
+		}
+	}
+
+}
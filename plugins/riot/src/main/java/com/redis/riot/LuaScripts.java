@@ -0,0 +1,44 @@
+package com.redis.riot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+import org.springframework.util.Assert;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Loads the Lua scripts bundled with RIOT.
+ */
+public abstract class LuaScripts {
+
+	public static final String DIGEST_FUNCTION = "digest-function.lua";
+	public static final String DIGEST = "digest.lua";
+	public static final String RECONCILE = "reconcile.lua";
+
+	private LuaScripts() {
+	}
+
+	/**
+	 * Concatenates the given script resources into a single script, so that
+	 * functions shared by several scripts can be defined once.
+	 *
+	 * @param names names of the script resources, relative to this class
+	 * @return script body
+	 */
+	public static byte[] script(String... names) {
+		ByteArrayOutputStream script = new ByteArrayOutputStream();
+		for (String name : names) {
+			try (InputStream inputStream = LuaScripts.class.getResourceAsStream(name)) {
+				Assert.notNull(inputStream, "Could not find script " + name);
+				StreamUtils.copy(inputStream, script);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not read script " + name, e);
+			}
+			script.write('\n');
+		}
+		return script.toByteArray();
+	}
+
+}
@@ -0,0 +1,155 @@
+package com.redis.riot;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import com.redis.spring.batch.item.redis.common.BatchUtils;
+import com.redis.spring.batch.item.redis.common.KeyValue;
+
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.api.StatefulConnection;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisKeyAsyncCommands;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.codec.RedisCodec;
+
+/**
+ * Drops key-value records whose key is already present in the target before
+ * handing the chunk to the delegate writer, so that existing target keys are
+ * left untouched instead of being overwritten. Enabled via
+ * {@code --no-replace}.
+ * <p>
+ * Existence is checked for a whole chunk at once: one {@code EXISTS} per key is
+ * sent asynchronously on a dedicated target connection and all replies are
+ * awaited together, so a chunk costs a single round trip instead of one per
+ * key. In cluster mode the connection routes each command to the node owning
+ * the key slot, pipelining commands per node.
+ * <p>
+ * The check is best-effort and NOT atomic against concurrent writes to the
+ * target (small TOCTOU window between the check and the subsequent write). It
+ * is intended for bulk seeding into a target that is not taking concurrent
+ * writes.
+ * <p>
+ * Skipped keys are still counted as written by the step, since the step counts
+ * the items handed to its writer: the number of skipped keys is logged when the
+ * writer is closed at the end of the step.
+ */
+public class NoReplaceItemWriter<K, V> extends ItemStreamSupport implements ItemStreamWriter<KeyValue<K>> {
+
+	private final AbstractRedisClient client;
+	private final RedisCodec<K, V> codec;
+	private final ItemWriter<KeyValue<K>> delegate;
+	private final Function<K, String> keyToString;
+	private final Logger log;
+	private final LongAdder skipped = new LongAdder();
+
+	private StatefulConnection<K, V> connection;
+	private RedisKeyAsyncCommands<K, V> commands;
+
+	public NoReplaceItemWriter(AbstractRedisClient client, RedisCodec<K, V> codec, ItemWriter<KeyValue<K>> delegate,
+			Logger log) {
+		setName(ClassUtils.getShortName(getClass()));
+		Assert.notNull(delegate, "Delegate must not be null");
+		this.client = client;
+		this.codec = codec;
+		this.delegate = delegate;
+		this.keyToString = BatchUtils.toStringKeyFunction(codec);
+		this.log = log;
+	}
+
+	@Override
+	public synchronized void open(ExecutionContext executionContext) throws ItemStreamException {
+		if (connection == null) {
+			if (client instanceof RedisClusterClient) {
+				StatefulRedisClusterConnection<K, V> conn = ((RedisClusterClient) client).connect(codec);
+				this.connection = conn;
+				this.commands = conn.async();
+			} else {
+				StatefulRedisConnection<K, V> conn = ((RedisClient) client).connect(codec);
+				this.connection = conn;
+				this.commands = conn.async();
+			}
+		}
+		if (delegate instanceof ItemStream) {
+			((ItemStream) delegate).open(executionContext);
+		}
+	}
+
+	@Override
+	public void update(ExecutionContext executionContext) throws ItemStreamException {
+		if (delegate instanceof ItemStream) {
+			((ItemStream) delegate).update(executionContext);
+		}
+	}
+
+	@Override
+	public synchronized void close() throws ItemStreamException {
+		if (connection != null) {
+			log.info("Skipped {} keys already present in the target", skipped.sum());
+		}
+		if (delegate instanceof ItemStream) {
+			((ItemStream) delegate).close();
+		}
+		if (connection != null) {
+			connection.close();
+			connection = null;
+			commands = null;
+		}
+	}
+
+	@Override
+	public void write(Chunk<? extends KeyValue<K>> chunk) throws Exception {
+		List<RedisFuture<Long>> futures = new ArrayList<>(chunk.size());
+		for (KeyValue<K> item : chunk) {
+			futures.add(commands.exists(item.getKey()));
+		}
+		Duration timeout = connection.getTimeout();
+		if (!LettuceFutures.awaitAll(timeout, futures.toArray(new RedisFuture[0]))) {
+			throw new RedisCommandTimeoutException(
+					String.format("EXISTS check for %,d keys timed out after %s", futures.size(), timeout));
+		}
+		Chunk<KeyValue<K>> absentChunk = new Chunk<>();
+		int index = 0;
+		for (KeyValue<K> item : chunk) {
+			Long count = futures.get(index++).get();
+			if (count != null && count > 0) {
+				skipped.increment();
+				if (log.isDebugEnabled()) {
+					log.debug("Skipping key already present in target: {}", keyToString.apply(item.getKey()));
+				}
+			} else {
+				absentChunk.add(item);
+			}
+		}
+		if (!absentChunk.isEmpty()) {
+			delegate.write(absentChunk);
+		}
+	}
+
+	/**
+	 * @return number of keys skipped because they were present in the target
+	 */
+	public long getSkipped() {
+		return skipped.sum();
+	}
+
+}
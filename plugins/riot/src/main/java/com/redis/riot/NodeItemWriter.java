@@ -0,0 +1,172 @@
+package com.redis.riot;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.ToIntFunction;
+
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.models.partitions.Partitions;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode.NodeFlag;
+
+/**
+ * Splits each chunk by the cluster node that owns the slot of each item, and
+ * hands the resulting sub-chunks to the delegate writer concurrently. Each
+ * pipeline then only targets a single node, so that writing a chunk takes as
+ * long as the slowest node instead of the sum of all nodes.
+ * <p>
+ * Items of a node can be further split across several pipelines, each item
+ * going to a pipeline according to its slot so that writes to a given key
+ * remain in order. The delegate writer must be thread-safe and have enough
+ * connections for all pipelines, see {@link #pipelineCount()}.
+ */
+public class NodeItemWriter<T> extends ItemStreamSupport implements ItemStreamWriter<T> {
+
+	public static final int DEFAULT_NODE_PIPELINES = 1;
+
+	private static final String UNKNOWN_NODE = "";
+
+	private final RedisClusterClient client;
+	private final ToIntFunction<T> slotFunction;
+	private final ItemWriter<T> delegate;
+
+	private int nodePipelines = DEFAULT_NODE_PIPELINES;
+
+	private ExecutorService executor;
+
+	public NodeItemWriter(RedisClusterClient client, ToIntFunction<T> slotFunction, ItemWriter<T> delegate) {
+		setName(ClassUtils.getShortName(getClass()));
+		Assert.notNull(client, "Client must not be null");
+		Assert.notNull(slotFunction, "Slot function must not be null");
+		Assert.notNull(delegate, "Delegate must not be null");
+		this.client = client;
+		this.slotFunction = slotFunction;
+		this.delegate = delegate;
+	}
+
+	/**
+	 * @return number of pipelines that can be written concurrently given the
+	 *         current number of upstream nodes
+	 */
+	public int pipelineCount() {
+		return nodeCount(client) * nodePipelines;
+	}
+
+	private static int nodeCount(RedisClusterClient client) {
+		int count = 0;
+		for (RedisClusterNode node : client.getPartitions()) {
+			if (node.is(NodeFlag.UPSTREAM)) {
+				count++;
+			}
+		}
+		return Math.max(count, 1);
+	}
+
+	@Override
+	public synchronized void open(ExecutionContext executionContext) throws ItemStreamException {
+		if (delegate instanceof ItemStream) {
+			((ItemStream) delegate).open(executionContext);
+		}
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(pipelineCount(), new CustomizableThreadFactory("node-writer-"));
+		}
+	}
+
+	@Override
+	public void update(ExecutionContext executionContext) throws ItemStreamException {
+		if (delegate instanceof ItemStream) {
+			((ItemStream) delegate).update(executionContext);
+		}
+	}
+
+	@Override
+	public synchronized void close() throws ItemStreamException {
+		if (executor != null) {
+			executor.shutdown();
+			executor = null;
+		}
+		if (delegate instanceof ItemStream) {
+			((ItemStream) delegate).close();
+		}
+	}
+
+	@Override
+	public void write(Chunk<? extends T> chunk) throws Exception {
+		List<Chunk<T>> pipelines = pipelines(chunk);
+		if (pipelines.size() == 1) {
+			delegate.write(pipelines.get(0));
+			return;
+		}
+		List<Future<?>> futures = new ArrayList<>(pipelines.size());
+		for (Chunk<T> pipeline : pipelines) {
+			futures.add(executor.submit(() -> {
+				delegate.write(pipeline);
+				return null;
+			}));
+		}
+		Exception exception = null;
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (ExecutionException e) {
+				if (exception == null) {
+					exception = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+				}
+			}
+		}
+		if (exception != null) {
+			throw exception;
+		}
+	}
+
+	private List<Chunk<T>> pipelines(Chunk<? extends T> chunk) {
+		// partitions are refreshed by the client, e.g. after a MOVED redirection
+		Partitions partitions = client.getPartitions();
+		Map<String, Chunk<T>[]> nodes = new LinkedHashMap<>();
+		List<Chunk<T>> pipelines = new ArrayList<>();
+		for (T item : chunk) {
+			int slot = slotFunction.applyAsInt(item);
+			RedisClusterNode node = partitions.getPartitionBySlot(slot);
+			Chunk<T>[] nodeChunks = nodes.computeIfAbsent(node == null ? UNKNOWN_NODE : node.getNodeId(),
+					n -> newChunks());
+			int index = slot % nodePipelines;
+			if (nodeChunks[index] == null) {
+				nodeChunks[index] = new Chunk<>();
+				pipelines.add(nodeChunks[index]);
+			}
+			nodeChunks[index].add(item);
+		}
+		return pipelines;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Chunk<T>[] newChunks() {
+		return new Chunk[nodePipelines];
+	}
+
+	public int getNodePipelines() {
+		return nodePipelines;
+	}
+
+	public void setNodePipelines(int count) {
+		this.nodePipelines = count;
+	}
+
+}
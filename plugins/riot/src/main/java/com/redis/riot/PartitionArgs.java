@@ -0,0 +1,65 @@
+package com.redis.riot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.redis.spring.batch.item.redis.common.Range;
+
+import io.lettuce.core.cluster.SlotHash;
+import lombok.ToString;
+import picocli.CommandLine.Option;
+
+@ToString
+public class PartitionArgs {
+
+	public enum Strategy {
+		SLOT, NODE
+	}
+
+	public static final int DEFAULT_PARTITIONS = 1;
+	public static final Strategy DEFAULT_STRATEGY = Strategy.SLOT;
+
+	@Option(names = "--partitions", description = "Number of slot-range partitions to replicate concurrently, each with its own reader and writer (default: ${DEFAULT-VALUE}).", paramLabel = "<int>")
+	private int partitions = DEFAULT_PARTITIONS;
+
+	@Option(names = "--partition-by", description = "How to partition the source keyspace: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE}). With 'node' each source cluster master gets its own partition and --partitions is ignored.", paramLabel = "<name>")
+	private Strategy strategy = DEFAULT_STRATEGY;
+
+	public boolean isEnabled() {
+		return strategy == Strategy.NODE || partitions > 1;
+	}
+
+	/**
+	 * Splits the cluster keyspace into contiguous, non-overlapping slot ranges.
+	 *
+	 * @param count number of ranges
+	 * @return list of inclusive slot ranges covering 0 to 16383
+	 */
+	public static List<Range> slotRanges(int count) {
+		int size = Math.min(Math.max(count, 1), SlotHash.SLOT_COUNT);
+		List<Range> ranges = new ArrayList<>(size);
+		for (int index = 0; index < size; index++) {
+			int min = index * SlotHash.SLOT_COUNT / size;
+			int max = (index + 1) * SlotHash.SLOT_COUNT / size - 1;
+			ranges.add(new Range(min, max));
+		}
+		return ranges;
+	}
+
+	public int getPartitions() {
+		return partitions;
+	}
+
+	public void setPartitions(int partitions) {
+		this.partitions = partitions;
+	}
+
+	public Strategy getStrategy() {
+		return strategy;
+	}
+
+	public void setStrategy(Strategy strategy) {
+		this.strategy = strategy;
+	}
+
+}
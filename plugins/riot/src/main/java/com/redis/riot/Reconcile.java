@@ -0,0 +1,157 @@
+package com.redis.riot;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.springframework.batch.core.Job;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.util.Assert;
+import org.springframework.util.CollectionUtils;
+
+import com.redis.riot.core.Step;
+import com.redis.riot.function.KeyValueSize;
+import com.redis.spring.batch.item.redis.RedisItemReader.ReaderMode;
+import com.redis.spring.batch.item.redis.RedisItemWriter;
+import com.redis.spring.batch.item.redis.common.KeyValue;
+import com.redis.spring.batch.item.redis.common.Range;
+
+import io.lettuce.core.cluster.SlotHash;
+import io.lettuce.core.codec.ByteArrayCodec;
+import picocli.CommandLine.ArgGroup;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+@Command(name = "reconcile", description = "Repair a Redis database by only replicating the keys that differ from another Redis database.")
+public class Reconcile extends AbstractCompareCommand {
+
+	public static final CompareMode DEFAULT_COMPARE_MODE = CompareMode.QUICK;
+	public static final long DEFAULT_DIGEST_COUNT = SlotDigestScanner.DEFAULT_SCAN_COUNT;
+
+	private static final String RECONCILE_TASK_NAME = "Reconciling";
+	private static final String COMPARE_STEP_NAME = "compare";
+
+	@ArgGroup(exclusive = false)
+	private RedisWriterArgs targetRedisWriterArgs = new RedisWriterArgs();
+
+	@Option(names = "--digest-count", description = "Number of keys digested by each server-side script call (default: ${DEFAULT-VALUE}).", paramLabel = "<int>")
+	private long digestCount = DEFAULT_DIGEST_COUNT;
+
+	@Option(names = "--compare", description = "Compare mode used to verify reconciled slots: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE}).", paramLabel = "<mode>")
+	private CompareMode compareMode = DEFAULT_COMPARE_MODE;
+
+	private ReconcileItemReader reader;
+
+	@Override
+	protected boolean isStruct() {
+		return false;
+	}
+
+	@Override
+	protected boolean isQuickCompare() {
+		return compareMode == CompareMode.QUICK;
+	}
+
+	@Override
+	protected boolean isDigestCompare() {
+		return compareMode == CompareMode.DIGEST;
+	}
+
+	@Override
+	protected Job job() {
+		List<Step<?, ?>> steps = new ArrayList<>();
+		steps.add(reconcileStep());
+		if (compareMode != CompareMode.NONE && !getJobArgs().isDryRun()) {
+			steps.add(compareStep().name(COMPARE_STEP_NAME));
+		}
+		return job(steps);
+	}
+
+	private Step<KeyValue<byte[]>, KeyValue<byte[]>> reconcileStep() {
+		Assert.isTrue(getMode() == ReaderMode.SCAN, "Reconciliation is only supported in scan mode");
+		RedisReaderArgs readerArgs = getReaderArgs();
+		reader = new ReconcileItemReader(getSourceRedisContext().getClient(), getTargetRedisContext().getClient(), log);
+		for (SlotDigestScanner scanner : List.of(reader.getSource(), reader.getTarget())) {
+			scanner.setKeyPattern(readerArgs.getKeyPattern());
+			scanner.setScanCount(digestCount);
+			scanner.getIncrementalDigest().setIgnoreStreamMessageId(isIgnoreStreamMessageId());
+		}
+		reader.setSlots(slots(readerArgs.getKeyFilterArgs().getSlots()));
+		readerArgs.getKeyFilterArgs().predicate(ByteArrayCodec.INSTANCE).ifPresent(reader::setKeyPredicate);
+		Step<KeyValue<byte[]>, KeyValue<byte[]>> step = new Step<>(reader, reconcileWriter());
+		step.itemSizeFunction(new KeyValueSize());
+		step.taskName(RECONCILE_TASK_NAME);
+		step.maxItemCountSupplier(reader::getKeyCount);
+		return step;
+	}
+
+	private static BitSet slots(List<Range> ranges) {
+		if (CollectionUtils.isEmpty(ranges)) {
+			return null;
+		}
+		BitSet slots = new BitSet(SlotHash.SLOT_COUNT);
+		for (Range range : ranges) {
+			slots.set(range.getMin(), Math.min(range.getMax(), SlotHash.SLOT_COUNT - 1) + 1);
+		}
+		return slots;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private ItemWriter<KeyValue<byte[]>> reconcileWriter() {
+		log.info("Creating Redis dump writer");
+		RedisItemWriter<byte[], byte[], KeyValue<byte[]>> writer = (RedisItemWriter) RedisItemWriter.dump();
+		configureTargetRedisWriter(writer);
+		return targetRedisWriterArgs.nodeWriter(getTargetRedisContext().getClient(), writer,
+				t -> SlotHash.getSlot(t.getKey()));
+	}
+
+	@Override
+	protected void configureTargetRedisWriter(RedisItemWriter<?, ?, ?> writer) {
+		super.configureTargetRedisWriter(writer);
+		log.info("Configuring target Redis writer with {}", targetRedisWriterArgs);
+		targetRedisWriterArgs.configure(writer);
+	}
+
+	/**
+	 * Keys are reconciled as they are, so they are compared as they are too:
+	 * --no-stream-id only leaves stream message ids out of digests and comparisons.
+	 */
+	@Override
+	protected ItemWriter<KeyValue<byte[]>> processingWriter(ItemWriter<KeyValue<byte[]>> writer) {
+		return writer;
+	}
+
+	/**
+	 * Only verifies the slots that were found to differ.
+	 */
+	@Override
+	protected Predicate<byte[]> compareKeyPredicate() {
+		return k -> reader.getDifferingSlots() != null && reader.getDifferingSlots().get(SlotHash.getSlot(k));
+	}
+
+	public RedisWriterArgs getTargetRedisWriterArgs() {
+		return targetRedisWriterArgs;
+	}
+
+	public void setTargetRedisWriterArgs(RedisWriterArgs redisWriterArgs) {
+		this.targetRedisWriterArgs = redisWriterArgs;
+	}
+
+	public long getDigestCount() {
+		return digestCount;
+	}
+
+	public void setDigestCount(long count) {
+		this.digestCount = count;
+	}
+
+	public CompareMode getCompareMode() {
+		return compareMode;
+	}
+
+	public void setCompareMode(CompareMode mode) {
+		this.compareMode = mode;
+	}
+
+}
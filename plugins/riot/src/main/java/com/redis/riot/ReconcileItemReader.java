@@ -0,0 +1,232 @@
+package com.redis.riot;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import com.redis.spring.batch.item.redis.common.KeyValue;
+
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.StatefulConnection;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
+
+/**
+ * Reads the source keys that differ from the target, as dump key-value records
+ * ready to be restored into the target.
+ * <p>
+ * Differing keys are found when the reader is opened, in two passes that only
+ * transfer digests:
+ * <ol>
+ * <li>source and target are scanned and digested per slot, and the slot
+ * digests compared top-down (see {@link SlotDigests#diff(SlotDigests)})</li>
+ * <li>the keys of the differing slots only are digested on both sides and
+ * compared</li>
+ * </ol>
+ * Keys that are missing from the target or whose value differs are then read
+ * from the source. Keys that only exist in the target are returned as records
+ * of type {@value KeyDumps#TYPE_NONE} so that writing them deletes them.
+ * <p>
+ * Keys modified while the reconciliation runs may be reported as differing,
+ * and repairing them is harmless. TTLs are not part of digests: keys whose
+ * values are equal are not repaired even if their TTLs differ.
+ */
+public class ReconcileItemReader extends ItemStreamSupport implements ItemStreamReader<KeyValue<byte[]>> {
+
+	public static final int DEFAULT_BATCH_SIZE = 50;
+
+	private final AbstractRedisClient sourceClient;
+	private final SlotDigestScanner source;
+	private final SlotDigestScanner target;
+	private final Logger log;
+
+	private BitSet slots;
+	private Predicate<byte[]> keyPredicate = k -> true;
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
+	private StatefulConnection<byte[], byte[]> connection;
+	private RedisClusterAsyncCommands<byte[], byte[]> commands;
+	private BitSet differingSlots;
+	private Deque<byte[]> differingKeys;
+	private long keyCount = -1;
+	private final Deque<KeyValue<byte[]>> batch = new ArrayDeque<>();
+
+	public ReconcileItemReader(AbstractRedisClient sourceClient, AbstractRedisClient targetClient, Logger log) {
+		setName(ClassUtils.getShortName(getClass()));
+		Assert.notNull(sourceClient, "Source client must not be null");
+		Assert.notNull(targetClient, "Target client must not be null");
+		this.sourceClient = sourceClient;
+		this.source = new SlotDigestScanner(sourceClient);
+		this.target = new SlotDigestScanner(targetClient);
+		this.log = log;
+	}
+
+	@Override
+	public synchronized void open(ExecutionContext executionContext) throws ItemStreamException {
+		if (connection != null) {
+			return;
+		}
+		if (sourceClient instanceof RedisClusterClient) {
+			StatefulRedisClusterConnection<byte[], byte[]> conn = ((RedisClusterClient) sourceClient)
+					.connect(ByteArrayCodec.INSTANCE);
+			this.connection = conn;
+			this.commands = conn.async();
+		} else {
+			StatefulRedisConnection<byte[], byte[]> conn = ((RedisClient) sourceClient)
+					.connect(ByteArrayCodec.INSTANCE);
+			this.connection = conn;
+			this.commands = conn.async();
+		}
+		source.open();
+		target.open();
+		try {
+			differingSlots = differingSlots();
+			differingKeys = differingKeys();
+		} finally {
+			source.close();
+			target.close();
+		}
+		keyCount = differingKeys.size();
+	}
+
+	private BitSet differingSlots() {
+		byte[] bitmap = slots == null ? null : SlotDigests.bitmap(slots);
+		SlotDigests sourceDigests = source.slotDigests(bitmap);
+		SlotDigests targetDigests = target.slotDigests(bitmap);
+		log.info("Digested {} source keys and {} target keys", sourceDigests.count(), targetDigests.count());
+		BitSet diff = sourceDigests.diff(targetDigests);
+		log.info("Found {} differing slots", diff.cardinality());
+		return diff;
+	}
+
+	private Deque<byte[]> differingKeys() {
+		Deque<byte[]> keys = new ArrayDeque<>();
+		if (differingSlots.isEmpty()) {
+			return keys;
+		}
+		byte[] bitmap = SlotDigests.bitmap(differingSlots);
+		Map<ByteBuffer, byte[]> sourceDigests = source.keyDigests(bitmap);
+		Map<ByteBuffer, byte[]> targetDigests = target.keyDigests(bitmap);
+		int missing = 0;
+		int changed = 0;
+		int extra = 0;
+		for (Map.Entry<ByteBuffer, byte[]> entry : sourceDigests.entrySet()) {
+			byte[] targetDigest = targetDigests.remove(entry.getKey());
+			if (targetDigest == null) {
+				missing++;
+			} else if (Arrays.equals(entry.getValue(), targetDigest)) {
+				continue;
+			} else {
+				changed++;
+			}
+			add(keys, entry.getKey());
+		}
+		for (ByteBuffer key : targetDigests.keySet()) {
+			extra++;
+			add(keys, key);
+		}
+		log.info("Found {} keys missing from target, {} changed keys, and {} extraneous target keys", missing,
+				changed, extra);
+		return keys;
+	}
+
+	private void add(Deque<byte[]> keys, ByteBuffer key) {
+		byte[] bytes = key.array();
+		if (keyPredicate.test(bytes)) {
+			keys.add(bytes);
+		}
+	}
+
+	@Override
+	public synchronized KeyValue<byte[]> read() throws Exception {
+		if (batch.isEmpty() && !differingKeys.isEmpty()) {
+			List<byte[]> keys = new ArrayList<>(batchSize);
+			while (keys.size() < batchSize && !differingKeys.isEmpty()) {
+				keys.add(differingKeys.poll());
+			}
+			Duration timeout = connection.getTimeout();
+			batch.addAll(KeyDumps.read(commands, timeout, keys, true));
+		}
+		return batch.poll();
+	}
+
+	@Override
+	public synchronized void close() throws ItemStreamException {
+		if (connection != null) {
+			connection.close();
+			connection = null;
+			commands = null;
+		}
+		batch.clear();
+	}
+
+	/**
+	 * @return slots found to differ, or null if the reader has not been opened
+	 *         yet
+	 */
+	public BitSet getDifferingSlots() {
+		return differingSlots;
+	}
+
+	/**
+	 * @return number of keys to repair, or -1 if not known yet
+	 */
+	public long getKeyCount() {
+		return keyCount;
+	}
+
+	public BitSet getSlots() {
+		return slots;
+	}
+
+	/**
+	 * @param slots slots to reconcile, or null for all slots
+	 */
+	public void setSlots(BitSet slots) {
+		this.slots = slots;
+	}
+
+	public Predicate<byte[]> getKeyPredicate() {
+		return keyPredicate;
+	}
+
+	public void setKeyPredicate(Predicate<byte[]> keyPredicate) {
+		this.keyPredicate = keyPredicate;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	public SlotDigestScanner getSource() {
+		return source;
+	}
+
+	public SlotDigestScanner getTarget() {
+		return target;
+	}
+
+}
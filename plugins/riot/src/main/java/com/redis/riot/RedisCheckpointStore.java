@@ -0,0 +1,52 @@
+package com.redis.riot;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.redis.lettucemod.RedisModulesUtils;
+import com.redis.lettucemod.api.StatefulRedisModulesConnection;
+
+import io.lettuce.core.AbstractRedisClient;
+
+/**
+ * Checkpoint store backed by a hash in a Redis database, typically the
+ * replication target, with one field per source node.
+ */
+public class RedisCheckpointStore implements CheckpointStore {
+
+	private final String key;
+	private final StatefulRedisModulesConnection<String, String> connection;
+
+	public RedisCheckpointStore(AbstractRedisClient client, String key) {
+		this.key = key;
+		this.connection = RedisModulesUtils.connection(client);
+	}
+
+	@Override
+	public Map<String, String> load() {
+		return new LinkedHashMap<>(connection.sync().hgetall(key));
+	}
+
+	@Override
+	public void save(Map<String, String> checkpoint) {
+		if (!checkpoint.isEmpty()) {
+			connection.sync().hset(key, checkpoint);
+		}
+	}
+
+	@Override
+	public void clear() {
+		connection.sync().del(key);
+	}
+
+	@Override
+	public void close() {
+		connection.close();
+	}
+
+	@Override
+	public String toString() {
+		return "Redis key " + key;
+	}
+
+}
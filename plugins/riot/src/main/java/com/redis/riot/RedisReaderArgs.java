@@ -1,6 +1,8 @@
 package com.redis.riot;
 
 import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.function.Predicate;
 
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.function.FunctionItemProcessor;
@@ -13,7 +15,6 @@ import com.redis.spring.batch.item.AbstractPollableItemReader;
 import com.redis.spring.batch.item.redis.RedisItemReader;
 import com.redis.spring.batch.item.redis.reader.KeyEvent;
 
-import io.lettuce.core.codec.RedisCodec;
 import lombok.ToString;
 import picocli.CommandLine.ArgGroup;
 import picocli.CommandLine.Option;
@@ -59,6 +60,19 @@ public class RedisReaderArgs {
 	private KeyFilterArgs keyFilterArgs = new KeyFilterArgs();
 
 	public <K> void configure(RedisItemReader<K, ?> reader) {
+		configure(reader, keyFilterArgs.predicate(reader.getCodec()));
+	}
+
+	/**
+	 * Configures the given reader, restricting keys to those matching both the key
+	 * filter options and the given predicate.
+	 */
+	public <K> void configure(RedisItemReader<K, ?> reader, Predicate<K> keyPredicate) {
+		Optional<Predicate<K>> predicate = keyFilterArgs.predicate(reader.getCodec());
+		configure(reader, Optional.of(predicate.map(p -> p.and(keyPredicate)).orElse(keyPredicate)));
+	}
+
+	private <K> void configure(RedisItemReader<K, ?> reader, Optional<Predicate<K>> keyPredicate) {
 		reader.setChunkSize(chunkSize);
 		reader.setKeyPattern(keyPattern);
 		reader.setKeyType(keyType);
@@ -68,11 +82,11 @@ public class RedisReaderArgs {
 		reader.setSkipLimit(skipLimit);
 		reader.setThreads(threads);
 		reader.setPollTimeout(pollTimeout.getValue());
-		reader.setProcessor(keyProcessor(reader.getCodec(), keyFilterArgs));
+		reader.setProcessor(keyProcessor(keyPredicate));
 	}
 
-	private <K> ItemProcessor<KeyEvent<K>, KeyEvent<K>> keyProcessor(RedisCodec<K, ?> codec, KeyFilterArgs args) {
-		return args.predicate(codec).map(p -> new FunctionPredicate<KeyEvent<K>, K>(KeyEvent::getKey, p))
+	private <K> ItemProcessor<KeyEvent<K>, KeyEvent<K>> keyProcessor(Optional<Predicate<K>> keyPredicate) {
+		return keyPredicate.map(p -> new FunctionPredicate<KeyEvent<K>, K>(KeyEvent::getKey, p))
 				.map(PredicateOperator::new).map(FunctionItemProcessor::new).orElse(null);
 	}
 
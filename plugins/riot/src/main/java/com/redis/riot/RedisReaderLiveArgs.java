@@ -10,6 +10,7 @@ import picocli.CommandLine.Option;
 public class RedisReaderLiveArgs {
 
 	public static final int DEFAULT_EVENT_QUEUE_CAPACITY = RedisItemReader.DEFAULT_EVENT_QUEUE_CAPACITY;
+	public static final int DEFAULT_COALESCE_CAPACITY = KeyEventCoalescer.DEFAULT_CAPACITY;
 	public static final RiotDuration DEFAULT_FLUSH_INTERVAL = RiotDuration.of(RedisItemReader.DEFAULT_FLUSH_INTERVAL,
 			ChronoUnit.MILLIS);
 
@@ -22,6 +23,12 @@ public class RedisReaderLiveArgs {
 	@Option(names = "--event-queue", description = "Capacity of the keyspace notification queue (default: ${DEFAULT-VALUE}).", paramLabel = "<int>")
 	private int eventQueueCapacity = DEFAULT_EVENT_QUEUE_CAPACITY;
 
+	@Option(names = "--coalesce", description = "Drop keyspace notifications for keys already waiting to be read, so that hot keys are read and written once per flush instead of once per change.")
+	private boolean coalesce;
+
+	@Option(names = "--coalesce-max", description = "Max number of keys waiting to be read tracked for coalescing (default: ${DEFAULT-VALUE}).", paramLabel = "<int>")
+	private int coalesceCapacity = DEFAULT_COALESCE_CAPACITY;
+
 	public <K> void configure(RedisItemReader<K, ?> reader) {
 		reader.setFlushInterval(flushInterval.getValue());
 		if (idleTimeout != null) {
@@ -30,6 +37,22 @@ public class RedisReaderLiveArgs {
 		reader.setEventQueueCapacity(eventQueueCapacity);
 	}
 
+	/**
+	 * Coalesces key events of the given reader if enabled.
+	 *
+	 * @return the coalescer, or null if coalescing is disabled
+	 */
+	public <K> KeyEventCoalescer<K> coalesce(RedisItemReader<K, ?> reader) {
+		if (!coalesce) {
+			return null;
+		}
+		KeyEventCoalescer<K> coalescer = new KeyEventCoalescer<>();
+		coalescer.setCapacity(coalesceCapacity);
+		reader.setProcessor(coalescer.processor(reader.getProcessor()));
+		reader.addItemWriteListener(coalescer);
+		return coalescer;
+	}
+
 	public RiotDuration getFlushInterval() {
 		return flushInterval;
 	}
@@ -53,4 +76,21 @@ public class RedisReaderLiveArgs {
 	public void setEventQueueCapacity(int capacity) {
 		this.eventQueueCapacity = capacity;
 	}
-}
\ No newline at end of file
+
+	public boolean isCoalesce() {
+		return coalesce;
+	}
+
+	public void setCoalesce(boolean coalesce) {
+		this.coalesce = coalesce;
+	}
+
+	public int getCoalesceCapacity() {
+		return coalesceCapacity;
+	}
+
+	public void setCoalesceCapacity(int capacity) {
+		this.coalesceCapacity = capacity;
+	}
+
+}
@@ -1,12 +1,18 @@
 package com.redis.riot;
 
 import java.time.temporal.ChronoUnit;
+import java.util.function.ToIntFunction;
+
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.util.Assert;
 
 import com.redis.riot.core.RiotDuration;
 import com.redis.spring.batch.item.redis.RedisItemWriter;
 import com.redis.spring.batch.item.redis.writer.KeyValueWrite;
 import com.redis.spring.batch.item.redis.writer.KeyValueWrite.WriteMode;
 
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.cluster.RedisClusterClient;
 import lombok.ToString;
 import picocli.CommandLine.Option;
 
@@ -29,6 +35,12 @@ public class RedisWriterArgs {
 	@Option(names = "--merge", description = "Merge collection data structures (hash, list, ...) instead of overwriting them. Only used in `--struct` mode.")
 	private boolean merge;
 
+	@Option(names = "--node-writes", description = "Split each chunk by cluster node and write to all nodes concurrently. Only used with a cluster target.")
+	private boolean nodeWrites;
+
+	@Option(names = "--node-pipelines", description = "Number of concurrent pipelines per cluster node with --node-writes (default: ${DEFAULT-VALUE}).", paramLabel = "<int>")
+	private int nodePipelines = NodeItemWriter.DEFAULT_NODE_PIPELINES;
+
 	public <K, V, T> void configure(RedisItemWriter<K, V, T> writer) {
 		writer.setMultiExec(multiExec);
 		writer.setWaitReplicas(waitReplicas);
@@ -38,6 +50,26 @@ public class RedisWriterArgs {
 		}
 	}
 
+	/**
+	 * @param client       client the writer is configured with
+	 * @param writer       configured writer
+	 * @param slotFunction returns the slot of each item
+	 * @return writer that splits chunks by cluster node if node writes are
+	 *         enabled and the client is a cluster client, the given writer
+	 *         otherwise
+	 */
+	public <T> ItemWriter<T> nodeWriter(AbstractRedisClient client, RedisItemWriter<?, ?, T> writer,
+			ToIntFunction<T> slotFunction) {
+		if (!nodeWrites || !(client instanceof RedisClusterClient)) {
+			return writer;
+		}
+		Assert.isTrue(nodePipelines > 0, "--node-pipelines must be greater than 0");
+		NodeItemWriter<T> nodeWriter = new NodeItemWriter<>((RedisClusterClient) client, slotFunction, writer);
+		nodeWriter.setNodePipelines(nodePipelines);
+		writer.setPoolSize(Math.max(writer.getPoolSize(), nodeWriter.pipelineCount()));
+		return nodeWriter;
+	}
+
 	public boolean isMultiExec() {
 		return multiExec;
 	}
@@ -70,4 +102,20 @@ public class RedisWriterArgs {
 		this.merge = merge;
 	}
 
+	public boolean isNodeWrites() {
+		return nodeWrites;
+	}
+
+	public void setNodeWrites(boolean nodeWrites) {
+		this.nodeWrites = nodeWrites;
+	}
+
+	public int getNodePipelines() {
+		return nodePipelines;
+	}
+
+	public void setNodePipelines(int count) {
+		this.nodePipelines = count;
+	}
+
 }
@@ -1,19 +1,35 @@
 package com.redis.riot;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import org.springframework.batch.core.Job;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.ItemWriter;
+import org.springframework.util.Assert;
 
+import com.redis.riot.core.MetricsStepListener;
 import com.redis.riot.core.RiotUtils;
 import com.redis.riot.core.Step;
+import com.redis.riot.function.KeyValueSize;
 import com.redis.riot.meesho.MCacheProcessor;
 import com.redis.spring.batch.item.redis.RedisItemReader;
+import com.redis.spring.batch.item.redis.RedisItemReader.ReaderMode;
 import com.redis.spring.batch.item.redis.RedisItemWriter;
 import com.redis.spring.batch.item.redis.common.KeyValue;
+import com.redis.spring.batch.item.redis.common.Range;
 
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.SlotHash;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode.NodeFlag;
 import io.lettuce.core.codec.ByteArrayCodec;
 import picocli.CommandLine.ArgGroup;
 import picocli.CommandLine.Command;
@@ -32,7 +48,10 @@ public class Replicate extends AbstractCompareCommand {
 	private static final String COMPARE_STEP_NAME = "compare";
 	private static final String SCAN_TASK_NAME = "Scanning";
 	private static final String LIVEONLY_TASK_NAME = "Listening";
+	private static final String DIFF_TASK_NAME = "Repairing";
 	private static final String LIVE_TASK_NAME = "Scanning/Listening";
+	private static final String PARTITION_SLOTS_PREFIX = "slots-";
+	private static final String PARTITION_NODE_PREFIX = "node-";
 
 	@Option(names = "--type", description = "Replication type: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE}).", paramLabel = "<name>")
 	private Type type = DEFAULT_TYPE;
@@ -43,11 +62,9 @@ public class Replicate extends AbstractCompareCommand {
 	@Option(names = "--log-keys", description = "Log keys being read and written.")
 	private boolean logKeys;
 
-	@Option(names = "--no-replace", description = "Skip keys already present in the target instead of overwriting them. Existence is checked per key at write time and is not atomic against concurrent writes to the target. Disables dataset verification (compare).")
+	@Option(names = "--no-replace", description = "Skip keys already present in the target instead of overwriting them. Existence is checked for each chunk in a single pipelined batch of EXISTS calls at write time and is not atomic against concurrent writes to the target. Disables dataset verification (compare).")
 	private boolean noReplace;
 
-	private NoReplaceFilter<byte[], byte[]> noReplaceFilter;
-
 	@Option(names = "--ignore-expired", description = "Do not propagate source key expirations to the target. Keys that expire (TTL) on the source are left untouched on the target; explicit deletions still propagate. Useful for long-running syncs where the target is authoritative. Disables dataset verification (compare).")
 	private boolean ignoreExpired;
 
@@ -63,6 +80,38 @@ public class Replicate extends AbstractCompareCommand {
 	@Option(names = "--compare", description = "Compare mode: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE}).", paramLabel = "<mode>")
 	private CompareMode compareMode = DEFAULT_COMPARE_MODE;
 
+	@Option(names = "--compare-written", description = "Only verify keys written by the replication instead of the whole source dataset.")
+	private boolean compareWritten;
+
+	@Option(names = "--compare-written-max", description = "Max number of written keys to record for verification (default: ${DEFAULT-VALUE}). Beyond that all keys are verified.", paramLabel = "<int>")
+	private int compareWrittenMax = WrittenKeys.DEFAULT_MAX_KEYS;
+
+	@Option(names = "--keys-from", description = "Only replicate the keys listed in this diff file, written by `compare --diff-file`.", paramLabel = "<file>")
+	private Path keysFrom;
+
+	@ArgGroup(exclusive = false)
+	private BigKeyArgs bigKeyArgs = new BigKeyArgs();
+
+	@ArgGroup(exclusive = false)
+	private PartitionArgs partitionArgs = new PartitionArgs();
+
+	@ArgGroup(exclusive = false)
+	private CheckpointArgs checkpointArgs = new CheckpointArgs();
+
+	@ArgGroup(exclusive = false)
+	private FanOutArgs fanOutArgs = new FanOutArgs();
+
+	@ArgGroup(exclusive = false)
+	private ChangeStreamArgs changeStreamArgs = new ChangeStreamArgs();
+
+	private final List<RedisContext> partitionRedisContexts = new ArrayList<>();
+
+	private final List<RedisContext> fanOutRedisContexts = new ArrayList<>();
+
+	private WrittenKeys<byte[]> writtenKeys;
+
+	private BigKeyLane bigKeyLane;
+
 	@Option(names = "--struct", description = "Enable data structure-specific replication")
 	public void setStruct(boolean enable) {
 		this.type = enable ? Type.STRUCT : Type.DUMP;
@@ -73,10 +122,55 @@ public class Replicate extends AbstractCompareCommand {
 		return compareMode == CompareMode.QUICK;
 	}
 
+	@Override
+	protected boolean isDigestCompare() {
+		return compareMode == CompareMode.DIGEST;
+	}
+
 	@Override
 	protected Job job() {
 		List<Step<?, ?>> steps = new ArrayList<>();
-		Step<KeyValue<byte[]>, KeyValue<byte[]>> step = replicateStep();
+		Assert.isTrue(getDiffFile() == null || !mcache, "--diff-file cannot be used with --mcache");
+		if ((compareWritten || keysFrom != null) && shouldCompare()) {
+			log.info("Recording up to {} written keys for verification", compareWrittenMax);
+			writtenKeys = new WrittenKeys<>(ByteArrayCodec.INSTANCE, log);
+			writtenKeys.setMaxKeys(compareWrittenMax);
+		}
+		if (bigKeyArgs.isEnabled()) {
+			bigKeyLane = bigKeyLane();
+		}
+		if (fanOutArgs.isEnabled()) {
+			fanOutRedisContexts();
+		}
+		if (changeStreamArgs.isEnabled()) {
+			Assert.isNull(keysFrom, "--cdc-stream cannot be used with --keys-from");
+			Assert.isTrue(!partitionArgs.isEnabled(), "--cdc-stream cannot be used with --partitions");
+			Assert.isTrue(!checkpointArgs.isEnabled(), "--cdc-stream cannot be used with checkpoints");
+			steps.add(changeStreamReplicateStep());
+			if (shouldCompare()) {
+				steps.add(compareStep().name(COMPARE_STEP_NAME));
+			}
+			return job(steps);
+		}
+		if (keysFrom != null) {
+			Assert.isTrue(!partitionArgs.isEnabled(), "--keys-from cannot be used with --partitions");
+			Assert.isTrue(!checkpointArgs.isEnabled(), "--keys-from cannot be used with checkpoints");
+			steps.add(diffReplicateStep());
+			if (shouldCompare()) {
+				steps.add(compareStep().name(COMPARE_STEP_NAME));
+			}
+			return job(steps);
+		}
+		if (partitionArgs.isEnabled()) {
+			Assert.isTrue(!checkpointArgs.isEnabled(), "Checkpoints cannot be used with --partitions");
+			List<Step<?, ?>> partitionSteps = partitionSteps();
+			if (shouldCompare()) {
+				steps.add(compareStep().name(COMPARE_STEP_NAME));
+			}
+			return splitJob(partitionSteps, steps);
+		}
+		Step<KeyValue<byte[]>, KeyValue<byte[]>> step = checkpointArgs.isEnabled() ? resumableReplicateStep()
+				: replicateStep();
 		steps.add(step);
 		if (shouldCompare()) {
 			steps.add(compareStep().name(COMPARE_STEP_NAME));
@@ -84,19 +178,186 @@ public class Replicate extends AbstractCompareCommand {
 		return job(steps);
 	}
 
-	@Override
-	protected void configureTargetRedisWriter(RedisItemWriter<?, ?, ?> writer) {
-		super.configureTargetRedisWriter(writer);
-		log.info("Configuring target Redis writer with {}", targetRedisWriterArgs);
-		targetRedisWriterArgs.configure(writer);
+	private List<Step<?, ?>> partitionSteps() {
+		log.info("Partitioning replication with {}", partitionArgs);
+		if (partitionArgs.getStrategy() == PartitionArgs.Strategy.NODE) {
+			return nodePartitionSteps();
+		}
+		return slotPartitionSteps();
+	}
+
+	private List<Step<?, ?>> slotPartitionSteps() {
+		List<Step<?, ?>> steps = new ArrayList<>();
+		for (Range range : PartitionArgs.slotRanges(partitionArgs.getPartitions())) {
+			RedisItemReader<byte[], byte[]> reader = reader();
+			configureSourceRedisReader(reader,
+					getReaderArgs().getKeyFilterArgs().slotRangePredicate(reader.getCodec(), range));
+			String name = PARTITION_SLOTS_PREFIX + range.getMin() + RangeConverter.SEPARATOR + range.getMax();
+			Step<KeyValue<byte[]>, KeyValue<byte[]>> step = replicateStep(reader, name);
+			LongSupplier estimator = step.getMaxItemCountSupplier();
+			int slots = range.getMax() - range.getMin() + 1;
+			step.maxItemCountSupplier(() -> scale(estimator.getAsLong(), slots));
+			steps.add(step);
+		}
+		return steps;
+	}
+
+	private static long scale(long count, int slots) {
+		if (count < 0) {
+			return count;
+		}
+		return count * slots / SlotHash.SLOT_COUNT;
+	}
+
+	private List<Step<?, ?>> nodePartitionSteps() {
+		if (!getSourceRedisContext().isCluster()) {
+			log.info("Source is not a cluster: replicating with a single partition");
+			return Collections.singletonList(replicateStep());
+		}
+		List<Step<?, ?>> steps = new ArrayList<>();
+		RedisClusterClient client = (RedisClusterClient) getSourceRedisContext().getClient();
+		for (RedisClusterNode node : client.getPartitions()) {
+			if (!node.is(NodeFlag.UPSTREAM)) {
+				continue;
+			}
+			log.info("Creating partition for source node {}", node.getUri());
+			RedisContext nodeRedisContext = RedisContext.of(node.getUri(), getSourceRedisArgs()).cluster(false)
+					.readFrom(null);
+			nodeRedisContext.afterPropertiesSet();
+			partitionRedisContexts.add(nodeRedisContext);
+			RedisItemReader<byte[], byte[]> reader = reader();
+			configureSourceRedisReader(reader);
+			nodeRedisContext.configure(reader);
+			String name = PARTITION_NODE_PREFIX + node.getUri().getHost() + ":" + node.getUri().getPort();
+			steps.add(replicateStep(reader, name));
+		}
+		return steps;
 	}
 
 	protected Step<KeyValue<byte[]>, KeyValue<byte[]>> replicateStep() {
 		RedisItemReader<byte[], byte[]> reader = reader();
 		configureSourceRedisReader(reader);
-		Step<KeyValue<byte[]>, KeyValue<byte[]>> step = new ExportStepHelper(log).step(reader, replicateWriter());
-		step.processor(filter());
-		step.taskName(taskName(reader));
+		return replicateStep(reader, null);
+	}
+
+	/**
+	 * Creates a scan replication step whose position is checkpointed so that it
+	 * can be resumed with --resume.
+	 */
+	private Step<KeyValue<byte[]>, KeyValue<byte[]>> resumableReplicateStep() {
+		Assert.isTrue(getMode() == ReaderMode.SCAN, "Checkpoints are only supported in scan mode");
+		Assert.isTrue(!isStruct(), "Checkpoints are only supported with dump replication");
+		Assert.isTrue(getJobArgs().getThreads() == 1, "Checkpoints cannot be used with --threads");
+		Assert.isTrue(!getJobArgs().getPipelineArgs().isEnabled(), "Checkpoints cannot be used with --pipeline");
+		CheckpointStore checkpointStore = checkpointStore();
+		log.info("Creating resumable scan reader with {} checkpoint store and {}", checkpointStore, checkpointArgs);
+		ResumableScanItemReader reader = new ResumableScanItemReader(getSourceRedisContext().getClient(),
+				checkpointStore);
+		reader.setResume(checkpointArgs.isResume());
+		reader.setCheckpointInterval(checkpointArgs.getInterval().getValue());
+		RedisReaderArgs readerArgs = getReaderArgs();
+		reader.setKeyPattern(readerArgs.getKeyPattern());
+		reader.setKeyType(readerArgs.getKeyType());
+		reader.setScanCount(readerArgs.getScanCount());
+		readerArgs.getKeyFilterArgs().predicate(ByteArrayCodec.INSTANCE).ifPresent(reader::setKeyPredicate);
+		if (getReaderMemoryUsageArgs().getLimit() != null) {
+			reader.setMemoryLimit(getReaderMemoryUsageArgs().getLimit().toBytes());
+		}
+		FanOutItemWriter<KeyValue<byte[]>> fanOutWriter = fanOutWriter();
+		Step<KeyValue<byte[]>, KeyValue<byte[]>> step = new Step<>(reader, replicateWriter(fanOutWriter));
+		step.processor(replicateProcessor());
+		step.itemSizeFunction(new KeyValueSize());
+		RedisItemReader<byte[], byte[]> estimatorReader = reader();
+		configureSourceRedisReader(estimatorReader);
+		step.maxItemCountSupplier(estimatorReader.scanSizeEstimator());
+		step.taskName(SCAN_TASK_NAME);
+		if (logKeys) {
+			log.info("Adding key logger");
+			step.writeListener(new ReplicateWriteLogger<>(log, ByteArrayCodec.INSTANCE));
+		}
+		configureReplicateWriter(step, fanOutWriter);
+		return step;
+	}
+
+	/**
+	 * Creates a step replicating the keys listed in the diff file given with
+	 * --keys-from.
+	 */
+	private Step<KeyValue<byte[]>, KeyValue<byte[]>> diffReplicateStep() {
+		Assert.isTrue(!isStruct(), "--keys-from is only supported with dump replication");
+		log.info("Creating diff file reader for {}", keysFrom);
+		DiffFileItemReader reader = new DiffFileItemReader(getSourceRedisContext().getClient(), keysFrom);
+		reader.setBatchSize(getJobArgs().getChunkSize());
+		FanOutItemWriter<KeyValue<byte[]>> fanOutWriter = fanOutWriter();
+		Step<KeyValue<byte[]>, KeyValue<byte[]>> step = new Step<>(reader, replicateWriter(fanOutWriter));
+		step.processor(replicateProcessor());
+		step.itemSizeFunction(new KeyValueSize());
+		step.maxItemCountSupplier(reader::size);
+		step.taskName(DIFF_TASK_NAME);
+		if (logKeys) {
+			log.info("Adding key logger");
+			step.writeListener(new ReplicateWriteLogger<>(log, ByteArrayCodec.INSTANCE));
+		}
+		configureReplicateWriter(step, fanOutWriter);
+		return step;
+	}
+
+	/**
+	 * Creates a live step replicating the keys listed in the change stream given
+	 * with --cdc-stream as they are added to it.
+	 */
+	private Step<KeyValue<byte[]>, KeyValue<byte[]>> changeStreamReplicateStep() {
+		Assert.isTrue(getMode() == ReaderMode.SCAN, "--cdc-stream cannot be used with --mode");
+		Assert.isTrue(!isStruct(), "--cdc-stream is only supported with dump replication");
+		Assert.isTrue(getJobArgs().getThreads() == 1, "--cdc-stream cannot be used with --threads");
+		Assert.isTrue(!getJobArgs().getPipelineArgs().isEnabled(), "--cdc-stream cannot be used with --pipeline");
+		log.info("Creating change stream reader with {}", changeStreamArgs);
+		ChangeStreamItemReader reader = new ChangeStreamItemReader(getSourceRedisContext().getClient(),
+				changeStreamArgs.getStream(), log);
+		changeStreamArgs.configure(reader);
+		reader.setBatchSize(getJobArgs().getChunkSize());
+		getReaderArgs().getKeyFilterArgs().predicate(ByteArrayCodec.INSTANCE).ifPresent(reader::setKeyPredicate);
+		if (getReaderMemoryUsageArgs().getLimit() != null) {
+			reader.setMemoryLimit(getReaderMemoryUsageArgs().getLimit().toBytes());
+		}
+		FanOutItemWriter<KeyValue<byte[]>> fanOutWriter = fanOutWriter();
+		Step<KeyValue<byte[]>, KeyValue<byte[]>> step = new Step<>(reader, replicateWriter(fanOutWriter));
+		step.processor(replicateProcessor());
+		step.itemSizeFunction(new KeyValueSize());
+		step.live(true);
+		step.flushInterval(getReaderLiveArgs().getFlushInterval().getValue());
+		if (getReaderLiveArgs().getIdleTimeout() != null) {
+			step.idleTimeout(getReaderLiveArgs().getIdleTimeout().getValue());
+		}
+		step.taskName(LIVEONLY_TASK_NAME);
+		if (logKeys) {
+			log.info("Adding key logger");
+			step.writeListener(new ReplicateWriteLogger<>(log, ByteArrayCodec.INSTANCE));
+		}
+		configureReplicateWriter(step, fanOutWriter);
+		return step;
+	}
+
+	private CheckpointStore checkpointStore() {
+		if (checkpointArgs.getFile() != null) {
+			return new FileCheckpointStore(checkpointArgs.getFile());
+		}
+		return new RedisCheckpointStore(getTargetRedisContext().getClient(), checkpointArgs.getKey());
+	}
+
+	private Step<KeyValue<byte[]>, KeyValue<byte[]>> replicateStep(RedisItemReader<byte[], byte[]> reader,
+			String partition) {
+		FanOutItemWriter<KeyValue<byte[]>> fanOutWriter = fanOutWriter();
+		Step<KeyValue<byte[]>, KeyValue<byte[]>> step = new ExportStepHelper(log).step(reader,
+				replicateWriter(fanOutWriter));
+		step.processor(replicateProcessor());
+		step.itemSizeFunction(new KeyValueSize());
+		if (partition == null) {
+			step.taskName(taskName(reader));
+		} else {
+			step.name(partition);
+			step.taskName(taskName(reader) + " " + partition);
+		}
 		if (logKeys) {
 			log.info("Adding key logger");
 			step.writeListener(new ReplicateWriteLogger<>(log, reader.getCodec()));
@@ -104,35 +365,192 @@ public class Replicate extends AbstractCompareCommand {
 			reader.addItemReadListener(readLogger);
 			reader.addItemWriteListener(readLogger);
 		}
+		ReplicateReaderMetrics<byte[]> readerMetrics = null;
+		ReplicationLag<byte[]> lag = null;
+		if (step.isLive() || getMetrics() != null) {
+			readerMetrics = new ReplicateReaderMetrics<>();
+			// counts keys accepted by key filters, before coalescing
+			reader.setProcessor(readerMetrics.processor(reader.getProcessor()));
+			reader.addItemWriteListener(readerMetrics);
+			if (step.isLive()) {
+				log.info("Adding replication lag tracker");
+				lag = new ReplicationLag<>(readerMetrics);
+				reader.setProcessor(lag.keyProcessor(reader.getProcessor()));
+			}
+		}
+		KeyEventCoalescer<byte[]> coalescer = null;
+		if (step.isLive()) {
+			coalescer = getReaderLiveArgs().coalesce(reader);
+			if (coalescer != null) {
+				log.info("Coalescing key events for up to {} keys", coalescer.getCapacity());
+			}
+		}
+		if (readerMetrics != null) {
+			readerMetrics.setCoalescer(coalescer);
+			Map<String, String> labels = MetricsStepListener.labels(getJobName(), stepName(step));
+			if (getMetrics() != null) {
+				readerMetrics.register(getMetrics(), labels);
+			}
+			if (lag != null) {
+				step.writeListener(lag);
+				step.processor(lag.processor(step.getProcessor()));
+				step.statusMessageSupplier(lag::statusMessage);
+				if (getMetrics() != null) {
+					lag.register(getMetrics(), labels);
+				}
+			}
+		}
+		configureReplicateWriter(step, fanOutWriter);
 		return step;
 	}
 
+	private ItemProcessor<KeyValue<byte[]>, KeyValue<byte[]>> replicateProcessor() {
+		ItemProcessor<KeyValue<byte[]>, KeyValue<byte[]>> filter = filter(!bigKeyArgs.isEnabled());
+		if (writtenKeys == null) {
+			return filter;
+		}
+		return writtenKeys.processor(filter);
+	}
+
+	@Override
+	protected Predicate<byte[]> compareKeyPredicate() {
+		return writtenKeys;
+	}
+
 	@Override
 	protected ItemProcessor<KeyValue<byte[]>, KeyValue<byte[]>> filter() {
+		return filter(true);
+	}
+
+	/**
+	 * @param skipBigKeys true to drop keys read without their value because of
+	 *                    --mem-limit, false to keep them for the big key writer
+	 */
+	private ItemProcessor<KeyValue<byte[]>, KeyValue<byte[]>> filter(boolean skipBigKeys) {
 		List<ItemProcessor<KeyValue<byte[]>, KeyValue<byte[]>>> processors = new ArrayList<>();
-		processors.add(super.filter());
+		if (skipBigKeys) {
+			processors.add(super.filter());
+		}
 		if (mcache) {
 			log.info("Enabling MCache transformation with keyPrefix='{}' alreadyHasPrefix={}", keyPrefix,
 					alreadyHasPrefix);
-			processors.add(new MCacheProcessor<>(ByteArrayCodec.INSTANCE, log, keyPrefix, alreadyHasPrefix));
+			MCacheProcessor<byte[], KeyValue<byte[]>> processor = new MCacheProcessor<>(ByteArrayCodec.INSTANCE, log,
+					keyPrefix, alreadyHasPrefix);
+			processor.setDump(!isStruct());
+			processors.add(processor);
 		}
 		if (ignoreExpired) {
 			log.info("Enabling --ignore-expired: source key expirations will not be propagated to the target");
 			processors.add(new IgnoreExpiredFilter<>(ByteArrayCodec.INSTANCE, log));
 		}
+		return RiotUtils.processor(processors);
+	}
+
+	/**
+	 * @param fanOutWriter writer to add the target writers to, or null to only
+	 *                     write to the target
+	 */
+	protected ItemWriter<KeyValue<byte[]>> replicateWriter(FanOutItemWriter<KeyValue<byte[]>> fanOutWriter) {
+		ItemWriter<KeyValue<byte[]>> writer = targetWriter(getTargetRedisContext());
+		if (fanOutWriter != null) {
+			fanOutWriter.addTarget(targetName(getTargetRedisContext()), writer);
+			for (RedisContext context : fanOutRedisContexts) {
+				fanOutWriter.addTarget(targetName(context), targetWriter(context));
+			}
+			writer = fanOutWriter;
+		}
+		if (bigKeyLane != null) {
+			writer = new BigKeyItemWriter(bigKeyLane, writer);
+		}
 		if (noReplace) {
 			log.info("Enabling --no-replace: keys already present in the target will be skipped");
-			noReplaceFilter = new NoReplaceFilter<>(getTargetRedisContext().getClient(),
-					getTargetRedisContext().isCluster(), ByteArrayCodec.INSTANCE, log);
-			processors.add(noReplaceFilter);
+			return processingWriter(
+					new NoReplaceItemWriter<>(getTargetRedisContext().getClient(), ByteArrayCodec.INSTANCE, writer, log));
 		}
-		return RiotUtils.processor(processors);
+		return processingWriter(writer);
 	}
 
-	protected ItemWriter<KeyValue<byte[]>> replicateWriter() {
+	private ItemWriter<KeyValue<byte[]>> targetWriter(RedisContext context) {
 		RedisItemWriter<byte[], byte[], KeyValue<byte[]>> writer = writer();
-		configureTargetRedisWriter(writer);
-		return processingWriter(writer);
+		context.configure(writer);
+		log.info("Configuring target Redis writer with {}", targetRedisWriterArgs);
+		targetRedisWriterArgs.configure(writer);
+		return targetRedisWriterArgs.nodeWriter(context.getClient(), writer, t -> SlotHash.getSlot(t.getKey()));
+	}
+
+	private static String targetName(RedisContext context) {
+		RedisURI uri = context.getUri();
+		String name = uri.getHost() + ":" + uri.getPort();
+		return uri.getDatabase() == 0 ? name : name + "/" + uri.getDatabase();
+	}
+
+	private void fanOutRedisContexts() {
+		Assert.isTrue(!bigKeyArgs.isEnabled(), "--fan-out cannot be used with --big-keys");
+		Assert.isTrue(!noReplace, "--fan-out cannot be used with --no-replace");
+		// checkpoints would move past keys a detached target never received
+		Assert.isTrue(!fanOutArgs.isDetach() || !checkpointArgs.isEnabled(),
+				"--fan-out-detach cannot be used with checkpoints");
+		for (RedisURI uri : fanOutArgs.getUris()) {
+			log.info("Creating fan-out Redis context with {} {}", uri, getTargetRedisArgs());
+			RedisContext context = RedisContext.of(uri, getTargetRedisArgs());
+			context.afterPropertiesSet();
+			fanOutRedisContexts.add(context);
+		}
+	}
+
+	/**
+	 * @return a new fan-out writer if additional targets were given, null
+	 *         otherwise
+	 */
+	private FanOutItemWriter<KeyValue<byte[]>> fanOutWriter() {
+		if (fanOutRedisContexts.isEmpty()) {
+			return null;
+		}
+		FanOutItemWriter<KeyValue<byte[]>> writer = new FanOutItemWriter<>(log);
+		writer.setDetach(fanOutArgs.isDetach());
+		return writer;
+	}
+
+	private BigKeyLane bigKeyLane() {
+		Assert.notNull(getReaderMemoryUsageArgs().getLimit(), "--big-keys requires --mem-limit");
+		Assert.isTrue(!mcache, "--big-keys cannot be used with --mcache");
+		Assert.isNull(getProcessorArgs().getKeyExpression(), "--big-keys cannot be used with a key expression");
+		log.info("Copying keys above {} incrementally with {}", getReaderMemoryUsageArgs().getLimit(), bigKeyArgs);
+		BigKeyLane lane = new BigKeyLane(getSourceRedisContext().getClient(), getTargetRedisContext().getClient(),
+				log);
+		lane.setPageSize(bigKeyArgs.getPageSize());
+		lane.setQueueCapacity(bigKeyArgs.getQueueCapacity());
+		if (checkpointArgs.isEnabled()) {
+			// checkpoints must only cover keys that have been written
+			log.info("Copying big keys in line with other keys since checkpoints are enabled");
+			lane.setThreads(0);
+		} else {
+			lane.setThreads(bigKeyArgs.getThreads());
+		}
+		return lane;
+	}
+
+	/**
+	 * Registers the big key lane with the given step so that big keys are copied
+	 * before the step completes, and reports the progress of each target if the
+	 * step fans out to several targets.
+	 */
+	private void configureReplicateWriter(Step<?, ?> step, FanOutItemWriter<KeyValue<byte[]>> fanOutWriter) {
+		if (bigKeyLane != null) {
+			step.executionListener(bigKeyLane);
+		}
+		if (fanOutWriter != null) {
+			step.executionListener(fanOutWriter);
+			Supplier<String> statusMessage = step.getStatusMessageSupplier();
+			step.statusMessageSupplier(() -> join(statusMessage.get(), fanOutWriter.statusMessage()));
+			if (getMetrics() != null) {
+				fanOutWriter.register(getMetrics(), MetricsStepListener.labels(getJobName(), stepName(step)));
+			}
+		}
+	}
+
+	private static String join(String message, String other) {
+		return message.isEmpty() ? other : message + " | " + other;
 	}
 
 	private boolean shouldCompare() {
@@ -141,10 +559,14 @@ public class Replicate extends AbstractCompareCommand {
 
 	@Override
 	protected void teardown() {
-		if (noReplaceFilter != null) {
-			noReplaceFilter.close();
-			noReplaceFilter = null;
+		if (bigKeyLane != null) {
+			bigKeyLane.close();
+			bigKeyLane = null;
 		}
+		partitionRedisContexts.forEach(RedisContext::close);
+		partitionRedisContexts.clear();
+		fanOutRedisContexts.forEach(RedisContext::close);
+		fanOutRedisContexts.clear();
 		super.teardown();
 	}
 
@@ -192,6 +614,54 @@ public class Replicate extends AbstractCompareCommand {
 		this.targetRedisWriterArgs = redisWriterArgs;
 	}
 
+	public boolean isCompareWritten() {
+		return compareWritten;
+	}
+
+	public void setCompareWritten(boolean compareWritten) {
+		this.compareWritten = compareWritten;
+	}
+
+	public int getCompareWrittenMax() {
+		return compareWrittenMax;
+	}
+
+	public void setCompareWrittenMax(int max) {
+		this.compareWrittenMax = max;
+	}
+
+	public Path getKeysFrom() {
+		return keysFrom;
+	}
+
+	public void setKeysFrom(Path file) {
+		this.keysFrom = file;
+	}
+
+	public CheckpointArgs getCheckpointArgs() {
+		return checkpointArgs;
+	}
+
+	public void setCheckpointArgs(CheckpointArgs checkpointArgs) {
+		this.checkpointArgs = checkpointArgs;
+	}
+
+	public ChangeStreamArgs getChangeStreamArgs() {
+		return changeStreamArgs;
+	}
+
+	public void setChangeStreamArgs(ChangeStreamArgs changeStreamArgs) {
+		this.changeStreamArgs = changeStreamArgs;
+	}
+
+	public FanOutArgs getFanOutArgs() {
+		return fanOutArgs;
+	}
+
+	public void setFanOutArgs(FanOutArgs fanOutArgs) {
+		this.fanOutArgs = fanOutArgs;
+	}
+
 	public Type getType() {
 		return type;
 	}
@@ -248,6 +718,22 @@ public class Replicate extends AbstractCompareCommand {
 		this.alreadyHasPrefix = alreadyHasPrefix;
 	}
 
+	public BigKeyArgs getBigKeyArgs() {
+		return bigKeyArgs;
+	}
+
+	public void setBigKeyArgs(BigKeyArgs args) {
+		this.bigKeyArgs = args;
+	}
+
+	public PartitionArgs getPartitionArgs() {
+		return partitionArgs;
+	}
+
+	public void setPartitionArgs(PartitionArgs partitionArgs) {
+		this.partitionArgs = partitionArgs;
+	}
+
 	public CompareMode getCompareMode() {
 		return compareMode;
 	}
@@ -0,0 +1,84 @@
+package com.redis.riot;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemProcessor;
+
+import com.redis.riot.core.JobMetrics;
+import com.redis.spring.batch.item.redis.reader.KeyEvent;
+
+/**
+ * Counts keys read by a Redis reader (from scan or keyspace notifications) and
+ * keys whose values have been fetched, exposing the difference as the number of
+ * keys pending in the reader. In live mode a growing number of pending keys
+ * means the replication is falling behind the source. Events dropped by a
+ * {@link KeyEventCoalescer} are not pending.
+ * <p>
+ * Keys are counted by wrapping the key processor of the reader with
+ * {@link #processor(ItemProcessor)}, so that keys rejected by key filters are
+ * not counted. The coalescer, if any, must wrap the resulting processor.
+ */
+public class ReplicateReaderMetrics<K> implements ItemWriteListener<KeyEvent<K>> {
+
+	private final LongAdder keys = new LongAdder();
+	private final LongAdder values = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+
+	private KeyEventCoalescer<K> coalescer;
+
+	public void register(JobMetrics metrics, Map<String, String> labels) {
+		metrics.counter("riot_reader_keys_total", "Keys read from the source.", labels, keys::sum);
+		metrics.counter("riot_reader_values_total", "Keys whose values were fetched from the source.", labels,
+				values::sum);
+		metrics.counter("riot_reader_errors_total", "Keys whose values could not be fetched from the source.",
+				labels, errors::sum);
+		metrics.gauge("riot_reader_pending_keys", "Keys read from the source and waiting for their values to be fetched.",
+				labels, this::getPendingKeys);
+		if (coalescer != null) {
+			metrics.counter("riot_reader_coalesced_total",
+					"Key events dropped because their key was already waiting for its value to be fetched.", labels,
+					coalescer::getCount);
+		}
+	}
+
+	/**
+	 * @return processor delegating to the given key processor (if any) and
+	 *         counting keys it does not filter out
+	 */
+	public ItemProcessor<KeyEvent<K>, KeyEvent<K>> processor(ItemProcessor<KeyEvent<K>, KeyEvent<K>> delegate) {
+		return item -> {
+			KeyEvent<K> result = delegate == null ? item : delegate.process(item);
+			if (result != null) {
+				keys.increment();
+			}
+			return result;
+		};
+	}
+
+	@Override
+	public void afterWrite(Chunk<? extends KeyEvent<K>> items) {
+		values.add(items.size());
+	}
+
+	@Override
+	public void onWriteError(Exception exception, Chunk<? extends KeyEvent<K>> items) {
+		errors.add(items.size());
+	}
+
+	public long getPendingKeys() {
+		long coalesced = coalescer == null ? 0 : coalescer.getCount();
+		return Math.max(0, keys.sum() - values.sum() - errors.sum() - coalesced);
+	}
+
+	public KeyEventCoalescer<K> getCoalescer() {
+		return coalescer;
+	}
+
+	public void setCoalescer(KeyEventCoalescer<K> coalescer) {
+		this.coalescer = coalescer;
+	}
+
+}
@@ -0,0 +1,207 @@
+package com.redis.riot;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemProcessor;
+
+import com.redis.riot.core.JobMetrics;
+import com.redis.spring.batch.item.redis.common.KeyValue;
+import com.redis.spring.batch.item.redis.reader.KeyEvent;
+
+/**
+ * Measures end-to-end replication lag, i.e. the time between a key event being
+ * received by the source reader (keyspace notification or scan) and the key
+ * being written to the target.
+ * <p>
+ * Tracks keys accepted by the key processor of the source reader, which must be
+ * wrapped with {@link #keyProcessor(ItemProcessor)} so that keys rejected by
+ * key filters are never tracked, and listens to key-values written by the
+ * replication step. When several events for the same key arrive before it is
+ * written, lag is measured from the earliest one. Keys filtered out by the step
+ * processor are forgotten and keys renamed by it (e.g. prefixed) are tracked
+ * under their new name, which requires the processor to be wrapped with
+ * {@link #processor(ItemProcessor)}. At most {@code capacity} keys are tracked
+ * at once: events arriving beyond that are not measured.
+ */
+public class ReplicationLag<K> implements ItemWriteListener<KeyValue<K>> {
+
+	public static final int DEFAULT_CAPACITY = 100000;
+	public static final Duration DEFAULT_SNAPSHOT_INTERVAL = Duration.ofSeconds(1);
+
+	private static final double[] QUANTILES = { .5, .9, .99, .999 };
+	private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private final Map<Object, Long> receiveTimes = new ConcurrentHashMap<>();
+	private final Recorder recorder = new Recorder(3);
+	private final Histogram total = new Histogram(3);
+	private final ReplicateReaderMetrics<K> readerMetrics;
+
+	private int capacity = DEFAULT_CAPACITY;
+	private long snapshotIntervalNanos = DEFAULT_SNAPSHOT_INTERVAL.toNanos();
+	private Histogram interval;
+	private long lastSnapshot;
+
+	/**
+	 * @param readerMetrics reader counters used to report the backlog of keys
+	 *                      waiting to be fetched from the source
+	 */
+	public ReplicationLag(ReplicateReaderMetrics<K> readerMetrics) {
+		this.readerMetrics = readerMetrics;
+		this.interval = recorder.getIntervalHistogram();
+		this.lastSnapshot = System.nanoTime();
+	}
+
+	/**
+	 * @return processor delegating to the given reader key processor (if any) and
+	 *         recording the receive time of keys it does not filter out
+	 */
+	public ItemProcessor<KeyEvent<K>, KeyEvent<K>> keyProcessor(ItemProcessor<KeyEvent<K>, KeyEvent<K>> delegate) {
+		return item -> {
+			KeyEvent<K> result = delegate == null ? item : delegate.process(item);
+			if (result != null && receiveTimes.size() < capacity) {
+				receiveTimes.putIfAbsent(key(result.getKey()), System.nanoTime());
+			}
+			return result;
+		};
+	}
+
+	@Override
+	public void afterWrite(Chunk<? extends KeyValue<K>> items) {
+		long now = System.nanoTime();
+		for (KeyValue<K> item : items) {
+			Long receiveTime = receiveTimes.remove(key(item.getKey()));
+			if (receiveTime != null) {
+				recorder.recordValue(Math.max(0, now - receiveTime));
+			}
+		}
+	}
+
+	@Override
+	public void onWriteError(Exception exception, Chunk<? extends KeyValue<K>> items) {
+		for (KeyValue<K> item : items) {
+			forget(item.getKey());
+		}
+	}
+
+	public void forget(K key) {
+		receiveTimes.remove(key(key));
+	}
+
+	/**
+	 * @return processor delegating to the given one (if any), forgetting keys it
+	 *         filters out and moving receive times of keys it renames to their
+	 *         new name
+	 */
+	public ItemProcessor<KeyValue<K>, KeyValue<K>> processor(ItemProcessor<KeyValue<K>, KeyValue<K>> delegate) {
+		return item -> {
+			// processors may modify the item in place
+			Object sourceKey = key(item.getKey());
+			KeyValue<K> result = delegate == null ? item : delegate.process(item);
+			if (result == null) {
+				receiveTimes.remove(sourceKey);
+			} else {
+				Object targetKey = key(result.getKey());
+				if (!targetKey.equals(sourceKey)) {
+					Long receiveTime = receiveTimes.remove(sourceKey);
+					if (receiveTime != null) {
+						receiveTimes.putIfAbsent(targetKey, receiveTime);
+					}
+				}
+			}
+			return result;
+		};
+	}
+
+	private static Object key(Object key) {
+		if (key instanceof byte[]) {
+			return ByteBuffer.wrap((byte[]) key);
+		}
+		return key;
+	}
+
+	/**
+	 * Rolls the lag recorded since the previous snapshot into the cumulative
+	 * histogram, at most once per snapshot interval.
+	 */
+	private synchronized void snapshot() {
+		long now = System.nanoTime();
+		if (now - lastSnapshot >= snapshotIntervalNanos) {
+			interval = recorder.getIntervalHistogram(interval);
+			total.add(interval);
+			lastSnapshot = now;
+		}
+	}
+
+	/**
+	 * @return lag at the given percentile over the last snapshot interval
+	 */
+	public synchronized Duration recentLag(double percentile) {
+		snapshot();
+		return Duration.ofNanos(interval.getValueAtPercentile(percentile));
+	}
+
+	/**
+	 * @return lag at the given percentile since the start of replication
+	 */
+	public synchronized Duration lag(double percentile) {
+		snapshot();
+		return Duration.ofNanos(total.getValueAtPercentile(percentile));
+	}
+
+	public synchronized long getCount() {
+		snapshot();
+		return total.getTotalCount();
+	}
+
+	/**
+	 * @return number of keys received from the source and not yet fetched
+	 */
+	public long getBacklog() {
+		return readerMetrics.getPendingKeys();
+	}
+
+	public String statusMessage() {
+		return String.format("lag p50 %dms | lag p99 %dms | backlog %d", recentLag(50).toMillis(),
+				recentLag(99).toMillis(), getBacklog());
+	}
+
+	public void register(JobMetrics metrics, Map<String, String> labels) {
+		for (double quantile : QUANTILES) {
+			Map<String, String> quantileLabels = new LinkedHashMap<>(labels);
+			quantileLabels.put("quantile", String.valueOf(quantile));
+			metrics.gauge("riot_replication_lag_seconds",
+					"Time from key event receipt to target write, since the start of replication.", quantileLabels,
+					() -> lag(quantile * 100).toNanos() / NANOS_PER_SECOND);
+		}
+		metrics.counter("riot_replication_lag_count_total", "Key events whose replication lag was measured.", labels,
+				this::getCount);
+		metrics.gauge("riot_replication_backlog_keys", "Key events received from the source and not yet fetched.",
+				labels, this::getBacklog);
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public void setCapacity(int capacity) {
+		this.capacity = capacity;
+	}
+
+	public Duration getSnapshotInterval() {
+		return Duration.ofNanos(snapshotIntervalNanos);
+	}
+
+	public void setSnapshotInterval(Duration interval) {
+		this.snapshotIntervalNanos = interval.toNanos();
+	}
+
+}
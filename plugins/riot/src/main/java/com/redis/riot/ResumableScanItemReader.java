@@ -0,0 +1,287 @@
+package com.redis.riot;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import com.redis.spring.batch.item.redis.common.KeyValue;
+
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.KeyScanArgs;
+import io.lettuce.core.KeyScanCursor;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.ScanCursor;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode.NodeFlag;
+import io.lettuce.core.codec.ByteArrayCodec;
+
+/**
+ * Dump reader scanning each source node with an explicit SCAN cursor and
+ * recording the cursors in a {@link CheckpointStore}, so that an interrupted
+ * replication can resume where it left off instead of starting over.
+ * <p>
+ * Nodes (the standalone server, or each cluster master) are scanned one after
+ * the other. For each SCAN page the type, TTL and DUMP of every key are fetched
+ * in a single pipelined round trip. The checkpoint is saved from
+ * {@link #update(ExecutionContext)}, which Spring Batch calls after each chunk
+ * is committed, and points at the start of the page being read: keys of a
+ * partially written page are replicated again on resume, which is harmless
+ * since restores replace existing keys. Because it relies on chunks being
+ * committed in read order, this reader must be used from a single thread.
+ * <p>
+ * SCAN guarantees that keys present for the whole scan are returned, even
+ * across resumes, as long as the cursor is reused on the same node.
+ */
+public class ResumableScanItemReader extends ItemStreamSupport implements ItemStreamReader<KeyValue<byte[]>> {
+
+	public static final String STANDALONE_NODE = "standalone";
+	public static final String FINISHED = "finished";
+	public static final long DEFAULT_SCAN_COUNT = 1000;
+	public static final Duration DEFAULT_CHECKPOINT_INTERVAL = Duration.ofSeconds(1);
+
+	private final AbstractRedisClient client;
+	private final CheckpointStore checkpointStore;
+
+	private boolean resume;
+	private String keyPattern;
+	private String keyType;
+	private long scanCount = DEFAULT_SCAN_COUNT;
+	private Predicate<byte[]> keyPredicate = k -> true;
+	private long memoryLimit = KeyDumps.NO_MEMORY_LIMIT;
+	private Duration checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+
+	private StatefulRedisClusterConnection<byte[], byte[]> clusterConnection;
+	private final List<NodeScan> nodes = new ArrayList<>();
+	private final Deque<KeyValue<byte[]>> page = new ArrayDeque<>();
+	private int nodeIndex;
+	private String pageCursor;
+	private boolean exhausted;
+	private long lastCheckpoint;
+
+	public ResumableScanItemReader(AbstractRedisClient client, CheckpointStore checkpointStore) {
+		setName(ClassUtils.getShortName(getClass()));
+		Assert.notNull(client, "Client must not be null");
+		Assert.notNull(checkpointStore, "Checkpoint store must not be null");
+		this.client = client;
+		this.checkpointStore = checkpointStore;
+	}
+
+	@Override
+	public synchronized void open(ExecutionContext executionContext) throws ItemStreamException {
+		if (!nodes.isEmpty()) {
+			return;
+		}
+		Map<String, String> checkpoint;
+		if (resume) {
+			checkpoint = checkpointStore.load();
+		} else {
+			checkpointStore.clear();
+			checkpoint = new LinkedHashMap<>();
+		}
+		if (client instanceof RedisClusterClient) {
+			clusterConnection = ((RedisClusterClient) client).connect(ByteArrayCodec.INSTANCE);
+			for (RedisClusterNode node : clusterConnection.getPartitions()) {
+				if (node.is(NodeFlag.UPSTREAM)) {
+					String id = node.getNodeId();
+					nodes.add(new NodeScan(id, clusterConnection.getConnection(id), checkpoint.get(id)));
+				}
+			}
+		} else {
+			nodes.add(new NodeScan(STANDALONE_NODE, ((RedisClient) client).connect(ByteArrayCodec.INSTANCE),
+					checkpoint.get(STANDALONE_NODE)));
+		}
+		nodeIndex = 0;
+		exhausted = false;
+		lastCheckpoint = System.nanoTime();
+	}
+
+	@Override
+	public synchronized KeyValue<byte[]> read() throws Exception {
+		while (page.isEmpty()) {
+			if (nodeIndex >= nodes.size()) {
+				exhausted = true;
+				return null;
+			}
+			NodeScan node = nodes.get(nodeIndex);
+			if (node.finished) {
+				nodeIndex++;
+			} else {
+				readPage(node);
+			}
+		}
+		return page.poll();
+	}
+
+	private void readPage(NodeScan node) throws Exception {
+		pageCursor = node.cursor;
+		KeyScanCursor<byte[]> cursor = node.connection.sync().scan(ScanCursor.of(node.cursor), scanArgs());
+		List<byte[]> keys = new ArrayList<>();
+		for (byte[] key : cursor.getKeys()) {
+			if (keyPredicate.test(key)) {
+				keys.add(key);
+			}
+		}
+		if (!keys.isEmpty()) {
+			page.addAll(KeyDumps.read(node.connection.async(), node.connection.getTimeout(), keys, false,
+					memoryLimit));
+		}
+		node.cursor = cursor.getCursor();
+		node.finished = cursor.isFinished();
+	}
+
+	private KeyScanArgs scanArgs() {
+		KeyScanArgs args = KeyScanArgs.Builder.limit(scanCount);
+		if (StringUtils.hasLength(keyPattern)) {
+			args.match(keyPattern);
+		}
+		if (StringUtils.hasLength(keyType)) {
+			args.type(keyType);
+		}
+		return args;
+	}
+
+	@Override
+	public synchronized void update(ExecutionContext executionContext) throws ItemStreamException {
+		long now = System.nanoTime();
+		if (exhausted || now - lastCheckpoint >= checkpointInterval.toNanos()) {
+			checkpointStore.save(checkpoint());
+			lastCheckpoint = now;
+		}
+	}
+
+	/**
+	 * @return position of each node scan. The node being read is checkpointed at
+	 *         the start of its current page unless that page has been fully read.
+	 */
+	synchronized Map<String, String> checkpoint() {
+		Map<String, String> checkpoint = new LinkedHashMap<>();
+		for (int index = 0; index < nodes.size(); index++) {
+			NodeScan node = nodes.get(index);
+			if (index == nodeIndex && !page.isEmpty()) {
+				checkpoint.put(node.id, pageCursor);
+			} else {
+				checkpoint.put(node.id, node.finished ? FINISHED : node.cursor);
+			}
+		}
+		return checkpoint;
+	}
+
+	/**
+	 * Deliberately does not save the checkpoint: on failure items may have been
+	 * read that were never written. The last checkpoint saved from
+	 * {@link #update(ExecutionContext)} is the one to resume from.
+	 */
+	@Override
+	public synchronized void close() throws ItemStreamException {
+		if (clusterConnection != null) {
+			clusterConnection.close();
+			clusterConnection = null;
+		} else {
+			nodes.forEach(n -> n.connection.close());
+		}
+		nodes.clear();
+		page.clear();
+		try {
+			checkpointStore.close();
+		} catch (Exception e) {
+			throw new ItemStreamException("Could not close checkpoint store", e);
+		}
+	}
+
+	private static class NodeScan {
+
+		private final String id;
+		private final StatefulRedisConnection<byte[], byte[]> connection;
+		private String cursor;
+		private boolean finished;
+
+		public NodeScan(String id, StatefulRedisConnection<byte[], byte[]> connection, String checkpoint) {
+			this.id = id;
+			this.connection = connection;
+			if (FINISHED.equals(checkpoint)) {
+				this.cursor = ScanCursor.FINISHED.getCursor();
+				this.finished = true;
+			} else {
+				this.cursor = checkpoint == null ? ScanCursor.INITIAL.getCursor() : checkpoint;
+			}
+		}
+
+	}
+
+	public boolean isResume() {
+		return resume;
+	}
+
+	public void setResume(boolean resume) {
+		this.resume = resume;
+	}
+
+	public String getKeyPattern() {
+		return keyPattern;
+	}
+
+	public void setKeyPattern(String keyPattern) {
+		this.keyPattern = keyPattern;
+	}
+
+	public String getKeyType() {
+		return keyType;
+	}
+
+	public void setKeyType(String keyType) {
+		this.keyType = keyType;
+	}
+
+	public long getScanCount() {
+		return scanCount;
+	}
+
+	public void setScanCount(long scanCount) {
+		this.scanCount = scanCount;
+	}
+
+	public Predicate<byte[]> getKeyPredicate() {
+		return keyPredicate;
+	}
+
+	public void setKeyPredicate(Predicate<byte[]> keyPredicate) {
+		this.keyPredicate = keyPredicate;
+	}
+
+	public long getMemoryLimit() {
+		return memoryLimit;
+	}
+
+	/**
+	 * @param limit max memory usage in bytes for a key to be dumped. Keys above
+	 *              the limit are read without their value.
+	 */
+	public void setMemoryLimit(long limit) {
+		this.memoryLimit = limit;
+	}
+
+	public Duration getCheckpointInterval() {
+		return checkpointInterval;
+	}
+
+	public void setCheckpointInterval(Duration checkpointInterval) {
+		this.checkpointInterval = checkpointInterval;
+	}
+
+}
@@ -0,0 +1,239 @@
+package com.redis.riot;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisNoScriptException;
+import io.lettuce.core.ScanCursor;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.SlotHash;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode.NodeFlag;
+import io.lettuce.core.codec.ByteArrayCodec;
+
+/**
+ * Scans a Redis database (each master in cluster mode) and digests its keys
+ * server-side with a Lua script, either aggregated per slot or per key. Only
+ * digests travel over the network, never values.
+ * <p>
+ * Each script call digests the keys of one SCAN page, whose size is set with
+ * {@link #setScanCount(long)}, reading at most about
+ * {@link IncrementalDigest#getBudget()} elements: keys that are left over, like
+ * big keys, are then digested over several calls of their own (see
+ * {@link IncrementalDigest}).
+ */
+public class SlotDigestScanner implements AutoCloseable {
+
+	public static final long DEFAULT_SCAN_COUNT = 100;
+
+	private static final byte[] MODE_SLOTS = bytes("slots");
+	private static final byte[] MODE_KEYS = bytes("keys");
+	private static final byte[] ALL_SLOTS = new byte[0];
+
+	private final AbstractRedisClient client;
+	private final byte[] script;
+	private final byte[] keyScript;
+
+	private String keyPattern;
+	private long scanCount = DEFAULT_SCAN_COUNT;
+	private IncrementalDigest incrementalDigest = new IncrementalDigest();
+
+	private StatefulRedisClusterConnection<byte[], byte[]> clusterConnection;
+	private final List<StatefulRedisConnection<byte[], byte[]>> connections = new ArrayList<>();
+	private String sha;
+	private String keySha;
+
+	public SlotDigestScanner(AbstractRedisClient client) {
+		Assert.notNull(client, "Client must not be null");
+		this.client = client;
+		this.script = LuaScripts.script(LuaScripts.DIGEST_FUNCTION, LuaScripts.RECONCILE);
+		this.keyScript = LuaScripts.script(LuaScripts.DIGEST_FUNCTION, LuaScripts.DIGEST);
+	}
+
+	private static byte[] bytes(String string) {
+		return string.getBytes(StandardCharsets.UTF_8);
+	}
+
+	public synchronized void open() {
+		if (!connections.isEmpty()) {
+			return;
+		}
+		if (client instanceof RedisClusterClient) {
+			clusterConnection = ((RedisClusterClient) client).connect(ByteArrayCodec.INSTANCE);
+			for (RedisClusterNode node : clusterConnection.getPartitions()) {
+				if (node.is(NodeFlag.UPSTREAM)) {
+					connections.add(clusterConnection.getConnection(node.getNodeId()));
+				}
+			}
+		} else {
+			connections.add(((RedisClient) client).connect(ByteArrayCodec.INSTANCE));
+		}
+		connections.forEach(this::load);
+	}
+
+	private void load(StatefulRedisConnection<byte[], byte[]> connection) {
+		sha = connection.sync().scriptLoad(script);
+		keySha = connection.sync().scriptLoad(keyScript);
+	}
+
+	/**
+	 * @param slots bitmap of slots to digest as returned by
+	 *              {@link SlotDigests#bitmap(java.util.BitSet)}, or null for all
+	 *              slots
+	 * @return number of keys and hash of each slot
+	 */
+	public SlotDigests slotDigests(byte[] slots) {
+		SlotDigests digests = new SlotDigests();
+		scan(MODE_SLOTS, slots, results -> {
+			for (int index = 0; index + 3 < results.size(); index += 4) {
+				long high = (Long) results.get(index + 2);
+				long low = (Long) results.get(index + 3);
+				digests.add(((Long) results.get(index)).intValue(), (Long) results.get(index + 1),
+						(high << 32) | (low & 0xffffffffL));
+			}
+		}, (key, digest) -> digests.add(SlotHash.getSlot(key), 1, hash(key, digest)));
+		return digests;
+	}
+
+	/**
+	 * @param slots bitmap of slots whose keys to digest
+	 * @return value digest of each key in the given slots
+	 */
+	public Map<ByteBuffer, byte[]> keyDigests(byte[] slots) {
+		Map<ByteBuffer, byte[]> digests = new HashMap<>();
+		scan(MODE_KEYS, slots, results -> {
+			for (int index = 0; index + 1 < results.size(); index += 2) {
+				digests.put(ByteBuffer.wrap((byte[]) results.get(index)), (byte[]) results.get(index + 1));
+			}
+		}, (key, digest) -> digests.put(ByteBuffer.wrap(key), digest));
+		return digests;
+	}
+
+	/**
+	 * @return hash of a key and its digest, as aggregated per slot by the script
+	 */
+	private static long hash(byte[] key, byte[] digest) {
+		MessageDigest sha1;
+		try {
+			sha1 = MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		sha1.update(bytes(key.length + ":"));
+		sha1.update(key);
+		sha1.update(digest);
+		String hex = HexFormat.of().formatHex(sha1.digest());
+		long high = Long.parseLong(hex.substring(0, 8), 16);
+		long low = Long.parseLong(hex.substring(8, 16), 16);
+		return (high << 32) | low;
+	}
+
+	/**
+	 * @param consumer        called with the results of each page
+	 * @param pendingConsumer called with each key left over by a page once it has
+	 *                        been digested
+	 */
+	@SuppressWarnings("unchecked")
+	private void scan(byte[] mode, byte[] slots, Consumer<List<Object>> consumer,
+			BiConsumer<byte[], byte[]> pendingConsumer) {
+		byte[] count = bytes(String.valueOf(scanCount));
+		byte[] match = StringUtils.hasLength(keyPattern) ? bytes(keyPattern) : new byte[0];
+		byte[] bitmap = slots == null ? ALL_SLOTS : slots;
+		byte[][] options = incrementalDigest.options();
+		for (StatefulRedisConnection<byte[], byte[]> connection : connections) {
+			String cursor = ScanCursor.INITIAL.getCursor();
+			do {
+				byte[][] args = new byte[5 + options.length][];
+				args[0] = bytes(cursor);
+				args[1] = count;
+				args[2] = match;
+				args[3] = mode;
+				args[4] = bitmap;
+				System.arraycopy(options, 0, args, 5, options.length);
+				List<Object> page = page(connection, args);
+				cursor = IncrementalDigest.string(page.get(0));
+				consumer.accept(page.subList(2, page.size()));
+				List<Object> pending = (List<Object>) page.get(1);
+				for (int index = 0; index + 3 < pending.size(); index += 4) {
+					byte[] key = (byte[]) pending.get(index);
+					byte[] digest = digest(connection, key, pending.subList(index + 1, index + 4));
+					if (digest != null) {
+						pendingConsumer.accept(key, digest);
+					}
+				}
+			} while (!ScanCursor.INITIAL.getCursor().equals(cursor));
+		}
+	}
+
+	private List<Object> page(StatefulRedisConnection<byte[], byte[]> connection, byte[]... args) {
+		try {
+			return connection.sync().evalsha(sha, ScriptOutputType.MULTI, new byte[0][], args);
+		} catch (RedisNoScriptException e) {
+			// script cache flushed, e.g. after a restart or failover
+			load(connection);
+			return connection.sync().evalsha(sha, ScriptOutputType.MULTI, new byte[0][], args);
+		}
+	}
+
+	private byte[] digest(StatefulRedisConnection<byte[], byte[]> connection, byte[] key, List<Object> reply) {
+		try {
+			return incrementalDigest.digest(connection.sync(), keySha, key, reply);
+		} catch (RedisNoScriptException e) {
+			load(connection);
+			return incrementalDigest.digest(connection.sync(), keySha, key, reply);
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		if (clusterConnection != null) {
+			clusterConnection.close();
+			clusterConnection = null;
+		} else {
+			connections.forEach(StatefulRedisConnection::close);
+		}
+		connections.clear();
+	}
+
+	public String getKeyPattern() {
+		return keyPattern;
+	}
+
+	public void setKeyPattern(String keyPattern) {
+		this.keyPattern = keyPattern;
+	}
+
+	public long getScanCount() {
+		return scanCount;
+	}
+
+	public void setScanCount(long scanCount) {
+		this.scanCount = scanCount;
+	}
+
+	public IncrementalDigest getIncrementalDigest() {
+		return incrementalDigest;
+	}
+
+	public void setIncrementalDigest(IncrementalDigest incrementalDigest) {
+		this.incrementalDigest = incrementalDigest;
+	}
+
+}
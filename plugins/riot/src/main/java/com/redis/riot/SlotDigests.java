@@ -0,0 +1,109 @@
+package com.redis.riot;
+
+import java.util.BitSet;
+
+import org.springframework.util.Assert;
+
+import io.lettuce.core.cluster.SlotHash;
+
+/**
+ * Digest of a keyspace broken down by cluster slot: for each of the 16384 slots
+ * the number of keys and the XOR of the hashes of its keys. XOR makes the slot
+ * digest independent of the order in which keys are added, so that digests
+ * built from different scans of the same data are equal.
+ * <p>
+ * Two slot digests are compared as a tree whose leaves are the slots and whose
+ * inner nodes aggregate their children: {@link #diff(SlotDigests)} compares
+ * nodes top-down and only descends into the ranges of slots that differ.
+ */
+public class SlotDigests {
+
+	public static final int SLOTS = SlotHash.SLOT_COUNT;
+	public static final int DEFAULT_FANOUT = 128;
+
+	private final long[] counts = new long[SLOTS];
+	private final long[] hashes = new long[SLOTS];
+
+	public synchronized void add(int slot, long count, long hash) {
+		counts[slot] += count;
+		hashes[slot] ^= hash;
+	}
+
+	public synchronized long count(int slot) {
+		return counts[slot];
+	}
+
+	public synchronized long hash(int slot) {
+		return hashes[slot];
+	}
+
+	/**
+	 * @return total number of keys
+	 */
+	public synchronized long count() {
+		return count(0, SLOTS);
+	}
+
+	private long count(int from, int to) {
+		long count = 0;
+		for (int slot = from; slot < to; slot++) {
+			count += counts[slot];
+		}
+		return count;
+	}
+
+	private long hash(int from, int to) {
+		long hash = 0;
+		for (int slot = from; slot < to; slot++) {
+			hash ^= hashes[slot];
+		}
+		return hash;
+	}
+
+	public BitSet diff(SlotDigests other) {
+		return diff(other, DEFAULT_FANOUT);
+	}
+
+	/**
+	 * @param other  slot digests to compare with
+	 * @param fanout number of children of each node of the comparison tree
+	 * @return slots whose digests differ
+	 */
+	public BitSet diff(SlotDigests other, int fanout) {
+		Assert.isTrue(fanout > 1, "Fanout must be greater than 1");
+		BitSet slots = new BitSet(SLOTS);
+		synchronized (this) {
+			synchronized (other) {
+				diff(other, 0, SLOTS, fanout, slots);
+			}
+		}
+		return slots;
+	}
+
+	private void diff(SlotDigests other, int from, int to, int fanout, BitSet slots) {
+		if (count(from, to) == other.count(from, to) && hash(from, to) == other.hash(from, to)) {
+			return;
+		}
+		if (to - from == 1) {
+			slots.set(from);
+			return;
+		}
+		int size = (to - from + fanout - 1) / fanout;
+		for (int start = from; start < to; start += size) {
+			diff(other, start, Math.min(start + size, to), fanout, slots);
+		}
+	}
+
+	/**
+	 * @param slots slots to encode
+	 * @return bitmap with bit i set for slot i, in the bit order of SETBIT
+	 */
+	public static byte[] bitmap(BitSet slots) {
+		byte[] bitmap = new byte[SLOTS / Byte.SIZE];
+		for (int slot = slots.nextSetBit(0); slot >= 0 && slot < SLOTS; slot = slots.nextSetBit(slot + 1)) {
+			bitmap[slot / Byte.SIZE] |= (byte) (0x80 >>> (slot % Byte.SIZE));
+		}
+		return bitmap;
+	}
+
+}
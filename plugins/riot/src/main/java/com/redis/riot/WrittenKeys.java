@@ -0,0 +1,91 @@
+package com.redis.riot;
+
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.springframework.batch.item.ItemProcessor;
+
+import com.redis.spring.batch.item.redis.common.KeyValue;
+
+import io.lettuce.core.codec.RedisCodec;
+
+/**
+ * Records the keys handed to the replication writer so that verification can
+ * be restricted to them, and acts as the corresponding key predicate for the
+ * compare reader. Keys are recorded by wrapping the replication step processor
+ * with {@link #processor(ItemProcessor)}, so keys filtered out are not
+ * recorded.
+ * <p>
+ * To bound memory usage at most {@code maxKeys} keys are recorded: beyond that
+ * recording stops and the predicate accepts every key, i.e. verification falls
+ * back to the whole keyspace.
+ */
+public class WrittenKeys<K> implements Predicate<K> {
+
+	public static final int DEFAULT_MAX_KEYS = 1000000;
+
+	private final Set<ByteBuffer> keys = ConcurrentHashMap.newKeySet();
+	private final RedisCodec<K, ?> codec;
+	private final Logger log;
+
+	private int maxKeys = DEFAULT_MAX_KEYS;
+	private volatile boolean overflow;
+
+	public WrittenKeys(RedisCodec<K, ?> codec, Logger log) {
+		this.codec = codec;
+		this.log = log;
+	}
+
+	public void add(K key) {
+		if (overflow) {
+			return;
+		}
+		if (keys.size() >= maxKeys) {
+			overflow = true;
+			keys.clear();
+			log.warn("More than {} keys written, verification will cover all keys", maxKeys);
+			return;
+		}
+		keys.add(codec.encodeKey(key));
+	}
+
+	@Override
+	public boolean test(K key) {
+		return overflow || keys.contains(codec.encodeKey(key));
+	}
+
+	/**
+	 * @return processor delegating to the given one (if any) and recording keys it
+	 *         does not filter out
+	 */
+	public ItemProcessor<KeyValue<K>, KeyValue<K>> processor(ItemProcessor<KeyValue<K>, KeyValue<K>> delegate) {
+		return item -> {
+			K key = item.getKey();
+			KeyValue<K> result = delegate == null ? item : delegate.process(item);
+			if (result != null) {
+				add(key);
+			}
+			return result;
+		};
+	}
+
+	public boolean isOverflow() {
+		return overflow;
+	}
+
+	public int size() {
+		return keys.size();
+	}
+
+	public int getMaxKeys() {
+		return maxKeys;
+	}
+
+	public void setMaxKeys(int maxKeys) {
+		this.maxKeys = maxKeys;
+	}
+
+}
@@ -0,0 +1,65 @@
+package com.redis.riot.function;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+import com.redis.spring.batch.item.redis.common.KeyValue;
+
+import io.lettuce.core.ScoredValue;
+import io.lettuce.core.StreamMessage;
+
+/**
+ * Estimates the number of bytes written for a binary key-value: key length plus
+ * the length of the dump payload, or the sum of element sizes for data
+ * structure values.
+ */
+public class KeyValueSize implements ToLongFunction<KeyValue<byte[]>> {
+
+	private static final long NUMBER_SIZE = Long.BYTES;
+
+	@Override
+	public long applyAsLong(KeyValue<byte[]> item) {
+		long size = item.getKey() == null ? 0 : item.getKey().length;
+		return size + size(item.getValue());
+	}
+
+	private long size(Object value) {
+		if (value == null) {
+			return 0;
+		}
+		if (value instanceof byte[]) {
+			return ((byte[]) value).length;
+		}
+		if (value instanceof String) {
+			return ((String) value).getBytes(StandardCharsets.UTF_8).length;
+		}
+		if (value instanceof Number) {
+			return NUMBER_SIZE;
+		}
+		if (value instanceof Collection) {
+			long size = 0;
+			for (Object element : (Collection<?>) value) {
+				size += size(element);
+			}
+			return size;
+		}
+		if (value instanceof Map) {
+			long size = 0;
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				size += size(entry.getKey()) + size(entry.getValue());
+			}
+			return size;
+		}
+		if (value instanceof ScoredValue) {
+			return NUMBER_SIZE + size(((ScoredValue<?>) value).getValue());
+		}
+		if (value instanceof StreamMessage) {
+			StreamMessage<?, ?> message = (StreamMessage<?, ?>) value;
+			return size(message.getId()) + size(message.getBody());
+		}
+		return NUMBER_SIZE;
+	}
+
+}
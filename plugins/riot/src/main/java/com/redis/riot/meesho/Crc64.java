@@ -0,0 +1,36 @@
+package com.redis.riot.meesho;
+
+/**
+ * CRC-64 with the Jones polynomial ({@code 0xad93d23594c935a9}, reflected, no
+ * final XOR), as used by Redis to checksum RDB files and DUMP payloads.
+ */
+final class Crc64 {
+
+	private static final long POLY = 0x95ac9329ac4bc9b5L; // 0xad93d23594c935a9 reflected
+
+	private static final long[] TABLE = table();
+
+	private Crc64() {
+	}
+
+	private static long[] table() {
+		long[] table = new long[256];
+		for (int index = 0; index < table.length; index++) {
+			long crc = index;
+			for (int bit = 0; bit < 8; bit++) {
+				crc = (crc & 1) == 0 ? crc >>> 1 : (crc >>> 1) ^ POLY;
+			}
+			table[index] = crc;
+		}
+		return table;
+	}
+
+	static long crc64(byte[] bytes, int offset, int length) {
+		long crc = 0;
+		for (int index = offset; index < offset + length; index++) {
+			crc = TABLE[(int) ((crc ^ bytes[index]) & 0xff)] ^ (crc >>> 8);
+		}
+		return crc;
+	}
+
+}
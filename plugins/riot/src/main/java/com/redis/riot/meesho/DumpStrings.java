@@ -0,0 +1,180 @@
+package com.redis.riot.meesho;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads and writes string values in DUMP payloads, so that string values can be
+ * transformed without going through data-structure replication.
+ * <p>
+ * A DUMP payload is an RDB object: a type byte ({@value #RDB_TYPE_STRING} for
+ * strings), the serialized value, then a footer made of the 2-byte RDB version
+ * and the little-endian CRC-64 of everything before it. String values are
+ * either raw (length-prefixed), integers, or LZF-compressed. Written values are
+ * always raw, which any RDB version can load.
+ */
+final class DumpStrings {
+
+	static final int RDB_TYPE_STRING = 0;
+
+	private static final int VERSION_LENGTH = 2;
+	private static final int CRC_LENGTH = 8;
+	private static final int FOOTER_LENGTH = VERSION_LENGTH + CRC_LENGTH;
+
+	private static final int LENGTH_6BIT = 0;
+	private static final int LENGTH_14BIT = 1;
+	private static final int LENGTH_32OR64BIT = 2;
+	private static final int ENCODED = 3;
+	private static final int LENGTH_32BIT = 0x80;
+	private static final int LENGTH_64BIT = 0x81;
+	private static final int ENCODING_INT8 = 0;
+	private static final int ENCODING_INT16 = 1;
+	private static final int ENCODING_INT32 = 2;
+	private static final int ENCODING_LZF = 3;
+
+	private DumpStrings() {
+	}
+
+	/**
+	 * @param dump DUMP payload
+	 * @return string value held by the payload, or null if it holds another type.
+	 *         Raw values are returned as a view of the payload.
+	 * @throws IllegalArgumentException if the payload is not a valid string dump
+	 */
+	static ByteBuffer value(byte[] dump) {
+		if (dump.length <= FOOTER_LENGTH + 1 || dump[0] != RDB_TYPE_STRING) {
+			return null;
+		}
+		Cursor cursor = new Cursor(dump, 1, dump.length - FOOTER_LENGTH);
+		int first = cursor.next();
+		ByteBuffer value;
+		if ((first >> 6) == ENCODED) {
+			value = ByteBuffer.wrap(encodedValue(cursor, first & 0x3F));
+		} else {
+			int length = cursor.length(first);
+			value = ByteBuffer.wrap(dump, cursor.position, length);
+			cursor.skip(length);
+		}
+		if (cursor.position != cursor.end) {
+			throw new IllegalArgumentException("Invalid string DUMP payload");
+		}
+		return value;
+	}
+
+	private static byte[] encodedValue(Cursor cursor, int encoding) {
+		switch (encoding) {
+		case ENCODING_INT8:
+			return integer((byte) cursor.next());
+		case ENCODING_INT16:
+			return integer((short) (cursor.next() | cursor.next() << 8));
+		case ENCODING_INT32:
+			return integer(cursor.next() | cursor.next() << 8 | cursor.next() << 16 | cursor.next() << 24);
+		case ENCODING_LZF:
+			int compressedLength = cursor.length(cursor.next());
+			int length = cursor.length(cursor.next());
+			byte[] value = Lzf.decompress(cursor.bytes, cursor.position, compressedLength, length);
+			cursor.skip(compressedLength);
+			return value;
+		default:
+			throw new IllegalArgumentException("Unknown string encoding " + encoding);
+		}
+	}
+
+	private static byte[] integer(long value) {
+		return Long.toString(value).getBytes(StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Builds a string DUMP payload in a single allocation.
+	 * 
+	 * @param template DUMP payload whose RDB version to use
+	 * @param prefix   first byte of the new value
+	 * @param value    rest of the new value, from its position to its limit
+	 * @return DUMP payload of the raw string made of prefix followed by value
+	 */
+	static byte[] dump(byte[] template, byte prefix, ByteBuffer value) {
+		int length = 1 + value.remaining();
+		int headerLength = length < 1 << 6 ? 1 : length < 1 << 14 ? 2 : 5;
+		byte[] dump = new byte[1 + headerLength + length + FOOTER_LENGTH];
+		int position = 0;
+		dump[position++] = RDB_TYPE_STRING;
+		switch (headerLength) {
+		case 1:
+			dump[position++] = (byte) length;
+			break;
+		case 2:
+			dump[position++] = (byte) (LENGTH_14BIT << 6 | length >> 8);
+			dump[position++] = (byte) length;
+			break;
+		default:
+			dump[position++] = (byte) LENGTH_32BIT;
+			dump[position++] = (byte) (length >>> 24);
+			dump[position++] = (byte) (length >>> 16);
+			dump[position++] = (byte) (length >>> 8);
+			dump[position++] = (byte) length;
+		}
+		dump[position++] = prefix;
+		value.duplicate().get(dump, position, value.remaining());
+		position += value.remaining();
+		System.arraycopy(template, template.length - FOOTER_LENGTH, dump, position, VERSION_LENGTH);
+		position += VERSION_LENGTH;
+		long crc = Crc64.crc64(dump, 0, position);
+		for (int index = 0; index < CRC_LENGTH; index++) {
+			dump[position++] = (byte) (crc >>> (8 * index));
+		}
+		return dump;
+	}
+
+	private static class Cursor {
+
+		private final byte[] bytes;
+		private final int end;
+		private int position;
+
+		private Cursor(byte[] bytes, int position, int end) {
+			this.bytes = bytes;
+			this.position = position;
+			this.end = end;
+		}
+
+		private int next() {
+			if (position >= end) {
+				throw new IllegalArgumentException("Truncated string DUMP payload");
+			}
+			return bytes[position++] & 0xFF;
+		}
+
+		private void skip(int count) {
+			if (count > end - position) {
+				throw new IllegalArgumentException("Truncated string DUMP payload");
+			}
+			position += count;
+		}
+
+		private int length(int first) {
+			switch (first >> 6) {
+			case LENGTH_6BIT:
+				return first & 0x3F;
+			case LENGTH_14BIT:
+				return (first & 0x3F) << 8 | next();
+			case LENGTH_32OR64BIT:
+				long length = 0;
+				int size = first == LENGTH_32BIT ? 4 : first == LENGTH_64BIT ? 8 : 0;
+				if (size == 0) {
+					throw new IllegalArgumentException("Unknown length encoding " + first);
+				}
+				for (int index = 0; index < size; index++) {
+					length = length << 8 | next();
+				}
+				if (length > Integer.MAX_VALUE) {
+					throw new IllegalArgumentException("String too large: " + length);
+				}
+				return (int) length;
+			default:
+				throw new IllegalArgumentException("Unexpected encoded length");
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,52 @@
+package com.redis.riot.meesho;
+
+/**
+ * LZF decompression as implemented by Redis ({@code lzf_d.c}), used for
+ * compressed strings in RDB payloads.
+ */
+final class Lzf {
+
+	private Lzf() {
+	}
+
+	static byte[] decompress(byte[] input, int offset, int length, int outputLength) {
+		byte[] output = new byte[outputLength];
+		int in = offset;
+		int inEnd = offset + length;
+		int out = 0;
+		try {
+			while (in < inEnd) {
+				int ctrl = input[in++] & 0xFF;
+				if (ctrl < 1 << 5) {
+					// literal run of ctrl + 1 bytes
+					ctrl++;
+					System.arraycopy(input, in, output, out, ctrl);
+					in += ctrl;
+					out += ctrl;
+				} else {
+					// back reference
+					int len = ctrl >> 5;
+					int ref = out - ((ctrl & 0x1F) << 8) - 1;
+					if (len == 7) {
+						len += input[in++] & 0xFF;
+					}
+					ref -= input[in++] & 0xFF;
+					len += 2;
+					if (ref < 0) {
+						throw new IllegalArgumentException("Invalid LZF back reference");
+					}
+					for (int index = 0; index < len; index++) {
+						output[out++] = output[ref++];
+					}
+				}
+			}
+		} catch (ArrayIndexOutOfBoundsException e) {
+			throw new IllegalArgumentException("Invalid LZF data", e);
+		}
+		if (out != outputLength) {
+			throw new IllegalArgumentException("Invalid LZF data");
+		}
+		return output;
+	}
+
+}
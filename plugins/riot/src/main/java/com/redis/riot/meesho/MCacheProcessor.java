@@ -1,12 +1,12 @@
 package com.redis.riot.meesho;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.util.function.Function;
+import java.util.Arrays;
 
 import org.slf4j.Logger;
 import org.springframework.batch.item.ItemProcessor;
 
-import com.redis.spring.batch.item.redis.common.BatchUtils;
 import com.redis.spring.batch.item.redis.common.KeyValue;
 
 import io.lettuce.core.codec.RedisCodec;
@@ -20,55 +20,118 @@ import io.lettuce.core.codec.RedisCodec;
  * </ul>
  * Forward-ported from the {@code mcache_processor} branch to the current
  * {@code KeyValue<K>} API (previously {@code KeyValue<K, Object>}).
+ * <p>
+ * Works on raw bytes: the prefix is encoded once, and each new key or value is
+ * built with a single copy into an array of the final size. Stripping then
+ * re-adding the marker only replaces the first byte, so such values are reused
+ * as-is when they already start with the marker.
+ * <p>
+ * In dump mode ({@link #setDump(boolean)}) values are DUMP payloads: string
+ * payloads are decoded, transformed as above and re-encoded with a new CRC,
+ * see {@link DumpStrings}. Payloads of other types are left unchanged.
  */
 public class MCacheProcessor<K, T extends KeyValue<K>> implements ItemProcessor<T, T> {
 
-	private final Function<K, String> keyToString;
+	public static final byte MARKER = 0x01;
+
 	private final Logger log;
 	private final RedisCodec<K, ?> codec;
-	private final String keyPrefix;
+	private final byte[] keyPrefix;
 	private final boolean alreadyHasPrefix;
 
+	private boolean dump;
+
 	public MCacheProcessor(RedisCodec<K, ?> codec, Logger log, String keyPrefix, boolean alreadyHasPrefix) {
-		this.keyPrefix = keyPrefix;
+		this.keyPrefix = keyPrefix.getBytes(StandardCharsets.UTF_8);
 		this.alreadyHasPrefix = alreadyHasPrefix;
 		this.codec = codec;
-		this.keyToString = BatchUtils.toStringKeyFunction(codec);
 		this.log = log;
 	}
 
 	@Override
 	@SuppressWarnings("unchecked")
 	public T process(T item) throws Exception {
-		K key = item.getKey();
-		String modifiedKey = keyPrefix + string(key);
-		key = (K) modifiedKey.getBytes(StandardCharsets.UTF_8);
-		item.setKey(key);
-
-		if (alreadyHasPrefix && KeyValue.TYPE_STRING.equals(item.getType()) && item.getValue() instanceof byte[]) {
-			byte[] originalValue = (byte[]) item.getValue();
-			if (originalValue.length > 1) {
-				byte[] newValue = new byte[originalValue.length - 1];
-				System.arraycopy(originalValue, 1, newValue, 0, newValue.length);
-				item.setValue(newValue);
+		item.setKey((K) prefix(keyPrefix, bytes(item.getKey())));
+		if (dump) {
+			if (item.getValue() instanceof byte[]) {
+				item.setValue(dump((byte[]) item.getValue()));
+			}
+		} else if (KeyValue.TYPE_STRING.equals(item.getType()) && item.getValue() instanceof byte[]) {
+			byte[] value = (byte[]) item.getValue();
+			if (alreadyHasPrefix) {
+				item.setValue(replaceMarker(value));
 			} else {
+				item.setValue(addMarker(value));
+			}
+		}
+		return item;
+	}
+
+	private byte[] dump(byte[] payload) {
+		ByteBuffer value = DumpStrings.value(payload);
+		if (value == null) {
+			return payload;
+		}
+		if (alreadyHasPrefix) {
+			if (value.remaining() <= 1) {
 				throw new IllegalArgumentException("Array must contain more than one byte.");
 			}
+			if (value.get(value.position()) == MARKER) {
+				return payload;
+			}
+			value.position(value.position() + 1);
 		}
+		return DumpStrings.dump(payload, MARKER, value);
+	}
 
-		if (KeyValue.TYPE_STRING.equals(item.getType()) && item.getValue() instanceof byte[]) {
-			byte[] originalValue = (byte[]) item.getValue();
-			byte prefixByte = 0x01;
-			byte[] newValue = new byte[originalValue.length + 1];
-			newValue[0] = prefixByte;
-			System.arraycopy(originalValue, 0, newValue, 1, originalValue.length);
-			item.setValue(newValue);
+	private byte[] bytes(K key) {
+		if (key instanceof byte[]) {
+			return (byte[]) key;
 		}
+		ByteBuffer buffer = codec.encodeKey(key);
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.get(bytes);
+		return bytes;
+	}
 
-		return item;
+	static byte[] prefix(byte[] prefix, byte[] key) {
+		if (prefix.length == 0) {
+			return key;
+		}
+		byte[] result = Arrays.copyOf(prefix, prefix.length + key.length);
+		System.arraycopy(key, 0, result, prefix.length, key.length);
+		return result;
+	}
+
+	static byte[] addMarker(byte[] value) {
+		byte[] result = new byte[value.length + 1];
+		result[0] = MARKER;
+		System.arraycopy(value, 0, result, 1, value.length);
+		return result;
 	}
 
-	private String string(K key) {
-		return keyToString.apply(key);
+	static byte[] replaceMarker(byte[] value) {
+		if (value.length <= 1) {
+			throw new IllegalArgumentException("Array must contain more than one byte.");
+		}
+		if (value[0] == MARKER) {
+			return value;
+		}
+		byte[] result = value.clone();
+		result[0] = MARKER;
+		return result;
 	}
+
+	public boolean isDump() {
+		return dump;
+	}
+
+	/**
+	 * @param dump true if values are DUMP payloads, false if they are data
+	 *             structures
+	 */
+	public void setDump(boolean dump) {
+		this.dump = dump;
+	}
+
 }
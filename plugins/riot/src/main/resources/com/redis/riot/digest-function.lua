@@ -0,0 +1,155 @@
+-- Defines digest(key, ignoreStreamIds, budget, maxMemory, cursor, state)
+-- computing a SHA1 digest of the value of the given key that does not depend
+-- on how the value is encoded internally. Values are never loaded whole, so
+-- that digesting a big key does not block the server:
+-- * hashes and sets are read with HSCAN and SSCAN, and their elements digested
+--   separately and combined with XOR, so that the digest neither depends on
+--   element order nor on string collation
+-- * strings, lists, sorted sets, streams and time series are read in ranges of
+--   PAGE elements (STRING_PAGE bytes for strings), and each range is chained
+--   into the digest of the previous ones
+-- * JSON documents and keys of other types cannot be read in ranges: they are
+--   digested whole, unless their MEMORY USAGE exceeds maxMemory bytes
+-- Each element is length-prefixed so that different values cannot produce the
+-- same payload.
+-- A call digests pages until about budget elements (a string page counts as
+-- PAGE elements) have been read. cursor and state are '' on the first call,
+-- and a key that is not done is continued by calling digest again with the
+-- cursor and state it returned.
+-- Returns kind, value, state, used where used is the number of elements read
+-- and kind is one of:
+--   'none' the key does not exist
+--   'done' value is the digest of the key
+--   'more' the key is not done: value is the cursor to continue from
+--   'skip' the key cannot be digested, either because it is too big or because
+--          its type changed between calls
+local PAGE = 1000
+local STRING_UNIT = 64
+local STRING_PAGE = PAGE * STRING_UNIT
+
+local function field(value)
+  return #value .. ':' .. value
+end
+
+-- XOR of two hex SHA1 digests, '' standing for zero
+local function xor(state, h)
+  local words = {}
+  for i = 1, 5 do
+    local word = tonumber(string.sub(h, i * 8 - 7, i * 8), 16)
+    if state ~= '' then
+      word = bit.bxor(word, tonumber(string.sub(state, i * 8 - 7, i * 8), 16))
+    end
+    words[i] = bit.tohex(word)
+  end
+  return table.concat(words)
+end
+
+local function chain(state, values)
+  local parts = { state }
+  for _, value in ipairs(values) do
+    parts[#parts + 1] = field(value)
+  end
+  return redis.sha1hex(table.concat(parts, ','))
+end
+
+-- Digests one page of the given key.
+-- Returns done, cursor, state, used, or nil if the key is too big.
+local function step(key, type, ignoreStreamIds, maxMemory, cursor, state)
+  if type == 'hash' then
+    local page = redis.call('HSCAN', key, cursor == '' and '0' or cursor, 'COUNT', PAGE)
+    local flat = page[2]
+    for i = 1, #flat, 2 do
+      state = xor(state, redis.sha1hex(field(flat[i]) .. field(flat[i + 1])))
+    end
+    return page[1] == '0', page[1], state, #flat / 2
+  elseif type == 'set' then
+    local page = redis.call('SSCAN', key, cursor == '' and '0' or cursor, 'COUNT', PAGE)
+    for _, member in ipairs(page[2]) do
+      state = xor(state, redis.sha1hex(field(member)))
+    end
+    return page[1] == '0', page[1], state, #page[2]
+  elseif type == 'string' then
+    local start = tonumber(cursor) or 0
+    local range = redis.call('GETRANGE', key, start, start + STRING_PAGE - 1)
+    state = chain(state, { range })
+    return #range < STRING_PAGE, tostring(start + #range), state, math.max(math.ceil(#range / STRING_UNIT), 1)
+  elseif type == 'zset' or type == 'list' then
+    local start = tonumber(cursor) or 0
+    local values
+    local count
+    if type == 'zset' then
+      values = redis.call('ZRANGE', key, start, start + PAGE - 1, 'WITHSCORES')
+      count = #values / 2
+    else
+      values = redis.call('LRANGE', key, start, start + PAGE - 1)
+      count = #values
+    end
+    state = chain(state, values)
+    return count < PAGE, tostring(start + count), state, count
+  elseif type == 'stream' then
+    local messages = redis.call('XRANGE', key, cursor == '' and '-' or cursor, '+', 'COUNT', PAGE)
+    local values = {}
+    for _, message in ipairs(messages) do
+      if not ignoreStreamIds then
+        values[#values + 1] = message[1]
+      end
+      for _, value in ipairs(message[2]) do
+        values[#values + 1] = value
+      end
+    end
+    state = chain(state, values)
+    if #messages > 0 then
+      cursor = '(' .. messages[#messages][1]
+    end
+    return #messages < PAGE, cursor, state, #messages
+  elseif type == 'TSDB-TYPE' then
+    local samples = redis.call('TS.RANGE', key, cursor == '' and '-' or cursor, '+', 'COUNT', PAGE)
+    local values = {}
+    for _, sample in ipairs(samples) do
+      values[#values + 1] = tostring(sample[1])
+      values[#values + 1] = tostring(sample[2])
+    end
+    state = chain(state, values)
+    if #samples > 0 then
+      cursor = tostring(samples[#samples][1] + 1)
+    end
+    return #samples < PAGE, cursor, state, #samples
+  end
+  if maxMemory > 0 and (redis.call('MEMORY', 'USAGE', key) or 0) > maxMemory then
+    return nil
+  end
+  if type == 'ReJSON-RL' then
+    state = chain(state, { redis.call('JSON.GET', key) })
+  else
+    state = chain(state, { redis.call('DUMP', key) })
+  end
+  return true, '', state, 1
+end
+
+local function digest(key, ignoreStreamIds, budget, maxMemory, cursor, state)
+  local type = redis.call('TYPE', key)['ok']
+  if type == 'none' then
+    return 'none', nil, nil, 0
+  end
+  local acc = ''
+  if state ~= '' then
+    local previous
+    previous, acc = string.match(state, '^(%S+) (.*)$')
+    if previous ~= type then
+      return 'skip', nil, nil, 0
+    end
+  end
+  local used = 0
+  repeat
+    local done, count
+    done, cursor, acc, count = step(key, type, ignoreStreamIds, maxMemory, cursor, acc)
+    if done == nil then
+      return 'skip', nil, nil, used
+    end
+    used = used + count
+    if done then
+      return 'done', redis.sha1hex(type .. ':' .. acc), nil, used
+    end
+  until used >= budget
+  return 'more', cursor, type .. ' ' .. acc, used
+end
@@ -0,0 +1,17 @@
+-- Digests the value of KEYS[1] (see digest-function.lua).
+-- Requires digest-function.lua.
+-- ARGV[1]: '1' to leave stream message ids out of the digest
+-- ARGV[2]: number of elements to digest in this call
+-- ARGV[3]: max memory usage in bytes of keys that are digested whole
+-- ARGV[4]: cursor returned by the previous call, or '' for the first call
+-- ARGV[5]: state returned by the previous call, or '' for the first call
+-- Returns kind followed by the digest for 'done', or by the cursor and state
+-- to continue from for 'more'.
+local kind, value, state = digest(KEYS[1], ARGV[1] == '1', tonumber(ARGV[2]), tonumber(ARGV[3]), ARGV[4], ARGV[5])
+if kind == 'done' then
+  return { kind, value }
+end
+if kind == 'more' then
+  return { kind, value, state }
+end
+return { kind }
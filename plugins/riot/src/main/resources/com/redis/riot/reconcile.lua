@@ -0,0 +1,133 @@
+-- Scans one page of the keyspace of this server and digests the keys of the
+-- page server-side. Requires digest-function.lua.
+-- ARGV[1]: SCAN cursor
+-- ARGV[2]: SCAN COUNT
+-- ARGV[3]: SCAN MATCH pattern, or '' for all keys
+-- ARGV[4]: 'slots' to return one aggregate per slot, 'keys' to return the
+--          digest of each key
+-- ARGV[5]: bitmap of slots to consider (bit i set for slot i, as with SETBIT),
+--          or '' for all slots
+-- ARGV[6]: '1' to leave stream message ids out of digests
+-- ARGV[7]: number of elements to digest across the keys of the page
+-- ARGV[8]: max memory usage in bytes of keys that are digested whole
+-- Returns the next cursor, the keys that are not done, and then:
+--   'slots': slot, key count, high and low 32 bits of the XOR of key hashes
+--   'keys':  key, digest
+-- Keys that are not done are returned as key, kind, cursor, state, kind being
+-- 'more' or 'skip' as returned by digest. Keys left once the page budget is
+-- spent are returned as 'more' with an empty cursor and state.
+local args = { ARGV[1], 'COUNT', ARGV[2] }
+if ARGV[3] ~= '' then
+  args[#args + 1] = 'MATCH'
+  args[#args + 1] = ARGV[3]
+end
+local scan = redis.call('SCAN', unpack(args))
+local bitmap = ARGV[5]
+local ignoreStreamIds = ARGV[6] == '1'
+local budget = tonumber(ARGV[7])
+local maxMemory = tonumber(ARGV[8])
+
+local crctab = {}
+for i = 0, 255 do
+  local crc = bit.lshift(i, 8)
+  for _ = 1, 8 do
+    if bit.band(crc, 0x8000) ~= 0 then
+      crc = bit.bxor(bit.lshift(crc, 1), 0x1021)
+    else
+      crc = bit.lshift(crc, 1)
+    end
+  end
+  crctab[i] = bit.band(crc, 0xffff)
+end
+
+local function slot(key)
+  local open = string.find(key, '{', 1, true)
+  if open then
+    local close = string.find(key, '}', open + 1, true)
+    if close and close > open + 1 then
+      key = string.sub(key, open + 1, close - 1)
+    end
+  end
+  local crc = 0
+  for i = 1, #key do
+    local index = bit.band(bit.bxor(bit.rshift(crc, 8), string.byte(key, i)), 0xff)
+    crc = bit.band(bit.bxor(bit.lshift(crc, 8), crctab[index]), 0xffff)
+  end
+  return bit.band(crc, 16383)
+end
+
+local function selected(s)
+  if bitmap == '' then
+    return true
+  end
+  local byte = string.byte(bitmap, math.floor(s / 8) + 1) or 0
+  return bit.band(byte, bit.lshift(1, 7 - s % 8)) ~= 0
+end
+
+local pending = {}
+
+-- Returns the digest of the given key, or nil if it is pending or does not
+-- exist
+local function keyDigest(key)
+  if budget <= 0 then
+    pending[#pending + 1] = key
+    pending[#pending + 1] = 'more'
+    pending[#pending + 1] = ''
+    pending[#pending + 1] = ''
+    return nil
+  end
+  local kind, value, state, used = digest(key, ignoreStreamIds, budget, maxMemory, '', '')
+  budget = budget - used
+  if kind == 'done' then
+    return value
+  end
+  if kind ~= 'none' then
+    pending[#pending + 1] = key
+    pending[#pending + 1] = kind
+    pending[#pending + 1] = value or ''
+    pending[#pending + 1] = state or ''
+  end
+  return nil
+end
+
+local result = { scan[1], pending }
+if ARGV[4] == 'keys' then
+  for _, key in ipairs(scan[2]) do
+    if selected(slot(key)) then
+      local d = keyDigest(key)
+      if d then
+        result[#result + 1] = key
+        result[#result + 1] = d
+      end
+    end
+  end
+  return result
+end
+local slots = {}
+local order = {}
+for _, key in ipairs(scan[2]) do
+  local s = slot(key)
+  if selected(s) then
+    local d = keyDigest(key)
+    if d then
+      local h = redis.sha1hex(#key .. ':' .. key .. d)
+      local aggregate = slots[s]
+      if not aggregate then
+        aggregate = { 0, 0, 0 }
+        slots[s] = aggregate
+        order[#order + 1] = s
+      end
+      aggregate[1] = aggregate[1] + 1
+      aggregate[2] = bit.bxor(aggregate[2], tonumber(string.sub(h, 1, 8), 16))
+      aggregate[3] = bit.bxor(aggregate[3], tonumber(string.sub(h, 9, 16), 16))
+    end
+  end
+end
+for _, s in ipairs(order) do
+  local aggregate = slots[s]
+  result[#result + 1] = s
+  result[#result + 1] = aggregate[1]
+  result[#result + 1] = aggregate[2]
+  result[#result + 1] = aggregate[3]
+end
+return result
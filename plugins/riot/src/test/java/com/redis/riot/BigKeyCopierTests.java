@@ -0,0 +1,27 @@
+package com.redis.riot;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.lettuce.core.cluster.SlotHash;
+
+class BigKeyCopierTests {
+
+	private static void assertSameSlot(String key) {
+		byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+		byte[] tempKey = BigKeyCopier.tempKey(bytes);
+		Assertions.assertNotNull(tempKey);
+		Assertions.assertNotEquals(key, new String(tempKey, StandardCharsets.UTF_8));
+		Assertions.assertEquals(SlotHash.getSlot(bytes), SlotHash.getSlot(tempKey));
+	}
+
+	@Test
+	void tempKeySameSlot() {
+		assertSameSlot("big:hash");
+		assertSameSlot("big:{user:1}:hash");
+		assertSameSlot("{user:1}");
+	}
+
+}
@@ -0,0 +1,48 @@
+package com.redis.riot;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.lettuce.core.codec.StringCodec;
+
+class KeySamplerTests {
+
+	@Test
+	void fraction() {
+		KeySampler<String> sampler = new KeySampler<>(StringCodec.UTF8, .1);
+		int count = 100000;
+		for (int index = 0; index < count; index++) {
+			sampler.test("key:" + index);
+		}
+		Assertions.assertEquals(count, sampler.getTested());
+		Assertions.assertEquals(count * .1, sampler.getSampled(), count * .01);
+	}
+
+	@Test
+	void deterministic() {
+		KeySampler<String> sampler1 = new KeySampler<>(StringCodec.UTF8, .5);
+		KeySampler<String> sampler2 = new KeySampler<>(StringCodec.UTF8, .5);
+		for (int index = 0; index < 1000; index++) {
+			String key = "user:" + index;
+			Assertions.assertEquals(sampler1.test(key), sampler2.test(key));
+		}
+	}
+
+	@Test
+	void all() {
+		KeySampler<String> sampler = new KeySampler<>(StringCodec.UTF8, 1);
+		for (int index = 0; index < 1000; index++) {
+			Assertions.assertTrue(sampler.test("key:" + index));
+		}
+	}
+
+	@Test
+	void upperBound() {
+		// no failure observed: close to the rule of three (3/n)
+		Assertions.assertEquals(3.0 / 10000, KeySampler.upperBound(0, 10000, KeySampler.Z_95), 1e-4);
+		double bound = KeySampler.upperBound(100, 10000, KeySampler.Z_95);
+		Assertions.assertTrue(bound > .01 && bound < .0125);
+		Assertions.assertEquals(1, KeySampler.upperBound(0, 0, KeySampler.Z_95));
+	}
+
+}
@@ -0,0 +1,80 @@
+package com.redis.riot;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.StringCodec;
+
+class KeySetTests {
+
+	private static final int KEY_COUNT = 100000;
+
+	private static Path keyFile(String content) throws Exception {
+		Path file = Files.createTempFile(KeySetTests.class.getSimpleName(), ".txt");
+		file.toFile().deleteOnExit();
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	@Test
+	void contains() throws Exception {
+		StringBuilder content = new StringBuilder();
+		for (int index = KEY_COUNT - 1; index >= 0; index--) {
+			content.append("tenant:").append(index).append(index % 2 == 0 ? "\n" : "\r\n");
+		}
+		content.append("\nlast");
+		KeySet keySet = KeySet.load(keyFile(content.toString()));
+		Assertions.assertEquals(KEY_COUNT + 1, keySet.size());
+		for (int index = 0; index < KEY_COUNT; index++) {
+			Assertions.assertTrue(keySet.contains(("tenant:" + index).getBytes(StandardCharsets.UTF_8)));
+			Assertions.assertFalse(keySet.contains(("other:" + index).getBytes(StandardCharsets.UTF_8)));
+		}
+		Assertions.assertTrue(keySet.contains("last".getBytes(StandardCharsets.UTF_8)));
+		Assertions.assertFalse(keySet.contains("tenant:".getBytes(StandardCharsets.UTF_8)));
+		Assertions.assertFalse(keySet.contains(new byte[0]));
+	}
+
+	@Test
+	void bloomFilterFalsePositiveRate() {
+		BloomFilter filter = new BloomFilter(KEY_COUNT, .01);
+		for (int index = 0; index < KEY_COUNT; index++) {
+			byte[] key = ("key:" + index).getBytes(StandardCharsets.UTF_8);
+			filter.add(key, 0, key.length);
+		}
+		int falsePositives = 0;
+		for (int index = 0; index < KEY_COUNT; index++) {
+			byte[] key = ("key:" + index).getBytes(StandardCharsets.UTF_8);
+			Assertions.assertTrue(filter.mightContain(key, 0, key.length));
+			byte[] other = ("other:" + index).getBytes(StandardCharsets.UTF_8);
+			if (filter.mightContain(other, 0, other.length)) {
+				falsePositives++;
+			}
+		}
+		Assertions.assertTrue(falsePositives < KEY_COUNT * .02, "Too many false positives: " + falsePositives);
+	}
+
+	@Test
+	void keyFilter() throws Exception {
+		KeyFilterArgs args = new KeyFilterArgs();
+		args.setIncludeFile(keyFile("key1\nkey2\nkey3\n"));
+		args.setExcludeFile(keyFile("key2\n"));
+		args.setIncludes(Arrays.asList("glob:*"));
+		Predicate<String> predicate = args.predicate(StringCodec.UTF8).get();
+		Assertions.assertTrue(predicate.test("key1"));
+		Assertions.assertFalse(predicate.test("key2"));
+		Assertions.assertTrue(predicate.test("glob:1"));
+		Assertions.assertFalse(predicate.test("key4"));
+		Optional<Predicate<byte[]>> bytePredicate = args.predicate(ByteArrayCodec.INSTANCE);
+		Assertions.assertTrue(bytePredicate.get().test("key3".getBytes(StandardCharsets.UTF_8)));
+		Assertions.assertFalse(bytePredicate.get().test("key2".getBytes(StandardCharsets.UTF_8)));
+	}
+
+}
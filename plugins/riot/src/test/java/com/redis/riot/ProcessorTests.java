@@ -57,6 +57,22 @@ class ProcessorTests {
 		assertFalse(is999999.test("foo"));
 	}
 
+	@Test
+	void partitionSlotRanges() {
+		List<Range> ranges = PartitionArgs.slotRanges(3);
+		Assertions.assertEquals(3, ranges.size());
+		Assertions.assertEquals(0, ranges.get(0).getMin());
+		for (int index = 1; index < ranges.size(); index++) {
+			Assertions.assertEquals(ranges.get(index - 1).getMax() + 1, ranges.get(index).getMin());
+		}
+		Assertions.assertEquals(SlotHash.SLOT_COUNT - 1, ranges.get(ranges.size() - 1).getMax());
+		KeyFilterArgs options = new KeyFilterArgs();
+		String key = "abc";
+		long matches = ranges.stream().map(r -> options.slotRangePredicate(StringCodec.UTF8, r))
+				.filter(p -> p.test(key)).count();
+		Assertions.assertEquals(1, matches);
+	}
+
 	private List<Range> slotRangeList(int start, int end) {
 		return Arrays.asList(new Range(start, end));
 	}
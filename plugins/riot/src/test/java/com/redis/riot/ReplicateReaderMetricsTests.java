@@ -0,0 +1,32 @@
+package com.redis.riot;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemProcessor;
+
+import com.redis.spring.batch.item.redis.common.KeyValue;
+import com.redis.spring.batch.item.redis.reader.KeyEvent;
+
+class ReplicateReaderMetricsTests {
+
+	private static KeyValue<String> keyEvent(String key) {
+		KeyValue<String> kv = new KeyValue<>();
+		kv.setKey(key);
+		return kv;
+	}
+
+	@Test
+	void pendingKeysIgnoreFilteredKeys() throws Exception {
+		ReplicateReaderMetrics<String> metrics = new ReplicateReaderMetrics<>();
+		ItemProcessor<KeyEvent<String>, KeyEvent<String>> processor = metrics
+				.processor(item -> item.getKey().startsWith("good:") ? item : null);
+		Assertions.assertNotNull(processor.process(keyEvent("good:1")));
+		Assertions.assertNull(processor.process(keyEvent("bad:1")));
+		Assertions.assertNotNull(processor.process(keyEvent("good:2")));
+		Assertions.assertEquals(2, metrics.getPendingKeys());
+		metrics.afterWrite(Chunk.of(keyEvent("good:1"), keyEvent("good:2")));
+		Assertions.assertEquals(0, metrics.getPendingKeys());
+	}
+
+}
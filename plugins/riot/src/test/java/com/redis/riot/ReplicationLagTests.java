@@ -0,0 +1,92 @@
+package com.redis.riot;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemProcessor;
+
+import com.redis.spring.batch.item.redis.common.KeyValue;
+import com.redis.spring.batch.item.redis.reader.KeyEvent;
+
+class ReplicationLagTests {
+
+	private static final byte[] PREFIX = "prefix:".getBytes(StandardCharsets.UTF_8);
+
+	private static KeyValue<byte[]> keyValue(String key) {
+		KeyValue<byte[]> kv = new KeyValue<>();
+		kv.setKey(key.getBytes(StandardCharsets.UTF_8));
+		kv.setType(KeyValue.TYPE_STRING);
+		return kv;
+	}
+
+	private static ReplicationLag<byte[]> lag() {
+		ReplicationLag<byte[]> lag = new ReplicationLag<>(new ReplicateReaderMetrics<>());
+		lag.setCapacity(1);
+		lag.setSnapshotInterval(Duration.ZERO);
+		return lag;
+	}
+
+	private static void replicate(ReplicationLag<byte[]> lag, ItemProcessor<KeyValue<byte[]>, KeyValue<byte[]>> processor,
+			String key) throws Exception {
+		KeyValue<byte[]> item = keyValue(key);
+		lag.keyProcessor(null).process(item);
+		KeyValue<byte[]> result = lag.processor(processor).process(item);
+		if (result != null) {
+			lag.afterWrite(Chunk.of(result));
+		}
+	}
+
+	@Test
+	void measuresWrittenKeys() throws Exception {
+		ReplicationLag<byte[]> lag = lag();
+		replicate(lag, null, "key1");
+		replicate(lag, null, "key2");
+		Assertions.assertEquals(2, lag.getCount());
+	}
+
+	@Test
+	void measuresRenamedKeys() throws Exception {
+		// key is modified in place, like --mcache does
+		ItemProcessor<KeyValue<byte[]>, KeyValue<byte[]>> processor = item -> {
+			byte[] key = new byte[PREFIX.length + item.getKey().length];
+			System.arraycopy(PREFIX, 0, key, 0, PREFIX.length);
+			System.arraycopy(item.getKey(), 0, key, PREFIX.length, item.getKey().length);
+			item.setKey(key);
+			return item;
+		};
+		ReplicationLag<byte[]> lag = lag();
+		replicate(lag, processor, "key1");
+		// capacity is 1 so the second key is only measured if the first one was
+		// not left behind
+		replicate(lag, processor, "key2");
+		Assertions.assertEquals(2, lag.getCount());
+	}
+
+	@Test
+	void forgetsFilteredKeys() throws Exception {
+		ReplicationLag<byte[]> lag = lag();
+		replicate(lag, item -> null, "key1");
+		replicate(lag, null, "key2");
+		Assertions.assertEquals(1, lag.getCount());
+	}
+
+	@Test
+	void ignoresKeysRejectedByReader() throws Exception {
+		ReplicationLag<byte[]> lag = lag();
+		ItemProcessor<KeyEvent<byte[]>, KeyEvent<byte[]>> keyFilter = item -> new String(item.getKey(),
+				StandardCharsets.UTF_8).startsWith("good:") ? item : null;
+		ItemProcessor<KeyEvent<byte[]>, KeyEvent<byte[]>> keyProcessor = lag.keyProcessor(keyFilter);
+		// capacity is 1 so rejected keys must not be tracked for the good one to be
+		for (int index = 0; index < 10; index++) {
+			Assertions.assertNull(keyProcessor.process(keyValue("bad:" + index)));
+		}
+		KeyValue<byte[]> item = keyValue("good:1");
+		keyProcessor.process(item);
+		lag.afterWrite(Chunk.of(lag.processor(null).process(item)));
+		Assertions.assertEquals(1, lag.getCount());
+	}
+
+}
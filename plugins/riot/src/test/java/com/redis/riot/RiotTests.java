@@ -121,6 +121,17 @@ abstract class RiotTests extends AbstractRiotApplicationTestBase {
 		Assertions.assertArrayEquals(connection.sync().get(key), targetConnection.sync().get(key));
 	}
 
+	@Test
+	void replicateNodeWrites(TestInfo info) throws Exception {
+		generate(info, generator(1000));
+		Replicate replicate = new Replicate();
+		replicate.getTargetRedisWriterArgs().setNodeWrites(true);
+		replicate.getTargetRedisWriterArgs().setNodePipelines(2);
+		replicate.setCompareMode(CompareMode.NONE);
+		execute(replicate, info);
+		assertCompare(info);
+	}
+
 	@Test
 	void filterKeySlot(TestInfo info) throws Exception {
 		enableKeyspaceNotifications();
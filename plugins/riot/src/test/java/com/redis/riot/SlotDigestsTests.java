@@ -0,0 +1,62 @@
+package com.redis.riot;
+
+import java.util.BitSet;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class SlotDigestsTests {
+
+	private static SlotDigests digests() {
+		SlotDigests digests = new SlotDigests();
+		for (int slot = 0; slot < SlotDigests.SLOTS; slot++) {
+			digests.add(slot, 3, slot * 0x9E3779B97F4A7C15L);
+		}
+		return digests;
+	}
+
+	@Test
+	void equal() {
+		Assertions.assertTrue(digests().diff(digests()).isEmpty());
+	}
+
+	@Test
+	void orderIndependent() {
+		SlotDigests digests1 = new SlotDigests();
+		digests1.add(42, 1, 0x1234L);
+		digests1.add(42, 1, 0xABCDL);
+		SlotDigests digests2 = new SlotDigests();
+		digests2.add(42, 1, 0xABCDL);
+		digests2.add(42, 1, 0x1234L);
+		Assertions.assertTrue(digests1.diff(digests2).isEmpty());
+	}
+
+	@Test
+	void differingSlots() {
+		SlotDigests source = digests();
+		SlotDigests target = digests();
+		target.add(0, 0, 1);
+		target.add(8000, 1, 0x5555L);
+		target.add(SlotDigests.SLOTS - 1, -1, 0);
+		BitSet diff = source.diff(target);
+		Assertions.assertEquals(3, diff.cardinality());
+		Assertions.assertTrue(diff.get(0));
+		Assertions.assertTrue(diff.get(8000));
+		Assertions.assertTrue(diff.get(SlotDigests.SLOTS - 1));
+		Assertions.assertEquals(diff, source.diff(target, 2));
+	}
+
+	@Test
+	void bitmap() {
+		BitSet slots = new BitSet();
+		slots.set(0);
+		slots.set(9);
+		slots.set(SlotDigests.SLOTS - 1);
+		byte[] bitmap = SlotDigests.bitmap(slots);
+		Assertions.assertEquals(SlotDigests.SLOTS / 8, bitmap.length);
+		Assertions.assertEquals((byte) 0x80, bitmap[0]);
+		Assertions.assertEquals((byte) 0x40, bitmap[1]);
+		Assertions.assertEquals((byte) 0x01, bitmap[bitmap.length - 1]);
+	}
+
+}
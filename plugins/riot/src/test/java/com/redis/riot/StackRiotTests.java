@@ -6,6 +6,7 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -23,6 +24,12 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInfo;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.Chunk;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.json.JacksonJsonObjectReader;
 import org.springframework.batch.item.json.JsonItemReader;
@@ -30,8 +37,10 @@ import org.springframework.batch.item.json.builder.JsonItemReaderBuilder;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.spel.SpelCompilerMode;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
@@ -58,9 +67,12 @@ import com.redis.spring.batch.item.redis.reader.KeyComparison;
 import com.redis.spring.batch.item.redis.reader.KeyComparison.Status;
 import com.redis.testcontainers.RedisStackContainer;
 
+import io.lettuce.core.AbstractRedisClient;
 import io.lettuce.core.GeoArgs;
 import io.lettuce.core.Range;
+import io.lettuce.core.RedisURI;
 import io.lettuce.core.StreamMessage;
+import io.lettuce.core.XAddArgs;
 import io.lettuce.core.cluster.SlotHash;
 import io.lettuce.core.codec.ByteArrayCodec;
 import io.lettuce.core.codec.StringCodec;
@@ -162,10 +174,26 @@ class StackRiotTests extends RiotTests {
 		return ExitCode.OK;
 	}
 
+	private int executeCompareDiffFile(ParseResult parseResult) {
+		Compare command = command(parseResult);
+		command.setDiffFile(replace(command.getDiffFile()));
+		return ExitCode.OK;
+	}
+
+	private int executeReplicateKeysFrom(ParseResult parseResult) {
+		Replicate command = command(parseResult);
+		command.setKeysFrom(replace(command.getKeysFrom()));
+		return ExitCode.OK;
+	}
+
 	private String replace(String file) {
 		return file.replace("/tmp", tempDir.toString());
 	}
 
+	private Path replace(Path file) {
+		return Paths.get(replace(file.toString()));
+	}
+
 	@SuppressWarnings("rawtypes")
 	@Test
 	@Disabled("Needs update")
@@ -526,6 +554,23 @@ class StackRiotTests extends RiotTests {
 		Assertions.assertEquals(keyCount, indexInfo.getNumDocs());
 	}
 
+	@Test
+	void replicateKeyIncludeFile(TestInfo info) throws Throwable {
+		generate(info, generator(100, ItemType.STRING));
+		Path includeFile = tempFile("key-include.txt");
+		Files.write(includeFile, Arrays.asList("gen:1", "gen:2", "gen:3", "missing"));
+		Path excludeFile = tempFile("key-exclude.txt");
+		Files.write(excludeFile, Arrays.asList("gen:2"));
+		Replicate replication = new Replicate();
+		replication.setCompareMode(CompareMode.NONE);
+		replication.getReaderArgs().getKeyFilterArgs().setIncludeFile(includeFile);
+		replication.getReaderArgs().getKeyFilterArgs().setExcludeFile(excludeFile);
+		execute(replication, info);
+		Assertions.assertEquals(2, targetRedisCommands.dbsize());
+		Assertions.assertEquals(redisCommands.get("gen:1"), targetRedisCommands.get("gen:1"));
+		Assertions.assertEquals(redisCommands.get("gen:3"), targetRedisCommands.get("gen:3"));
+	}
+
 	@Test
 	void replicateKeyExclude(TestInfo info) throws Throwable {
 		String filename = "replicate-key-exclude";
@@ -591,6 +636,146 @@ class StackRiotTests extends RiotTests {
 		assertCompare(info);
 	}
 
+	@Test
+	@EnabledForJreRange(min = JRE.JAVA_21)
+	void replicateVirtualThreads(TestInfo info) throws Throwable {
+		generate(info, generator(73));
+		Assertions.assertTrue(redisCommands.dbsize() > 0);
+		execute(info, "replicate-virtual-threads");
+		assertCompare(info);
+	}
+
+	@Test
+	void replicatePartitions(TestInfo info) throws Throwable {
+		String filename = "replicate-partitions";
+		generate(info, generator(73));
+		Assertions.assertTrue(redisCommands.dbsize() > 0);
+		execute(info, filename);
+		assertCompare(info);
+	}
+
+	@Test
+	void replicateCheckpoint(TestInfo info) throws Throwable {
+		String filename = "replicate-checkpoint";
+		String checkpointKey = "riot:checkpoint";
+		generate(info, generator(73));
+		Assertions.assertTrue(redisCommands.dbsize() > 0);
+		execute(info, filename);
+		Map<String, String> checkpoint = targetRedisCommands.hgetall(checkpointKey);
+		Assertions.assertFalse(checkpoint.isEmpty());
+		checkpoint.values().forEach(v -> Assertions.assertEquals(ResumableScanItemReader.FINISHED, v));
+		targetRedisCommands.del(checkpointKey);
+		assertCompare(info);
+	}
+
+	@Test
+	void replicateBigKeys(TestInfo info) throws Throwable {
+		generate(info, generator(73));
+		String hash = "big:hash";
+		String zset = "big:zset";
+		String list = "big:list";
+		String stream = "big:stream";
+		Map<String, String> fields = new HashMap<>();
+		for (int index = 0; index < 5000; index++) {
+			String member = "member:" + index;
+			fields.put("field:" + index, "value:" + index);
+			redisCommands.zadd(zset, index, member);
+			redisCommands.rpush(list, member);
+			redisCommands.xadd(stream, Map.of("field", member));
+		}
+		redisCommands.hset(hash, fields);
+		redisCommands.expire(hash, 3600);
+		execute(info, "replicate-big-keys");
+		Assertions.assertEquals(redisCommands.hgetall(hash), targetRedisCommands.hgetall(hash));
+		Assertions.assertTrue(targetRedisCommands.ttl(hash) > 0);
+		Assertions.assertEquals(redisCommands.zrangeWithScores(zset, 0, -1),
+				targetRedisCommands.zrangeWithScores(zset, 0, -1));
+		Assertions.assertEquals(redisCommands.lrange(list, 0, -1), targetRedisCommands.lrange(list, 0, -1));
+		Assertions.assertEquals(streamIds(redisCommands.xrange(stream, Range.create("-", "+"))),
+				streamIds(targetRedisCommands.xrange(stream, Range.create("-", "+"))));
+		assertCompare(info);
+	}
+
+	@Test
+	void replicateBigKeysDump(TestInfo info) throws Throwable {
+		generate(info, generator(73));
+		String zset = "big:zset";
+		for (int index = 0; index < 10000; index++) {
+			redisCommands.zadd(zset, index, "member:" + index);
+		}
+		execute(info, "replicate-big-keys-dump");
+		Assertions.assertEquals(redisCommands.zrangeWithScores(zset, 0, -1),
+				targetRedisCommands.zrangeWithScores(zset, 0, -1));
+		assertCompare(info);
+	}
+
+	@Test
+	void bigKeyLaneDuplicateKeys(TestInfo info) throws Throwable {
+		String list = "big:list";
+		String stream = "big:stream";
+		for (int index = 0; index < 5000; index++) {
+			redisCommands.rpush(list, "element:" + index);
+			redisCommands.xadd(stream, Map.of("field", "value:" + index));
+		}
+		StepExecution stepExecution = new StepExecution("bigKeyLane", new JobExecution(1L));
+		try (BigKeyLane lane = new BigKeyLane(redisClient, targetRedisClient,
+				LoggerFactory.getLogger(StackRiotTests.class))) {
+			lane.setThreads(4);
+			lane.setPageSize(100);
+			for (int round = 0; round < 3; round++) {
+				lane.submit(bigKey(list, KeyValue.TYPE_LIST));
+				lane.submit(bigKey(stream, KeyValue.TYPE_STREAM));
+			}
+			// stale type: the copy must use the current one
+			lane.submit(bigKey(list, KeyValue.TYPE_HASH));
+			lane.afterStep(stepExecution);
+		}
+		Assertions.assertTrue(stepExecution.getFailureExceptions().isEmpty());
+		Assertions.assertEquals(redisCommands.lrange(list, 0, -1), targetRedisCommands.lrange(list, 0, -1));
+		Assertions.assertEquals(streamIds(redisCommands.xrange(stream, Range.create("-", "+"))),
+				streamIds(targetRedisCommands.xrange(stream, Range.create("-", "+"))));
+	}
+
+	@Test
+	void bigKeyWriterSameKey(TestInfo info) throws Throwable {
+		String hash = "big:hash";
+		Map<String, String> fields = new HashMap<>();
+		for (int index = 0; index < 5000; index++) {
+			fields.put("field:" + index, "value:" + index);
+		}
+		redisCommands.hset(hash, fields);
+		Map<String, String> stale = Map.of("stale", "value");
+		StepExecution stepExecution = new StepExecution("bigKeyWriter", new JobExecution(1L));
+		try (BigKeyLane lane = new BigKeyLane(redisClient, targetRedisClient,
+				LoggerFactory.getLogger(StackRiotTests.class))) {
+			lane.setPageSize(10);
+			// regular write of the same key while the lane is copying it
+			BigKeyItemWriter writer = new BigKeyItemWriter(lane,
+					chunk -> chunk.forEach(item -> targetRedisCommands.hset(hash, stale)));
+			KeyValue<byte[]> bigKey = bigKey(hash, KeyValue.TYPE_HASH);
+			bigKey.setMemoryUsage(DataSize.ofMegabytes(1).toBytes());
+			KeyValue<byte[]> smallKey = bigKey(hash, KeyValue.TYPE_HASH);
+			smallKey.setValue(Map.of("stale".getBytes(StandardCharsets.UTF_8), "value".getBytes(StandardCharsets.UTF_8)));
+			writer.write(Chunk.of(bigKey, smallKey));
+			lane.afterStep(stepExecution);
+		}
+		Assertions.assertTrue(stepExecution.getFailureExceptions().isEmpty());
+		Map<String, String> target = targetRedisCommands.hgetall(hash);
+		// either write may end last but their elements are never mixed
+		Assertions.assertTrue(target.equals(fields) || target.equals(stale), "Mixed writes: " + target.size());
+	}
+
+	private static KeyValue<byte[]> bigKey(String key, String type) {
+		KeyValue<byte[]> keyValue = new KeyValue<>();
+		keyValue.setKey(key.getBytes(StandardCharsets.UTF_8));
+		keyValue.setType(type);
+		return keyValue;
+	}
+
+	private static List<String> streamIds(List<StreamMessage<String, String>> messages) {
+		return messages.stream().map(StreamMessage::getId).collect(Collectors.toList());
+	}
+
 	@Test
 	void replicateNoStreamId(TestInfo info) throws Throwable {
 		String filename = "replicate-no-stream-id";
@@ -671,6 +856,47 @@ class StackRiotTests extends RiotTests {
 		Assertions.assertArrayEquals("v1".getBytes(StandardCharsets.UTF_8), Arrays.copyOfRange(raw, 1, raw.length));
 	}
 
+	@Test
+	void replicateMcacheDump(TestInfo info) throws Throwable {
+		// raw, integer-encoded and LZF-compressed strings
+		Map<String, String> strings = new LinkedHashMap<>();
+		strings.put("k1", "v1");
+		strings.put("k2", "12345");
+		strings.put("k3", "abc".repeat(100));
+		redisCommands.mset(strings);
+		redisCommands.hset("h1", "field1", "value1");
+		Replicate replication = new Replicate();
+		replication.setCompareMode(CompareMode.NONE);
+		replication.setMcache(true);
+		replication.setKeyPrefix("mc:");
+		execute(replication, info);
+		StatefulRedisModulesConnection<byte[], byte[]> targetConnection = RedisModulesUtils
+				.connection(targetRedisClient, ByteArrayCodec.INSTANCE);
+		for (Map.Entry<String, String> entry : strings.entrySet()) {
+			byte[] raw = targetConnection.sync().get(("mc:" + entry.getKey()).getBytes(StandardCharsets.UTF_8));
+			Assertions.assertEquals((byte) 0x01, raw[0]);
+			Assertions.assertArrayEquals(entry.getValue().getBytes(StandardCharsets.UTF_8),
+					Arrays.copyOfRange(raw, 1, raw.length));
+		}
+		Assertions.assertEquals(redisCommands.hgetall("h1"), targetRedisCommands.hgetall("mc:h1"));
+	}
+
+	@Test
+	void replicateFanOut(TestInfo info) throws Throwable {
+		generate(info, generator(73));
+		Replicate replication = new Replicate();
+		replication.setCompareMode(CompareMode.NONE);
+		replication.getFanOutArgs().getUris().add(RedisURI.builder(targetRedisURI).withDatabase(1).build());
+		execute(replication, info);
+		Assertions.assertEquals(redisCommands.dbsize(), targetRedisCommands.dbsize());
+		try (StatefulRedisModulesConnection<String, String> connection = RedisModulesUtils
+				.connection(targetRedisClient)) {
+			connection.sync().select(1);
+			Assertions.assertEquals(redisCommands.dbsize(), connection.sync().dbsize());
+			connection.sync().flushdb();
+		}
+	}
+
 	@Test
 	void replicateHyperloglog(TestInfo info) throws Throwable {
 		String key = "crawled:20171124";
@@ -707,6 +933,42 @@ class StackRiotTests extends RiotTests {
 		runLiveReplication(info, "replicate-live");
 	}
 
+	@Test
+	void replicateLiveCoalesce(TestInfo info) throws Exception {
+		enableKeyspaceNotifications();
+		String counter = "counter";
+		String session = "session";
+		executeWhenSubscribers(() -> updateHotKeys(counter, session, 1000));
+		execute(info, "replicate-live-coalesce");
+		Assertions.assertEquals("1000", targetRedisCommands.get(counter));
+		Assertions.assertEquals(0, targetRedisCommands.exists(session));
+	}
+
+	private Long updateHotKeys(String counter, String session, int count) {
+		for (int index = 0; index < count; index++) {
+			redisCommands.incr(counter);
+			redisCommands.set(session, String.valueOf(index));
+		}
+		return redisCommands.del(session);
+	}
+
+	@Test
+	void replicateChangeStream(TestInfo info) throws Exception {
+		String stream = "riot:changes";
+		redisCommands.set("string1", "value1");
+		redisCommands.hset("hash1", "field1", "value1");
+		targetRedisCommands.set("deleted1", "value1");
+		for (String key : Arrays.asList("string1", "hash1", "string1", "deleted1")) {
+			redisCommands.xadd(stream, Map.of("key", key));
+		}
+		execute(info, "replicate-cdc");
+		Assertions.assertEquals("value1", targetRedisCommands.get("string1"));
+		Assertions.assertEquals(redisCommands.hgetall("hash1"), targetRedisCommands.hgetall("hash1"));
+		Assertions.assertEquals(0, targetRedisCommands.exists("deleted1"));
+		Assertions.assertEquals(0, targetRedisCommands.exists(stream));
+		Assertions.assertEquals(0, redisCommands.xpending(stream, "riot").getCount());
+	}
+
 	@Test
 	void replicateLiveReadThreads(TestInfo info) throws Exception {
 		runLiveReplication(info, "replicate-live-read-threads");
@@ -749,6 +1011,123 @@ class StackRiotTests extends RiotTests {
 		execute(info, "compare-key-processor");
 	}
 
+	@Test
+	void compareDigest(TestInfo info) throws Throwable {
+		generate(info, generator(73));
+		String key = "digest:hash";
+		redisCommands.hset(key, Map.of("field1", "value1", "field2", "value2"));
+		execute(testInfo(info, "replicate"), "replicate");
+		Assertions.assertEquals(0, execute(info, "compare-digest"));
+		targetRedisCommands.hset(key, "field2", "changed");
+		Assertions.assertNotEquals(0, execute(testInfo(info, "mismatch"), "compare-digest"));
+	}
+
+	@Test
+	void compareDiffFile(TestInfo info) throws Throwable {
+		generate(info, generator(73));
+		execute(testInfo(info, "replicate"), "replicate");
+		String changed = "diff:changed";
+		String missing = "diff:missing";
+		redisCommands.set(changed, "source");
+		targetRedisCommands.set(changed, "target");
+		redisCommands.sadd(missing, "member1", "member2");
+		Path diffFile = tempFile("riot-diff.txt");
+		Assertions.assertNotEquals(0, execute(info, "compare-diff-file", this::executeCompareDiffFile));
+		List<String> lines = Files.readAllLines(diffFile);
+		Assertions.assertEquals(2, lines.size());
+		execute(testInfo(info, "replay"), "replicate-keys-from", this::executeReplicateKeysFrom);
+		Assertions.assertEquals("source", targetRedisCommands.get(changed));
+		Assertions.assertEquals(redisCommands.smembers(missing), targetRedisCommands.smembers(missing));
+		assertCompare(info);
+	}
+
+	@Test
+	void diffFileProcessedKeys(TestInfo info) throws Throwable {
+		// processed keys cannot be replayed from the source
+		Replicate keyExpression = new Replicate();
+		keyExpression.setDiffFile(tempFile("riot-diff.txt"));
+		keyExpression.getProcessorArgs().setKeyExpression(Expression.parseTemplate("prefix:#{key}"));
+		Assertions.assertThrows(Exception.class, () -> execute(keyExpression, info));
+		Replicate mcache = new Replicate();
+		mcache.setDiffFile(tempFile("riot-diff.txt"));
+		mcache.setMcache(true);
+		Assertions.assertThrows(Exception.class, () -> execute(mcache, testInfo(info, "mcache")));
+	}
+
+	@Test
+	void slotDigestsBigKeys(TestInfo info) throws Throwable {
+		String hash = "big:hash";
+		StringBuilder string = new StringBuilder();
+		for (int index = 0; index < 5000; index++) {
+			String member = "member:" + index;
+			redisCommands.hset(hash, "field:" + index, "value:" + index);
+			redisCommands.sadd("big:set", member);
+			redisCommands.zadd("big:zset", index, member);
+			redisCommands.rpush("big:list", member);
+			redisCommands.xadd("big:stream", Map.of("field", member));
+			string.append(member);
+		}
+		redisCommands.set("big:string", string.toString());
+		execute(testInfo(info, "replicate"), "replicate");
+		// big keys are digested over several calls, and must digest the same
+		SlotDigests whole = slotDigests(redisClient, Long.MAX_VALUE);
+		Assertions.assertTrue(whole.diff(slotDigests(redisClient, 10)).isEmpty());
+		Assertions.assertTrue(whole.diff(slotDigests(targetRedisClient, 10)).isEmpty());
+		Assertions.assertEquals(keyDigests(redisClient, Long.MAX_VALUE), keyDigests(targetRedisClient, 10));
+		targetRedisCommands.hset(hash, "field:4999", "changed");
+		Assertions.assertEquals(Collections.singleton(SlotHash.getSlot(hash)),
+				whole.diff(slotDigests(targetRedisClient, 10)).stream().boxed().collect(Collectors.toSet()));
+	}
+
+	private static SlotDigests slotDigests(AbstractRedisClient client, long budget) {
+		try (SlotDigestScanner scanner = new SlotDigestScanner(client)) {
+			scanner.getIncrementalDigest().setBudget(budget);
+			scanner.open();
+			return scanner.slotDigests(null);
+		}
+	}
+
+	private static Map<String, String> keyDigests(AbstractRedisClient client, long budget) {
+		try (SlotDigestScanner scanner = new SlotDigestScanner(client)) {
+			scanner.getIncrementalDigest().setBudget(budget);
+			scanner.open();
+			return scanner.keyDigests(null).entrySet().stream()
+					.collect(Collectors.toMap(e -> new String(e.getKey().array(), StandardCharsets.UTF_8),
+							e -> new String(e.getValue(), StandardCharsets.UTF_8)));
+		}
+	}
+
+	@Test
+	void reconcile(TestInfo info) throws Throwable {
+		generate(info, generator(73));
+		execute(testInfo(info, "replicate"), "replicate");
+		String changed = "reconcile:changed";
+		String missing = "reconcile:missing";
+		String extra = "reconcile:extra";
+		redisCommands.set(changed, "source");
+		targetRedisCommands.set(changed, "target");
+		redisCommands.hset(missing, Map.of("field", "value"));
+		targetRedisCommands.set(extra, "value");
+		execute(info, "reconcile");
+		Assertions.assertEquals("source", targetRedisCommands.get(changed));
+		Assertions.assertEquals(redisCommands.hgetall(missing), targetRedisCommands.hgetall(missing));
+		Assertions.assertEquals(0, targetRedisCommands.exists(extra));
+		assertCompare(info);
+	}
+
+	@Test
+	void reconcileNoStreamId(TestInfo info) throws Throwable {
+		String stream = "reconcile:stream";
+		for (int index = 1; index <= 10; index++) {
+			Map<String, String> body = Map.of("field", "value:" + index);
+			redisCommands.xadd(stream, new XAddArgs().id("1-" + index), body);
+			// same messages with different ids
+			targetRedisCommands.xadd(stream, new XAddArgs().id("2-" + index), body);
+		}
+		execute(info, "reconcile-no-stream-id");
+		Assertions.assertEquals("2-1", targetRedisCommands.xrange(stream, Range.create("-", "+")).get(0).getId());
+	}
+
 	@Test
 	void keyProcessor(TestInfo info) throws Throwable {
 		String key1 = "key1";
@@ -807,6 +1186,31 @@ class StackRiotTests extends RiotTests {
 		}
 	}
 
+	@Test
+	void processorCompiled() throws Exception {
+		Map<String, Expression> expressions = new LinkedHashMap<>();
+		expressions.put("field1", Expression.parse("'value1'"));
+		expressions.put("field2", Expression.parse("field1.toUpperCase()"));
+		expressions.put("field3", Expression.parse("index * 2"));
+		ImportProcessorArgs args = new ImportProcessorArgs();
+		args.setExpressions(expressions);
+		args.setFilter(Expression.parse("index<10"));
+		args.setCompilerMode(SpelCompilerMode.MIXED);
+		ItemProcessor<Map<String, Object>, Map<String, Object>> processor = AbstractImportCommand
+				.processor(evaluationContext(), args);
+		for (int index = 0; index < 100; index++) {
+			Map<String, Object> map = new HashMap<>();
+			map.put("index", index);
+			Map<String, Object> result = processor.process(map);
+			if (index < 10) {
+				assertEquals("VALUE1", result.get("field2"));
+				assertEquals(index * 2, result.get("field3"));
+			} else {
+				Assertions.assertNull(result);
+			}
+		}
+	}
+
 	private EvaluationContext evaluationContext() {
 		StandardEvaluationContext context = new StandardEvaluationContext();
 		context.addPropertyAccessor(new QuietMapAccessor());
@@ -0,0 +1,54 @@
+package com.redis.riot;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import com.redis.spring.batch.item.redis.common.KeyValue;
+
+import io.lettuce.core.codec.StringCodec;
+
+class WrittenKeysTests {
+
+	private static WrittenKeys<String> writtenKeys(int maxKeys) {
+		WrittenKeys<String> writtenKeys = new WrittenKeys<>(StringCodec.UTF8,
+				LoggerFactory.getLogger(WrittenKeysTests.class));
+		writtenKeys.setMaxKeys(maxKeys);
+		return writtenKeys;
+	}
+
+	private static KeyValue<String> keyValue(String key) {
+		KeyValue<String> kv = new KeyValue<>();
+		kv.setKey(key);
+		kv.setType(KeyValue.TYPE_STRING);
+		return kv;
+	}
+
+	@Test
+	void tracking() throws Exception {
+		WrittenKeys<String> writtenKeys = writtenKeys(10);
+		writtenKeys.processor(null).process(keyValue("key:1"));
+		writtenKeys.processor(item -> null).process(keyValue("key:2"));
+		Assertions.assertTrue(writtenKeys.test("key:1"));
+		Assertions.assertFalse(writtenKeys.test("key:2"), "filtered key should not be recorded");
+		Assertions.assertFalse(writtenKeys.test("key:3"));
+		Assertions.assertEquals(1, writtenKeys.size());
+		Assertions.assertFalse(writtenKeys.isOverflow());
+	}
+
+	@Test
+	void overflow() {
+		WrittenKeys<String> writtenKeys = writtenKeys(3);
+		for (int index = 0; index < 3; index++) {
+			writtenKeys.add("key:" + index);
+		}
+		Assertions.assertFalse(writtenKeys.isOverflow());
+		Assertions.assertFalse(writtenKeys.test("other"));
+		writtenKeys.add("key:3");
+		Assertions.assertTrue(writtenKeys.isOverflow());
+		Assertions.assertEquals(0, writtenKeys.size());
+		// verification falls back to all keys
+		Assertions.assertTrue(writtenKeys.test("other"));
+	}
+
+}
@@ -0,0 +1,85 @@
+package com.redis.riot.meesho;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class DumpStringsTests {
+
+	private static final byte[] VERSION = { 0x0b, 0x00 };
+
+	private static byte[] payload(int... object) {
+		byte[] payload = new byte[object.length + 10];
+		for (int index = 0; index < object.length; index++) {
+			payload[index] = (byte) object[index];
+		}
+		System.arraycopy(VERSION, 0, payload, object.length, VERSION.length);
+		long crc = Crc64.crc64(payload, 0, object.length + VERSION.length);
+		for (int index = 0; index < 8; index++) {
+			payload[object.length + VERSION.length + index] = (byte) (crc >>> (8 * index));
+		}
+		return payload;
+	}
+
+	private static String string(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void crc64() {
+		Assertions.assertEquals(0xe9c6d914c4b8d9caL,
+				Crc64.crc64("123456789".getBytes(StandardCharsets.US_ASCII), 0, 9));
+	}
+
+	@Test
+	void readRaw() {
+		Assertions.assertEquals("bar", string(DumpStrings.value(payload(0, 3, 'b', 'a', 'r'))));
+	}
+
+	@Test
+	void readIntegers() {
+		Assertions.assertEquals("123", string(DumpStrings.value(payload(0, 0xc0, 123))));
+		Assertions.assertEquals("-2", string(DumpStrings.value(payload(0, 0xc0, 0xfe))));
+		Assertions.assertEquals("12345", string(DumpStrings.value(payload(0, 0xc1, 0x39, 0x30))));
+		Assertions.assertEquals("305419896", string(DumpStrings.value(payload(0, 0xc2, 0x78, 0x56, 0x34, 0x12))));
+	}
+
+	@Test
+	void readCompressed() {
+		// literal 'a' followed by a back reference repeating it 9 times
+		Assertions.assertEquals("aaaaaaaaaa",
+				string(DumpStrings.value(payload(0, 0xc3, 5, 10, 0x00, 'a', 0xe0, 0x00, 0x00))));
+	}
+
+	@Test
+	void ignoreOtherTypes() {
+		// set with a single member
+		Assertions.assertNull(DumpStrings.value(payload(2, 1, 1, 'a')));
+	}
+
+	@Test
+	void rejectTruncated() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> DumpStrings.value(payload(0, 5, 'b', 'a')));
+	}
+
+	@Test
+	void write() {
+		byte[] template = payload(0, 0xc0, 1);
+		Assertions.assertArrayEquals(payload(0, 3, 1, 'v', '1'),
+				DumpStrings.dump(template, (byte) 1, ByteBuffer.wrap("v1".getBytes(StandardCharsets.UTF_8))));
+		byte[] value = new byte[100];
+		Arrays.fill(value, (byte) 'x');
+		byte[] dump = DumpStrings.dump(template, (byte) 1, ByteBuffer.wrap(value));
+		Assertions.assertEquals(0x40, dump[1]);
+		Assertions.assertEquals(101, dump[2]);
+		ByteBuffer written = DumpStrings.value(dump);
+		Assertions.assertEquals(101, written.remaining());
+		Assertions.assertEquals(1, written.get(written.position()));
+	}
+
+}
@@ -0,0 +1,95 @@
+package com.redis.riot.meesho;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import com.redis.spring.batch.item.redis.common.KeyValue;
+
+import io.lettuce.core.codec.ByteArrayCodec;
+
+class MCacheProcessorTests {
+
+	private static MCacheProcessor<byte[], KeyValue<byte[]>> processor(String keyPrefix, boolean alreadyHasPrefix) {
+		return new MCacheProcessor<>(ByteArrayCodec.INSTANCE, LoggerFactory.getLogger(MCacheProcessorTests.class),
+				keyPrefix, alreadyHasPrefix);
+	}
+
+	private static KeyValue<byte[]> keyValue(String type, byte[] key, Object value) {
+		KeyValue<byte[]> kv = new KeyValue<>();
+		kv.setKey(key);
+		kv.setType(type);
+		kv.setValue(value);
+		return kv;
+	}
+
+	private static byte[] bytes(String string) {
+		return string.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void prefixesKeyAndAddsMarker() throws Exception {
+		KeyValue<byte[]> kv = processor("mc:", false).process(keyValue(KeyValue.TYPE_STRING, bytes("key1"), bytes("v")));
+		Assertions.assertArrayEquals(bytes("mc:key1"), kv.getKey());
+		Assertions.assertArrayEquals(new byte[] { MCacheProcessor.MARKER, 'v' }, (byte[]) kv.getValue());
+	}
+
+	@Test
+	void replacesExistingMarker() throws Exception {
+		MCacheProcessor<byte[], KeyValue<byte[]>> processor = processor("mc:", true);
+		byte[] marked = { MCacheProcessor.MARKER, 'a', 'b' };
+		KeyValue<byte[]> kv = processor.process(keyValue(KeyValue.TYPE_STRING, bytes("key1"), marked));
+		Assertions.assertSame(marked, kv.getValue(), "value already starting with the marker should be reused");
+		byte[] other = { 0x02, 'a', 'b' };
+		kv = processor.process(keyValue(KeyValue.TYPE_STRING, bytes("key1"), other));
+		Assertions.assertArrayEquals(marked, (byte[]) kv.getValue());
+		Assertions.assertArrayEquals(new byte[] { 0x02, 'a', 'b' }, other, "source value must not be modified");
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> processor.process(keyValue(KeyValue.TYPE_STRING, bytes("key1"), new byte[] { 0x01 })));
+	}
+
+	@Test
+	void keepsNonStringValues() throws Exception {
+		Object value = new Object();
+		KeyValue<byte[]> kv = processor("mc:", false).process(keyValue(KeyValue.TYPE_HASH, bytes("key1"), value));
+		Assertions.assertArrayEquals(bytes("mc:key1"), kv.getKey());
+		Assertions.assertSame(value, kv.getValue());
+	}
+
+	@Test
+	void rewritesStringDumps() throws Exception {
+		MCacheProcessor<byte[], KeyValue<byte[]>> processor = processor("mc:", false);
+		processor.setDump(true);
+		// DUMP of integer 12 with RDB version 11
+		byte[] dump = DumpStrings.dump(new byte[] { 0, (byte) 0xc0, 12, 0x0b, 0, 0, 0, 0, 0, 0, 0, 0 }, (byte) '1',
+				ByteBuffer.wrap(bytes("2")));
+		KeyValue<byte[]> kv = processor.process(keyValue(KeyValue.TYPE_STRING, bytes("key1"), dump));
+		Assertions.assertArrayEquals(bytes("mc:key1"), kv.getKey());
+		ByteBuffer value = DumpStrings.value((byte[]) kv.getValue());
+		Assertions.assertEquals(ByteBuffer.wrap(new byte[] { MCacheProcessor.MARKER, '1', '2' }), value);
+	}
+
+	@Test
+	void replacesMarkerInDumps() throws Exception {
+		MCacheProcessor<byte[], KeyValue<byte[]>> processor = processor("", true);
+		processor.setDump(true);
+		byte[] template = { 0, 1, 'x', 0x0b, 0, 0, 0, 0, 0, 0, 0, 0 };
+		byte[] marked = DumpStrings.dump(template, MCacheProcessor.MARKER, ByteBuffer.wrap(bytes("ab")));
+		KeyValue<byte[]> kv = processor.process(keyValue(KeyValue.TYPE_STRING, bytes("key1"), marked));
+		Assertions.assertSame(marked, kv.getValue());
+		byte[] other = DumpStrings.dump(template, (byte) 0x02, ByteBuffer.wrap(bytes("ab")));
+		kv = processor.process(keyValue(KeyValue.TYPE_STRING, bytes("key1"), other));
+		Assertions.assertArrayEquals(marked, (byte[]) kv.getValue());
+	}
+
+	@Test
+	void keepsNonUtf8KeyBytes() throws Exception {
+		byte[] key = { 'k', (byte) 0xff, (byte) 0xfe };
+		KeyValue<byte[]> kv = processor("mc:", false).process(keyValue(KeyValue.TYPE_STRING, key, bytes("v")));
+		Assertions.assertArrayEquals(new byte[] { 'm', 'c', ':', 'k', (byte) 0xff, (byte) 0xfe }, kv.getKey());
+	}
+
+}